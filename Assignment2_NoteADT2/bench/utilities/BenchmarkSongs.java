@@ -0,0 +1,162 @@
+/**
+ *
+ */
+package utilities;
+
+import java.io.File;
+import java.io.FileFilter;
+import java.io.IOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * @author Floyd Almazar
+ * @version 1.0
+ *
+ * Class Description: The inputs of the benchmarks. The entries are taken from the song files of the res folder,
+ * 					so the mix of note names, frequencies, rests and invalid entries (as in testsong.txt) is the one
+ * 					of real songs, and large songs are generated from the same entries.
+ */
+final class BenchmarkSongs
+{
+	//Constants
+	static final File			RES = new File("res");
+
+	/**
+	 * The prefix of a song parameter that stands for a generated song, followed by its size in kilobytes.
+	 */
+	static final String			GENERATED = "generated-";
+
+	private static final int	ENTRIES_PER_LINE = 16;
+	private static final long	SEED = 42;
+
+	private BenchmarkSongs()
+	{
+	}
+
+	/**
+	 * Returns every .txt song file of the res folder in name order.
+	 */
+	static File[] songFiles() throws IOException
+	{
+		File[] songs = RES.listFiles(new FileFilter()
+		{
+			@Override
+			public boolean accept(File song)
+			{
+				return song.isFile() && song.getName().endsWith(".txt");
+			}
+		});
+		if(songs == null || songs.length == 0)
+		{
+			throw new IOException("The benchmarks are run from the project folder, next to res.");
+		}
+		Arrays.sort(songs);
+		return songs;
+	}
+
+	/**
+	 * Returns every entry of the song files of the res folder in order, as it is written in the file.
+	 */
+	static List<String> entries() throws IOException
+	{
+		List<String> entries = new ArrayList<String>();
+		for(File song : songFiles())
+		{
+			String text = new String(Files.readAllBytes(song.toPath()), StandardCharsets.UTF_8);
+			for(String entry : text.split("[,\\s]+"))
+			{
+				if(!entry.isEmpty())
+				{
+					entries.add(entry);
+				}
+			}
+		}
+		return entries;
+	}
+
+	/**
+	 * Returns an entry without the minus sign that marks a long rest.
+	 */
+	static String withoutRest(String entry)
+	{
+		return entry.length() > 1 && entry.endsWith("-") ? entry.substring(0, entry.length() - 1) : entry;
+	}
+
+	/**
+	 * Returns whether an entry is a rest, short or long.
+	 */
+	static boolean isRest(String entry)
+	{
+		return withoutRest(entry).equals("r");
+	}
+
+	/**
+	 * Returns the song file of a benchmark parameter, copied into a folder so that nothing is written into res:
+	 * the name of a song of the res folder, or GENERATED followed by a size in kilobytes.
+	 */
+	static File songFile(String song, File folder) throws IOException
+	{
+		File file = new File(folder, song.startsWith(GENERATED) ? song + ".txt" : song);
+		if(song.startsWith(GENERATED))
+		{
+			generate(file, Long.parseLong(song.substring(GENERATED.length())) * 1024);
+		}
+		else
+		{
+			Files.copy(new File(RES, song).toPath(), file.toPath());
+		}
+		return file;
+	}
+
+	/**
+	 * Writes a song of about a number of bytes, made of the entries of the res folder picked at random. The
+	 * same size always gives the same song.
+	 */
+	static void generate(File file, long bytes) throws IOException
+	{
+		List<String> entries = entries();
+		Random random = new Random(SEED);
+		long written = 0;
+		try(Writer out = Files.newBufferedWriter(file.toPath(), StandardCharsets.UTF_8))
+		{
+			while(written < bytes)
+			{
+				for(int i = 0; i < ENTRIES_PER_LINE; i++)
+				{
+					String entry = entries.get(random.nextInt(entries.size()));
+					if(i > 0)
+					{
+						out.write(',');
+						written++;
+					}
+					out.write(entry);
+					written += entry.length();
+				}
+				out.write('\n');
+				written++;
+			}
+		}
+	}
+
+	/**
+	 * Deletes a folder of copied and generated songs.
+	 */
+	static void delete(File folder)
+	{
+		File[] files = folder.listFiles();
+		if(files != null)
+		{
+			for(File file : files)
+			{
+				file.delete();
+			}
+		}
+		folder.delete();
+	}
+}
@@ -0,0 +1,44 @@
+/**
+ *
+ */
+package utilities;
+
+import org.openjdk.jmh.profile.GCProfiler;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.ChainedOptionsBuilder;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+/**
+ * @author Floyd Almazar
+ * @version 1.0
+ *
+ * Class Description: Runs the JMH benchmarks of the project. The benchmarks are kept in the bench folder, next to
+ * 					src and test, and need the JMH jars (jmh-core and jmh-generator-annprocess with their
+ * 					dependencies), which the players do not. See the README for the commands.
+ */
+public class Benchmarks
+{
+	/**
+	 * This is the MAIN method that runs the benchmarks from the project folder, where res is.
+	 * PROGRAM PROCEDURE:
+	 * 	-- Every argument is a regular expression of the benchmarks to run (all of them if nothing is entered)
+	 * 	-- The throughput of every benchmark is measured, and the GC profiler adds the allocation rate
+	 * 	(gc.alloc.rate) and the bytes allocated per operation (gc.alloc.rate.norm)
+	 * @param args argument, the benchmarks to run
+	 * @throws RunnerException if a benchmark fails
+	 */
+	public static void main(String[] args) throws RunnerException
+	{
+		ChainedOptionsBuilder options = new OptionsBuilder().addProfiler(GCProfiler.class);
+		if(args.length == 0)
+		{
+			options.include("utilities\\..*Benchmark");
+		}
+		for(String include : args)
+		{
+			options.include(include);
+		}
+		new Runner(options.build()).run();
+	}
+}
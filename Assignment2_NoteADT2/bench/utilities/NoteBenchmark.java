@@ -0,0 +1,175 @@
+/**
+ *
+ */
+package utilities;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import exception.InvalidNoteException;
+import note.Note;
+import note.NoteADT;
+
+/**
+ * @author Floyd Almazar
+ * @version 1.0
+ *
+ * Class Description: Measures the three ways of creating a note, from a note name, a frequency and a number of
+ * 					half steps, and the parser used by the song loaders. The inputs are the entries of the song files
+ * 					of the res folder:
+ * 	-- valid	only the entries that are valid notes
+ * 	-- mixed	every entry that is not a rest, so the invalid entries (as in testsong.txt) throw as often as they
+ * 				do in the songs
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class NoteBenchmark
+{
+	//Attributes
+	@Param({ "valid", "mixed" })
+	public String entries;
+
+	private String[] names;
+	private double[] frequencies;
+	private int[] halfSteps;
+	private int index;
+
+	@Setup
+	public void setUp() throws IOException
+	{
+		boolean mixed = entries.equals("mixed");
+		List<String> nameList = new ArrayList<String>();
+		List<Double> frequencyList = new ArrayList<Double>();
+		List<Integer> halfStepList = new ArrayList<Integer>();
+		for(String entry : BenchmarkSongs.entries())
+		{
+			if(BenchmarkSongs.isRest(entry))
+			{
+				continue;
+			}
+			String note = BenchmarkSongs.withoutRest(entry);
+			int midiValue = NoteADT.tryParseMidi(note);
+			if(midiValue >= NoteADT.LOW_MIDI_VALUE)
+			{
+				nameList.add(note);
+				frequencyList.add(NoteADT.frequencyOf(midiValue));
+				halfStepList.add(midiValue - NoteADT.CONCERT_PITCH_MIDI);
+				continue;
+			}
+
+			double frequency = parseFrequency(note);
+			if(!Double.isNaN(frequency) && NoteADT.tryFrequencyToMidi(frequency) >= NoteADT.LOW_MIDI_VALUE)
+			{
+				frequencyList.add(frequency);
+			}
+			else if(mixed)
+			{
+				nameList.add(note);
+				frequencyList.add(Double.isNaN(frequency) ? -1.0 : frequency);
+				halfStepList.add(NoteADT.HIGH_MIDI_VALUE + 1 - NoteADT.CONCERT_PITCH_MIDI);
+			}
+		}
+
+		names = nameList.toArray(new String[nameList.size()]);
+		frequencies = new double[frequencyList.size()];
+		for(int i = 0; i < frequencies.length; i++)
+		{
+			frequencies[i] = frequencyList.get(i);
+		}
+		halfSteps = new int[halfStepList.size()];
+		for(int i = 0; i < halfSteps.length; i++)
+		{
+			halfSteps[i] = halfStepList.get(i);
+		}
+	}
+
+	private static double parseFrequency(String entry)
+	{
+		try
+		{
+			return Double.parseDouble(entry);
+		}
+		catch (NumberFormatException e)
+		{
+			return Double.NaN;
+		}
+	}
+
+	/**
+	 * Returns the index of the next input, going round the inputs so the JIT cannot fold a constant input.
+	 */
+	private int next(int length)
+	{
+		if(++index >= length)
+		{
+			index = 0;
+		}
+		return index;
+	}
+
+	@Benchmark
+	public Object fromName()
+	{
+		try
+		{
+			return new Note(names[next(names.length)]);
+		}
+		catch (InvalidNoteException e)
+		{
+			return e;
+		}
+	}
+
+	@Benchmark
+	public Object fromFrequency()
+	{
+		try
+		{
+			return new Note(frequencies[next(frequencies.length)]);
+		}
+		catch (InvalidNoteException e)
+		{
+			return e;
+		}
+	}
+
+	@Benchmark
+	public Object fromHalfSteps()
+	{
+		try
+		{
+			return new Note(halfSteps[next(halfSteps.length)]);
+		}
+		catch (InvalidNoteException e)
+		{
+			return e;
+		}
+	}
+
+	/**
+	 * The parser of the song loaders, which returns a status instead of throwing.
+	 */
+	@Benchmark
+	public int tryParseName()
+	{
+		return NoteADT.tryParseMidi(names[next(names.length)]);
+	}
+}
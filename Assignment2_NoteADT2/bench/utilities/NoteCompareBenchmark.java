@@ -0,0 +1,78 @@
+/**
+ *
+ */
+package utilities;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import exception.InvalidNoteException;
+import note.Note;
+import note.NoteADT;
+
+/**
+ * @author Floyd Almazar
+ * @version 1.0
+ *
+ * Class Description: Measures Note.compareTo, on its own and while sorting every note of the songs of the res
+ * 					folder in song order.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class NoteCompareBenchmark
+{
+	//Attributes
+	private Note[] notes;
+	private Note[] sorted;
+	private int index;
+
+	@Setup
+	public void setUp() throws IOException, InvalidNoteException
+	{
+		List<Note> noteList = new ArrayList<Note>();
+		for(String entry : BenchmarkSongs.entries())
+		{
+			int midiValue = NoteADT.tryParseMidi(BenchmarkSongs.withoutRest(entry));
+			if(midiValue >= NoteADT.LOW_MIDI_VALUE)
+			{
+				noteList.add(Note.valueOf(midiValue));
+			}
+		}
+		notes = noteList.toArray(new Note[noteList.size()]);
+		sorted = new Note[notes.length];
+	}
+
+	@Benchmark
+	public int compareTo()
+	{
+		int first = index;
+		index = first + 1 < notes.length - 1 ? first + 1 : 0;
+		return notes[first].compareTo(notes[first + 1]);
+	}
+
+	@Benchmark
+	public Note[] sortSong()
+	{
+		System.arraycopy(notes, 0, sorted, 0, notes.length);
+		Arrays.sort(sorted);
+		return sorted;
+	}
+}
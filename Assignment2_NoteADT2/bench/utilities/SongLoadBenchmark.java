@@ -0,0 +1,114 @@
+/**
+ *
+ */
+package utilities;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * @author Floyd Almazar
+ * @version 1.0
+ *
+ * Class Description: Measures the file loop of the Song class without playing the notes: a whole song file is
+ * 					read and every entry is passed to a SongListener, by the SongReader, by the ParallelSongLoader
+ * 					and by CompiledSong once the compiled file is written. The songs are copied from res, or
+ * 					generated from the entries of res in sizes of 1 MB and 16 MB.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class SongLoadBenchmark
+{
+	//Attributes
+	@Param({ "sweetchildofmine.txt", "testsong.txt", "generated-1024", "generated-16384" })
+	public String song;
+
+	private File folder;
+	private File file;
+	private final SongReader reader = new SongReader();
+	private final ParallelSongLoader loader = new ParallelSongLoader();
+	private final Checksum listener = new Checksum();
+
+	@Setup
+	public void setUp() throws IOException
+	{
+		folder = Files.createTempDirectory("songbench").toFile();
+		file = BenchmarkSongs.songFile(song, folder);
+		CompiledSong.compile(file);
+	}
+
+	@TearDown
+	public void tearDown()
+	{
+		BenchmarkSongs.delete(folder);
+	}
+
+	@Benchmark
+	public long songReader() throws IOException
+	{
+		listener.sum = 0;
+		reader.read(file, listener);
+		return listener.sum;
+	}
+
+	@Benchmark
+	public long parallelSongLoader() throws IOException
+	{
+		listener.sum = 0;
+		loader.load(file, listener);
+		return listener.sum;
+	}
+
+	@Benchmark
+	public long compiledSong() throws IOException
+	{
+		listener.sum = 0;
+		CompiledSong.load(file, listener);
+		return listener.sum;
+	}
+
+	/**
+	 * A listener that adds up the entries it receives, so the work of the loaders cannot be left out.
+	 */
+	private static final class Checksum implements SongListener
+	{
+		private long sum;
+
+		@Override
+		public void onNote(int midiValue, int rest)
+		{
+			sum += midiValue + rest;
+		}
+
+		@Override
+		public void onRest(int rest)
+		{
+			sum += rest;
+		}
+
+		@Override
+		public void onInvalid(int line, int column, CharSequence token, int status)
+		{
+			sum += line + column + token.length() + status;
+		}
+	}
+}
@@ -20,4 +20,15 @@ public class InvalidNoteException extends Exception
 	{
 		super(message);
 	}
+	
+	/**
+	 * Constructor for an exception that can skip capturing its stack trace, which is the costly part
+	 * of creating an exception when many invalid notes are being skipped.
+	 * @param message the message describing the invalid note
+	 * @param writableStackTrace whether the stack trace should be captured or not
+	 */
+	public InvalidNoteException(String message, boolean writableStackTrace)
+	{
+		super(message, null, false, writableStackTrace);
+	}
 }
@@ -0,0 +1,213 @@
+/**
+ *
+ */
+package note;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * @author Floyd Almazar
+ * @version 1.0
+ *
+ * Class Description: A playback clock that gives every event an absolute target time from System.nanoTime()
+ * 					instead of sleeping for each rest. The time spent between events (printing, parsing and the
+ * 					MIDI calls) is taken out of the next wait, so the tempo of a song does not drift. The lateness
+ * 					of every event is measured and kept.
+ */
+public class DeadlineScheduler
+{
+	//Constants
+	/**
+	 * The last part of every wait is spent spinning instead of parking, because parking can oversleep.
+	 */
+	public static final long	SPIN_NANOS = TimeUnit.MICROSECONDS.toNanos(200);
+
+	/**
+	 * An event that is later than this (for example after the song was paused) restarts the clock instead
+	 * of rushing the next events to catch up.
+	 */
+	public static final long	RESYNC_NANOS = TimeUnit.MILLISECONDS.toNanos(250);
+
+	//Attributes
+	private boolean started;
+	private long origin;
+	private long position;
+	private long lastDeadline;
+
+	private long events;
+	private long lastLateness;
+	private long maxLateness;
+	private long totalLateness;
+
+	/**
+	 * Mutator method that stops the clock, so the next event starts it again at the current time.
+	 */
+	public void reset()
+	{
+		started = false;
+		position = 0;
+	}
+
+	/**
+	 * Waits until the target time of the next event and records how late the event is.
+	 *
+	 * Precondition: none, the first event starts the clock.
+	 *
+	 * Postcondition: The current time is at or after the target time of the event.
+	 *
+	 * @return the lateness of the event in nanoseconds
+	 */
+	public long awaitEvent()
+	{
+		long lateness = 0;
+		if(!started)
+		{
+			start();
+			lastDeadline = origin + position;
+		}
+		else
+		{
+			long deadline = origin + position;
+			lastDeadline = deadline;
+			lateness = System.nanoTime() - deadline;
+			if(lateness > RESYNC_NANOS)
+			{
+				origin += lateness;
+			}
+			else
+			{
+				// a wait ended early by an interrupt is not counted as early
+				lateness = Math.max(0, waitUntil(deadline));
+			}
+		}
+
+		events++;
+		lastLateness = lateness;
+		maxLateness = Math.max(maxLateness, lateness);
+		totalLateness += lateness;
+		return lateness;
+	}
+
+	/**
+	 * Mutator method that moves the target time of the next event later by a rest.
+	 * @param rest the rest in milliseconds
+	 */
+	public void advance(int rest)
+	{
+		if(!started)
+		{
+			start();
+		}
+		position += TimeUnit.MILLISECONDS.toNanos(rest);
+	}
+
+	/**
+	 * Waits until the target time of the next event without recording an event. A target time that is more than
+	 * RESYNC_NANOS late restarts the clock, the same way as for an event.
+	 */
+	public void awaitDeadline()
+	{
+		if(!started)
+		{
+			start();
+		}
+		long deadline = origin + position;
+		lastDeadline = deadline;
+		long lateness = System.nanoTime() - deadline;
+		if(lateness > RESYNC_NANOS)
+		{
+			origin += lateness;
+		}
+		else
+		{
+			waitUntil(deadline);
+		}
+	}
+
+	private void start()
+	{
+		started = true;
+		origin = System.nanoTime() - position;
+	}
+
+	/**
+	 * Parks until shortly before the deadline and spins for the rest of the wait. A park that wakes up after the
+	 * deadline is written to a Flight Recorder recording as a SchedulerOversleep event.
+	 *
+	 * An interrupt ends the wait early and stays set, so the thread that plays the song can be stopped by
+	 * interrupting it; the caller checks the interrupt and stops playing instead of rushing the next notes.
+	 * @param deadline the target time from System.nanoTime()
+	 * @return how late the wait ended in nanoseconds, negative if it was ended early by an interrupt
+	 */
+	public static long waitUntil(long deadline)
+	{
+		long remaining = deadline - System.nanoTime();
+		long requested = remaining;
+		Object oversleep = remaining > SPIN_NANOS ? FlightEvent.SCHEDULER_OVERSLEEP.begin() : null;
+		while(remaining > SPIN_NANOS)
+		{
+			if(Thread.currentThread().isInterrupted())
+			{
+				return -remaining;
+			}
+			LockSupport.parkNanos(remaining - SPIN_NANOS);
+			remaining = deadline - System.nanoTime();
+		}
+		if(oversleep != null && remaining < 0)
+		{
+			FlightEvent.SCHEDULER_OVERSLEEP.commit(oversleep, requested, -remaining);
+		}
+		while(remaining > 0)
+		{
+			remaining = deadline - System.nanoTime();
+		}
+		return -remaining;
+	}
+
+	/**
+	 * Accessor method that returns the target time of the last wait, event or not, as it was before any restart
+	 * of the clock.
+	 * @return the target time from System.nanoTime()
+	 */
+	public long getLastDeadline()
+	{
+		return lastDeadline;
+	}
+
+	/**
+	 * Accessor method that returns the number of events recorded.
+	 * @return the number of events
+	 */
+	public long getEventCount()
+	{
+		return events;
+	}
+
+	/**
+	 * Accessor method that returns the lateness of the last event in nanoseconds.
+	 * @return the lateness of the last event
+	 */
+	public long getLastLateness()
+	{
+		return lastLateness;
+	}
+
+	/**
+	 * Accessor method that returns the largest lateness of an event in nanoseconds.
+	 * @return the largest lateness
+	 */
+	public long getMaxLateness()
+	{
+		return maxLateness;
+	}
+
+	/**
+	 * Accessor method that returns the average lateness of the events in nanoseconds.
+	 * @return the average lateness, or 0 if there are no events
+	 */
+	public long getAverageLateness()
+	{
+		return events == 0 ? 0 : totalLateness / events;
+	}
+}
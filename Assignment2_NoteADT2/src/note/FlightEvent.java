@@ -0,0 +1,324 @@
+/**
+ *
+ */
+package note;
+
+import java.lang.annotation.Annotation;
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.reflect.Constructor;
+import java.lang.reflect.Method;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * @author Floyd Almazar
+ * @version 1.0
+ *
+ * Class Description: A custom Java Flight Recorder event of the players, so that the loading of songs, the invalid
+ * 					entries, the notes sent by the Piano and the oversleeping of the scheduler can be seen in the
+ * 					same recording as the GC pauses (for example java -XX:StartFlightRecording=filename=song.jfr).
+ *
+ * 					The players are built for Java 8, which has no jdk.jfr API to compile against, so the event
+ * 					types are registered with jdk.jfr.EventFactory through reflection when the class is loaded.
+ * 					On a Java runtime without Flight Recorder every event is disabled and costs one check. An
+ * 					event object is only created while a recording has the event enabled, so nothing is allocated
+ * 					in the hot loops otherwise.
+ */
+public final class FlightEvent
+{
+	//Constants
+	private static final String	CATEGORY = "Music Player";
+
+	/**
+	 * The reflection of the jdk.jfr API, or null if Flight Recorder is not available.
+	 */
+	private static final Jfr	JFR = Jfr.find();
+
+	/**
+	 * A song file loaded by a SongReader, CompiledSong, ParallelSongLoader or MultiTrackSong. The listener of a
+	 * loader can be the player itself, so the event has no duration; the time spent reading and parsing the file
+	 * and the time spent in the listener are fields of their own.
+	 */
+	public static final FlightEvent SONG_LOAD = new FlightEvent("music.SongLoad", "Song Load",
+			"A song file was loaded", "Parsing", true,
+			new Field(String.class, "file", "File", null),
+			new Field(long.class, "bytes", "Bytes", "jdk.jfr.DataAmount:BYTES"),
+			new Field(long.class, "tokens", "Tokens", null),
+			new Field(long.class, "invalid", "Invalid Entries", null),
+			new Field(long.class, "parseTime", "Parse Time", "jdk.jfr.Timespan:NANOSECONDS"),
+			new Field(long.class, "listenerTime", "Listener Time", "jdk.jfr.Timespan:NANOSECONDS"));
+
+	/**
+	 * An entry of a song file that is not a valid note, frequency or rest.
+	 */
+	public static final FlightEvent PARSE_FAILURE = new FlightEvent("music.ParseFailure", "Parse Failure",
+			"An invalid entry of a song file was skipped", "Parsing", false,
+			new Field(String.class, "file", "File", null),
+			new Field(int.class, "line", "Line", null),
+			new Field(int.class, "column", "Column", null),
+			new Field(String.class, "token", "Token", null),
+			new Field(String.class, "reason", "Reason", null));
+
+	/**
+	 * A note on or note off sent by a Piano to its output.
+	 */
+	public static final FlightEvent NOTE_DISPATCH = new FlightEvent("music.NoteDispatch", "Note Dispatch",
+			"A note on or note off was sent to the MIDI output", "Playback", false,
+			new Field(String.class, "command", "Command", null),
+			new Field(int.class, "midiValue", "MIDI Value", null),
+			new Field(int.class, "channel", "Channel", null));
+
+	/**
+	 * A wait of the DeadlineScheduler that parked past its deadline, with the duration of the wait.
+	 */
+	public static final FlightEvent SCHEDULER_OVERSLEEP = new FlightEvent("music.SchedulerOversleep",
+			"Scheduler Oversleep", "A wait of the playback scheduler ended after its deadline", "Playback", false,
+			new Field(long.class, "requested", "Requested Wait", "jdk.jfr.Timespan:NANOSECONDS"),
+			new Field(long.class, "oversleep", "Oversleep", "jdk.jfr.Timespan:NANOSECONDS"));
+
+	//Attributes
+	private final Object factory;
+	private final MethodHandle enabled;
+	private final int fields;
+
+	private FlightEvent(String name, String label, String description, String category, boolean stackTrace,
+			Field... fields)
+	{
+		this.fields = fields.length;
+		Object created = null;
+		MethodHandle isEnabled = null;
+		if(JFR != null)
+		{
+			try
+			{
+				created = JFR.register(name, label, description, new String[] { CATEGORY, category }, stackTrace,
+						fields);
+				isEnabled = JFR.isEnabled.bindTo(JFR.getEventType.invoke(created));
+			}
+			catch (ReflectiveOperationException | RuntimeException e)
+			{
+				created = null;
+				isEnabled = null;
+			}
+		}
+		factory = created;
+		enabled = isEnabled;
+	}
+
+	/**
+	 * Accessor method to find out if a recording has this event enabled.
+	 * @return boolean value representing whether the event is recorded or not
+	 */
+	public boolean isEnabled()
+	{
+		if(enabled == null)
+		{
+			return false;
+		}
+		try
+		{
+			return (boolean) enabled.invokeExact();
+		}
+		catch (Throwable e)
+		{
+			return false;
+		}
+	}
+
+	/**
+	 * Starts an event with a duration, if the event is recorded.
+	 * @return the started event to pass to commit, or null if the event is not recorded
+	 */
+	public Object begin()
+	{
+		return newEvent(true);
+	}
+
+	private Object newEvent(boolean timed)
+	{
+		if(!isEnabled())
+		{
+			return null;
+		}
+		try
+		{
+			Object event = JFR.newEvent.invoke(factory);
+			if(timed)
+			{
+				JFR.begin.invoke(event);
+			}
+			return event;
+		}
+		catch (ReflectiveOperationException e)
+		{
+			return null;
+		}
+	}
+
+	/**
+	 * Ends an event started by begin and writes it to the recording with its fields.
+	 * @param event the started event, or null if it is not recorded
+	 * @param values the values of the fields of the event in order
+	 */
+	public void commit(Object event, Object... values)
+	{
+		if(event == null)
+		{
+			return;
+		}
+		if(values.length != fields)
+		{
+			throw new IllegalArgumentException("The event has " + fields + " fields: " + values.length);
+		}
+		try
+		{
+			for(int i = 0; i < values.length; i++)
+			{
+				JFR.set.invoke(event, i, values[i]);
+			}
+			JFR.end.invoke(event);
+			if((Boolean) JFR.shouldCommit.invoke(event))
+			{
+				JFR.commit.invoke(event);
+			}
+		}
+		catch (ReflectiveOperationException e)
+		{
+			// the recording loses the event, the player goes on
+		}
+	}
+
+	/**
+	 * Writes an event without a duration to the recording, if the event is recorded. A hot loop checks isEnabled
+	 * first, so the values are not boxed when nothing is recorded.
+	 * @param values the values of the fields of the event in order
+	 */
+	public void emit(Object... values)
+	{
+		commit(newEvent(false), values);
+	}
+
+	/**
+	 * A field of an event: its type, name, label and content type (an annotation of jdk.jfr with its value,
+	 * for example jdk.jfr.Timespan:NANOSECONDS).
+	 */
+	private static final class Field
+	{
+		private final Class<?> type;
+		private final String name;
+		private final String label;
+		private final String content;
+
+		private Field(Class<?> type, String name, String label, String content)
+		{
+			this.type = type;
+			this.name = name;
+			this.label = label;
+			this.content = content;
+		}
+	}
+
+	/**
+	 * The classes and methods of the jdk.jfr API that are used, found through reflection.
+	 */
+	private static final class Jfr
+	{
+		private final Class<? extends Annotation> name;
+		private final Class<? extends Annotation> label;
+		private final Class<? extends Annotation> description;
+		private final Class<? extends Annotation> category;
+		private final Class<? extends Annotation> stackTrace;
+		private final Constructor<?> annotationElement;
+		private final Constructor<?> valueDescriptor;
+		private final Method create;
+		private final Method getEventType;
+		private final MethodHandle isEnabled;
+		private final Method newEvent;
+		private final Method set;
+		private final Method begin;
+		private final Method end;
+		private final Method shouldCommit;
+		private final Method commit;
+
+		private Jfr() throws ReflectiveOperationException
+		{
+			name = annotation("jdk.jfr.Name");
+			label = annotation("jdk.jfr.Label");
+			description = annotation("jdk.jfr.Description");
+			category = annotation("jdk.jfr.Category");
+			stackTrace = annotation("jdk.jfr.StackTrace");
+
+			Class<?> annotationElementClass = Class.forName("jdk.jfr.AnnotationElement");
+			annotationElement = annotationElementClass.getConstructor(Class.class, Object.class);
+			valueDescriptor = Class.forName("jdk.jfr.ValueDescriptor").getConstructor(Class.class, String.class,
+					List.class);
+
+			Class<?> factoryClass = Class.forName("jdk.jfr.EventFactory");
+			create = factoryClass.getMethod("create", List.class, List.class);
+			getEventType = factoryClass.getMethod("getEventType");
+			newEvent = factoryClass.getMethod("newEvent");
+			isEnabled = MethodHandles.publicLookup().unreflect(Class.forName("jdk.jfr.EventType")
+					.getMethod("isEnabled"));
+
+			Class<?> eventClass = Class.forName("jdk.jfr.Event");
+			set = eventClass.getMethod("set", int.class, Object.class);
+			begin = eventClass.getMethod("begin");
+			end = eventClass.getMethod("end");
+			shouldCommit = eventClass.getMethod("shouldCommit");
+			commit = eventClass.getMethod("commit");
+		}
+
+		/**
+		 * Returns the jdk.jfr API, or null if this Java runtime has no Flight Recorder.
+		 */
+		private static Jfr find()
+		{
+			try
+			{
+				return new Jfr();
+			}
+			catch (ReflectiveOperationException | LinkageError | SecurityException e)
+			{
+				return null;
+			}
+		}
+
+		private static Class<? extends Annotation> annotation(String className) throws ClassNotFoundException
+		{
+			return Class.forName(className).asSubclass(Annotation.class);
+		}
+
+		/**
+		 * Registers an event type and returns its EventFactory.
+		 */
+		private Object register(String eventName, String eventLabel, String eventDescription, String[] categories,
+				boolean withStackTrace, Field[] fields) throws ReflectiveOperationException
+		{
+			List<Object> annotations = new ArrayList<Object>();
+			annotations.add(annotationElement.newInstance(name, eventName));
+			annotations.add(annotationElement.newInstance(label, eventLabel));
+			annotations.add(annotationElement.newInstance(description, eventDescription));
+			annotations.add(annotationElement.newInstance(category, categories));
+			annotations.add(annotationElement.newInstance(stackTrace, withStackTrace));
+
+			List<Object> descriptors = new ArrayList<Object>();
+			for(Field field : fields)
+			{
+				List<Object> fieldAnnotations = new ArrayList<Object>();
+				fieldAnnotations.add(annotationElement.newInstance(label, field.label));
+				if(field.content != null)
+				{
+					int colon = field.content.indexOf(':');
+					Class<? extends Annotation> content = annotation(field.content.substring(0, colon));
+					fieldAnnotations.add(annotationElement.newInstance(content, content.getField(
+							field.content.substring(colon + 1)).get(null)));
+				}
+				descriptors.add(valueDescriptor.newInstance(field.type, field.name,
+						Collections.unmodifiableList(fieldAnnotations)));
+			}
+			return create.invoke(null, annotations, descriptors);
+		}
+	}
+}
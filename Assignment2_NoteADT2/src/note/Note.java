@@ -10,9 +10,35 @@ import exception.InvalidNoteException;
  * @version 1.0
  * 
  * Class Description: This is the note Class where the implementation of the methods in the NoteADT is being used. 
+ * 					The notes returned by the valueOf methods and by transpose are shared by every caller and cannot
+ * 					be modified: modifyNoteByHalfSteps throws an UnsupportedOperationException on them. A note made
+ * 					with a constructor can be modified.
  */
 public class Note extends NoteADT
 {
+	/**
+	 * The shared notes returned by the valueOf methods, one for every MIDI value from 0 - 127.
+	 */
+	private static final Note[] NOTES = new Note[HIGH_MIDI_VALUE + 1];
+	
+	static
+	{
+		try
+		{
+			for(int midi = LOW_MIDI_VALUE; midi <= HIGH_MIDI_VALUE; midi++)
+			{
+				NOTES[midi] = new Note(midi - CONCERT_PITCH_MIDI, true);
+			}
+		}
+		catch (InvalidNoteException e)
+		{
+			throw new ExceptionInInitializerError(e);
+		}
+	}
+	
+	//Attributes
+	private final boolean shared;
+	
 	/**
 	 * Note constructor that takes octaves.
 	 * @param stringNote a String object representing the music note
@@ -21,6 +47,7 @@ public class Note extends NoteADT
 	public Note(String stringNote) throws InvalidNoteException
 	{
 		super(stringNote);
+		shared = false;
 	}
 	
 	/**
@@ -31,6 +58,7 @@ public class Note extends NoteADT
 	public Note(int halfSteps) throws InvalidNoteException
 	{
 		super(halfSteps);
+		shared = false;
 	}
 	
 	/**
@@ -43,6 +71,103 @@ public class Note extends NoteADT
 	public Note(double frequency) throws InvalidNoteException
 	{
 		super(frequency);
+		shared = false;
+	}
+	
+	/**
+	 * Constructor for the shared notes that cannot be modified.
+	 * @param halfSteps an integer value representing the semi tone
+	 * @param shared whether this note is one of the shared notes
+	 * @throws InvalidNoteException handles the invalid note
+	 */
+	private Note(int halfSteps, boolean shared) throws InvalidNoteException
+	{
+		super(halfSteps);
+		this.shared = shared;
+	}
+	
+	/**
+	 * Factory method that returns the shared note for a MIDI value.
+	 * 
+	 * Precondition: An integer value representing a MIDI value ranging from 0 - 127.
+	 * 
+	 * Postcondition: The shared note with this MIDI value is returned, no new object is created. The shared
+	 * 					note cannot be modified, see isShared.
+	 * 
+	 * The valueOf methods are meant for bulk use, so their exceptions carry no stack trace.
+	 * 
+	 * @param midiValue an integer value between 0 - 127
+	 * @return the shared note with this MIDI value
+	 * @throws InvalidNoteException handles the invalid note
+	 */
+	public static Note valueOf(int midiValue) throws InvalidNoteException
+	{
+		if(!isValidMidi(midiValue))
+		{
+			throw invalidNote(OUT_OF_RANGE, false);
+		}
+		return NOTES[midiValue];
+	}
+	
+	/**
+	 * Returns the shared note for a MIDI value that is already known to be between 0 - 127.
+	 */
+	static Note shared(int midiValue)
+	{
+		return NOTES[midiValue];
+	}
+	
+	/**
+	 * Factory method that returns the shared note for a common music note name.
+	 * @param stringNote a String object representing the music note
+	 * @return the shared note with this name
+	 * @throws InvalidNoteException an exception that handles an invalid note input
+	 */
+	public static Note valueOf(String stringNote) throws InvalidNoteException
+	{
+		int midiValue = tryParseMidi(stringNote);
+		if(midiValue < LOW_MIDI_VALUE)
+		{
+			throw invalidNote(midiValue, false);
+		}
+		return NOTES[midiValue];
+	}
+	
+	/**
+	 * Factory method that returns the shared note nearest to a frequency in cycles per second.
+	 * @param frequency a Double value representing the frequency
+	 * @return the shared note nearest to this frequency
+	 * @throws InvalidNoteException handles the invalid note
+	 */
+	public static Note valueOf(double frequency) throws InvalidNoteException
+	{
+		return valueOf(tryFrequencyToMidi(frequency));
+	}
+	
+	/**
+	 * Accessor method that returns whether this note is one of the shared notes returned by the valueOf methods
+	 * and by transpose, which cannot be modified with modifyNoteByHalfSteps.
+	 * @return boolean value representing whether the note is shared or not
+	 */
+	public boolean isShared()
+	{
+		return shared;
+	}
+	
+	/**
+	 * Accessor method that returns the shared note a number of semi-tones away from this note.
+	 * 
+	 * Precondition: The transposed note must have a MIDI value ranging from 0 - 127.
+	 * 
+	 * Postcondition: The shared transposed note is returned, this note is not modified.
+	 * 
+	 * @param halfSteps the number of semi-tones to move this note by
+	 * @return the shared note halfSteps away from this note
+	 * @throws InvalidNoteException handles the invalid note
+	 */
+	public Note transpose(int halfSteps) throws InvalidNoteException
+	{
+		return valueOf(noteNumber + halfSteps);
 	}
 	
 	/**
@@ -57,8 +182,7 @@ public class Note extends NoteADT
 	@Override
 	public double getFrequencyInHz()
 	{
-		return noteNumber = (int) Math.round(CONCERT_PITCH_MIDI + (12 * Math.log(frequency/CONCERT_PITCH_FREQUENCY)
-				/ Math.log(2)));
+		return frequencyOf(noteNumber);
 	}
 	
 	/**
@@ -123,28 +247,28 @@ public class Note extends NoteADT
 	/**
 	 * Mutator method that modifies the note by number of semi-tones.
 	 * 
-	 * Precondition: A valid integer value representing a semi-tone ranging from 0 - 127.
+	 * Precondition: A valid integer value representing a semi-tone ranging from 0 - 127. This note was made
+	 * 					with a constructor, not returned by a valueOf method or by transpose (see isShared).
 	 * 
 	 * Postcondition: This note is modified depending on the range of the 
-	 * 					semi-tone.
+	 * 					semi-tone. If the modified note would be out of range this note stays unchanged.
 	 * 
 	 * @param halfSteps an integer value between 0 - 127
+	 * @throws UnsupportedOperationException if this is one of the shared notes returned by a valueOf method or
+	 * 					by transpose, use transpose instead
 	 */
 	@Override
 	public void modifyNoteByHalfSteps(int halfSteps)
 	{
-		try
-		{
-			noteNumber = noteNumber + halfSteps;
-			checkMidiRange(noteNumber);
-			
-		}catch (InvalidNoteException e)
+		if(shared)
 		{
-			e.printStackTrace();
-			noteNumber = noteNumber - halfSteps;
+			throw new UnsupportedOperationException("Shared notes cannot be modified, use transpose instead.");
 		}
 		
-		
+		if(isValidMidi(noteNumber + halfSteps))
+		{
+			noteNumber = noteNumber + halfSteps;
+		}
 	}
 	
 	/**
@@ -3,8 +3,6 @@
  */
 package note;
 
-import java.util.HashMap;
-
 import exception.InvalidNoteException;
 
 /**
@@ -45,9 +43,66 @@ public abstract class NoteADT implements Comparable<NoteADT>
 	public static final int    LOW_MIDI_VALUE = 0;
 	public static final int    HIGH_MIDI_VALUE = 127;
 	  
+	/**
+	 * The frequency in Hz of every MIDI value from 0 - 127.
+	 */
+	private static final double[] FREQUENCIES = new double[HIGH_MIDI_VALUE + 1];
+	
+	/**
+	 * The lowest frequency in Hz that rounds to every MIDI value from 0 - 128, so a frequency belongs
+	 * to MIDI value m when MIDI_BOUNDARIES[m] <= frequency < MIDI_BOUNDARIES[m + 1].
+	 */
+	private static final double[] MIDI_BOUNDARIES = new double[HIGH_MIDI_VALUE + 2];
+	
+	static
+	{
+		for(int midi = LOW_MIDI_VALUE; midi <= HIGH_MIDI_VALUE; midi++)
+		{
+			FREQUENCIES[midi] = CONCERT_PITCH_FREQUENCY * Math.pow(2.0, (midi - CONCERT_PITCH_MIDI) / 12.0);
+		}
+		for(int midi = LOW_MIDI_VALUE; midi <= HIGH_MIDI_VALUE + 1; midi++)
+		{
+			MIDI_BOUNDARIES[midi] = lowestFrequencyOf(midi);
+		}
+	}
+	
+	/**
+	 * The Note Chart: the value of every note letter A - G in the octave -1, with one row per letter and
+	 * one column each for the natural, sharp (#) and flat (b) note. Notes that are not in the chart
+	 * (E#, Fb and Cb) are marked with -1.
+	 * 			| Natural | #  | b  |
+	 * 		| A |    9    | 10 | 8  |
+	 * 		| B |    11   | 0  | 10 |
+	 * 		| C |    0    | 1  | -1 |
+	 * 		| D |    2    | 3  | 1  |
+	 * 		| E |    4    | -1 | 3  |
+	 * 		| F |    5    | 6  | -1 |
+	 * 		| G |    7    | 8  | 6  |
+	 */
+	private static final int[] PITCH_CLASSES = 
+	{
+		9,  10, 8,
+		11, 0,  10,
+		0,  1,  -1,
+		2,  3,  1,
+		4,  -1, 3,
+		5,  6,  -1,
+		7,  8,  6
+	};
+	private static final int	NATURAL = 0;
+	private static final int	SHARP = 1;
+	private static final int	FLAT = 2;
+	
+	/**
+	 * The status codes returned by the tryParseMidi and tryFrequencyToMidi methods in place of a MIDI
+	 * value when the note is invalid. Every status code is below LOW_MIDI_VALUE.
+	 */
+	public static final int		MALFORMED = -1;
+	public static final int		NOT_IN_CHART = -2;
+	public static final int		OUT_OF_RANGE = -3;
+	  
 	//Attributes
 	protected int 				midiValue = -1;
-	double 						frequency;
 	String 						stringNote;
 	int 						noteNumber; 
 	
@@ -60,218 +115,328 @@ public abstract class NoteADT implements Comparable<NoteADT>
 	 */
 	public NoteADT(double frequency) throws InvalidNoteException
 	{
-		// Math.round = any results of this equation will be rounded into the nearest ones
-		noteNumber = (int) Math.round(CONCERT_PITCH_MIDI + (12 * Math.log(frequency/CONCERT_PITCH_FREQUENCY)
-				/ Math.log(2))); 
+		noteNumber = tryFrequencyToMidi(frequency);
 		checkMidiRange(noteNumber);
 		// Underneath is the print test to see the values I get if the program goes for this condition
 		//System.out.println("Input hz--value of noteNumber:"+noteNumber);
 	}
 
+	/**
+	 * Converts a frequency in cycles per second into the nearest MIDI value with a binary search
+	 * over MIDI_BOUNDARIES, which gives the same rounding as the MIDI Tuning Standard formula.
+	 * No exception is thrown: frequencies outside of MIDI 0 - 127 (including zero, negative and NaN
+	 * values) return the status code OUT_OF_RANGE.
+	 * @param frequency a Double value representing the frequency
+	 * @return the MIDI value nearest to the frequency, or OUT_OF_RANGE
+	 */
+	public static int tryFrequencyToMidi(double frequency)
+	{
+		if(!(frequency >= MIDI_BOUNDARIES[LOW_MIDI_VALUE]) || frequency >= MIDI_BOUNDARIES[HIGH_MIDI_VALUE + 1])
+		{
+			return OUT_OF_RANGE;
+		}
+		
+		int midi = LOW_MIDI_VALUE;
+		for(int step = 64; step > 0; step >>= 1)
+		{
+			if(frequency >= MIDI_BOUNDARIES[midi + step])
+			{
+				midi += step;
+			}
+		}
+		return midi;
+	}
+	
+	/**
+	 * Accessor method that returns the frequency of a MIDI value in cycles per second - Hertz (Hz).
+	 * 
+	 * Precondition: An integer value representing a MIDI value ranging from 0 - 127.
+	 * 
+	 * Postcondition: A double value representing the frequency of the MIDI value is returned.
+	 * 
+	 * @param midiValue an integer value between 0 - 127
+	 * @return The frequency of the MIDI value in Hz.
+	 */
+	public static double frequencyOf(int midiValue)
+	{
+		return FREQUENCIES[midiValue];
+	}
+	
+	/**
+	 * The MIDI Tuning Standard formula that rounds a frequency into the nearest MIDI value.
+	 * -- Reference of the formula of getting the Standard MIDI Tuning
+	 * 		** https://en.wikipedia.org/wiki/MIDI_Tuning_Standard
+	 */
+	private static long roundToMidi(double frequency)
+	{
+		// Math.round = any results of this equation will be rounded into the nearest ones
+		return Math.round(CONCERT_PITCH_MIDI + (12 * Math.log(frequency/CONCERT_PITCH_FREQUENCY)
+				/ Math.log(2)));
+	}
+	
+	/**
+	 * Finds the lowest frequency that the formula rounds up to a MIDI value by starting halfway
+	 * between two notes and stepping one double value at a time until the rounding changes.
+	 */
+	private static double lowestFrequencyOf(int midiValue)
+	{
+		double boundary = CONCERT_PITCH_FREQUENCY * Math.pow(2.0, (midiValue - 0.5 - CONCERT_PITCH_MIDI) / 12.0);
+		while(roundToMidi(boundary) < midiValue)
+		{
+			boundary = Math.nextUp(boundary);
+		}
+		while(roundToMidi(Math.nextDown(boundary)) >= midiValue)
+		{
+			boundary = Math.nextDown(boundary);
+		}
+		return boundary;
+	}
+	
 	/**
 	 * Note constructor that takes octaves.
 	 * Program Procedure:
-	 * 		-- Declare variables:
-	 * 			** noteLetter
-	 * 			** octaveNumber
-	 * 			** flatOrSharp
-	 * 		-- set the input coming in the variable "stringNote" into uppercase
-	 * 			** this will prevent the program from throwing invalid note exception from invalid specific letter
-	 * 		-- Create a HashMap Object called "notesChart"
-	 * 			| C  | 0  |
-	 * 			| C# | 1  |
-	 * 			| Db | 1  |
-	 * 			| D  | 2  |
-	 * 			| D# | 3  |
-	 * 			| Eb | 3  |
-	 * 			| E  | 4  |
-	 * 			| F  | 5  |
-	 * 			| F# | 6  |
-	 * 			| Gb | 6  |
-	 * 			| G  | 7  |
-	 * 			| G# | 8  |
-	 * 			| Ab | 8  |
-	 * 			| A  | 9  |
-	 * 			| A# | 10 |
-	 * 			| Bb | 10 |
-	 * 			| B  | 11 |
-	 * 			| B# | 0  |
-	 * 		-- Conditional Statements: These are the sets of if conditions to test and determine the format of input from the
-	 * 		the argument that will be assigned to the variable "stringNote" using "matches" and then the regular expressionss.
-	 * 			1. If the stringNote matches this format: 
-	 * 				* index 0: a letter from A - G
-	 * 				* index 1: a number from 0 - 9
-	 * 				* example: A4
-	 * 			2. If the stringNote matches this format: 
-	 * 				* index 0: a letter from A - G
-	 * 				* index 1: a character either b or #
-	 * 				* example: Ab or A#
-	 * 			3. If the stringNote matches this format: 
-	 * 				* index 0: a letter from A - G
-	 * 				* index 1: a minus sign ( - )
-	 * 				* index 2: number 1
-	 * 				* example: A-1
-	 * 			4. If the stringNote matches this format: 
-	 * 				* index 0: a letter from A - G
-	 * 				* index 1: a character either b or #
-	 * 				* index 2: a minus sign ( - )
-	 * 				* index 3: number 1
-	 * 				* example: Ab-1 or A#-1
-	 * 			5. If the stringNote matches this format: 
-	 * 				* index 0: a letter from A - G
-	 * 				* index 1: a character either b or #
-	 * 				* index 2: a number between 0 - 9
-	 * 				* example: Ab5 or A#5
-	 * 			6. If the stringNote matches this format: 
-	 * 				* index 0: a letter from A - G
-	 * 				* index 1: a number between 0 - 9
-	 * 	 			* index 2: a character either b or #
-	 * 				* example: A5b or A5#
-	 * 			7. If the stringNote matches this format:
-	 * 				* index 0: a letter from A - G
-	 * 				* index 1: a minus sign ( - ) 
-	 * 				* index 2: number 1 
-	 * 				* index 3: a character either b or #
-	 * 			-- else, if none of these conditions match...
-	 * 				** throw an InvalidNoteException
-	 *		-- Get the default value of the noteNumber and throw an NullPointerException
-	 *		if the noteNumber is not in the Note Chart
+	 * 		-- Pass the whole stringNote to parseMidi which reads it one character at a time
+	 * 			** see parseMidi for the accepted formats and the note chart being used
+	 * 		-- The MIDI value returned by parseMidi becomes the noteNumber of this note
 	 * @param stringNote a String object representing the music note
 	 * @throws InvalidNoteException an exception that handles an invalid note input
 	 */
 	public NoteADT(String stringNote) throws InvalidNoteException
 	{
-		String noteLetter = stringNote.charAt(0) + ""; // noteLetter: C,D,E,F,G,A,B
-		int octaveNumber = -2; // octaveNumber: -1,0,1,2,3,4,5,6,7,8,9
-		char flatOrSharp = '\0'; // flatOrSharp: #,b
-		stringNote = stringNote.toUpperCase();
-		
-		HashMap<String, Integer> notesChart = new HashMap<String, Integer>();
-		notesChart.put("C", 0);
-		notesChart.put("C#", 1);
-		notesChart.put("DB", 1);
-		notesChart.put("D", 2);
-		notesChart.put("D#", 3);
-		notesChart.put("EB", 3);
-		notesChart.put("E", 4);
-		notesChart.put("F", 5);
-		notesChart.put("F#", 6);
-		notesChart.put("GB", 6);
-		notesChart.put("G", 7);
-		notesChart.put("G#", 8);
-		notesChart.put("AB", 8);
-		notesChart.put("A", 9);
-		notesChart.put("A#", 10);
-		notesChart.put("BB", 10);
-		notesChart.put("B", 11);
-		notesChart.put("B#", 0); 
+		noteNumber = parseMidi(stringNote, 0, stringNote.length());
+	}
+	
+	/**
+	 * Note constructor that takes in semi-tones.
+	 * @param halfSteps an integer value representing the semi tone
+	 * @throws InvalidNoteException handles the invalid note
+	 */
+	public NoteADT(int halfSteps) throws InvalidNoteException
+	{
+		noteNumber = CONCERT_PITCH_MIDI + halfSteps;
+		checkMidiRange(noteNumber);
+		// Underneath is the print test to see the values I get if the program goes for this condition
+		//System.out.println("halfSteps--value of noteNumber: "+noteNumber);
+	}
+	
+	/**
+	 * Parser method that reads a common music note name out of a larger buffer of characters.
+	 * Program Procedure:
+	 * 		-- Read the characters between start and end (exclusive) one at a time, no new Strings are created
+	 * 			** letters and the flat sign are read in either upper or lower case
+	 * 		-- The characters must match one of these formats:
+	 * 			1. A4		a letter from A - G and a number from 0 - 9
+	 * 			2. Ab / A#	a letter from A - G and a character either b or #
+	 * 			3. A-1		a letter from A - G, a minus sign ( - ) and number 1
+	 * 			4. Ab-1		a letter from A - G, a character either b or #, a minus sign ( - ) and number 1
+	 * 			5. Ab5		a letter from A - G, a character either b or # and a number from 0 - 9
+	 * 			6. A5b		a letter from A - G, a number from 0 - 9 and a character either b or #
+	 * 			7. A-1b		a letter from A - G, a minus sign ( - ), number 1 and a character either b or #
+	 * 		-- Look up the value of the note in the Note Chart (PITCH_CLASSES) and add 12 for every octave above -1
+	 * 		-- else, if none of these conditions match or the value is not a valid MIDI value...
+	 * 			** throw an InvalidNoteException
+	 * @param text the characters holding the music note
+	 * @param start the index of the first character of the music note
+	 * @param end the index after the last character of the music note
+	 * @return the MIDI value of the music note
+	 * @throws InvalidNoteException an exception that handles an invalid note input
+	 */
+	public static int parseMidi(CharSequence text, int start, int end) throws InvalidNoteException
+	{
+		int midi = tryParseMidi(text, start, end);
 		
-		// test the notes being read
-		if(stringNote.matches("([A-G])([0-9])"))// Test: G4
+		if(midi < LOW_MIDI_VALUE)
 		{
-			noteLetter = stringNote.charAt(0) + "";
-			octaveNumber = Character.getNumericValue(stringNote.charAt(1));
-			// Underneath are the print test to see the values I get if the program goes for this condition
-			//System.out.println("Test for A1");
-			//System.out.println("noteLetter value: "+noteLetter);
-			//System.out.println("octaveNumber value: "+octaveNumber);
-			
+			throw invalidNote(midi, true);
 		}
-		else if(stringNote.matches("([A-G])([B#])"))// Test: Gb / G#
+		return midi;
+	}
+	
+	/**
+	 * Parser method that reads a whole common music note name without throwing an exception.
+	 * @param text the characters holding the music note
+	 * @return the MIDI value of the music note, or one of the status codes MALFORMED, NOT_IN_CHART or OUT_OF_RANGE
+	 */
+	public static int tryParseMidi(CharSequence text)
+	{
+		return tryParseMidi(text, 0, text.length());
+	}
+	
+	/**
+	 * Parser method that reads a common music note name out of a larger buffer of characters without
+	 * throwing an exception. The accepted formats are the same as in parseMidi.
+	 * @param text the characters holding the music note
+	 * @param start the index of the first character of the music note
+	 * @param end the index after the last character of the music note
+	 * @return the MIDI value of the music note, or one of the status codes MALFORMED, NOT_IN_CHART or OUT_OF_RANGE
+	 */
+	public static int tryParseMidi(CharSequence text, int start, int end)
+	{
+		int length = end - start;
+		if(length < 2 || length > 4)
 		{
-			noteLetter = stringNote.charAt(0) + "";
-			flatOrSharp = stringNote.charAt(1);
-			// Underneath are the print test to see the values I get if the program goes for this condition
-			//System.out.println("Test for A1");
-			//System.out.println("noteLetter value: "+noteLetter);
-			//System.out.println("flatOrSharp value: "+flatOrSharp);
-			
+			return MALFORMED;
 		}
-		else if(stringNote.matches("([A-G])([-])([1])"))// Test: G-1
+		
+		int noteLetter = noteLetter(text.charAt(start));
+		if(noteLetter < 0)
 		{
-			noteLetter = stringNote.charAt(0)+"";
-			octaveNumber = midiValue;
-			// Underneath are the print test to see the values I get if the program goes for this condition
-			//System.out.println("Test for A-1");
-			//System.out.println("noteLetter value: "+noteLetter);
-			//System.out.println("octaveNumber value: "+octaveNumber);
-			
+			return MALFORMED;
 		}
-		else if(stringNote.matches("([A-G])([B#])([-])([1])"))// Test: Gb-1 or G#-1
+		
+		int flatOrSharp = NATURAL;
+		int octaveNumber;
+		char second = text.charAt(start + 1);
+		
+		if(length == 2)
 		{
-			noteLetter = stringNote.charAt(0)+"";
-			flatOrSharp = stringNote.charAt(1);
-			octaveNumber = midiValue;
-			// Underneath are the print test to see the values I get if the program goes for this condition
-			//System.out.println("Test for A#-1 or Ab-1");
-			//System.out.println("noteLetter value: "+noteLetter);
-			//System.out.println("flatOrSharp value: "+flatOrSharp);
-			//System.out.println("octaveNumber value: "+octaveNumber);
+			if(isDigit(second))// Test: G4
+			{
+				octaveNumber = second - '0';
+			}
+			else if((flatOrSharp = flatOrSharp(second)) != NATURAL)// Test: Gb / G#
+			{
+				octaveNumber = -2;
+			}
+			else
+			{
+				return MALFORMED;
+			}
 		}
-		else if(stringNote.matches("([A-G])([B#])([0-9])"))// Test: Gb5 or G#5
+		else if(length == 3)
 		{
-			noteLetter = stringNote.charAt(0) + "";
-			flatOrSharp = stringNote.charAt(1);
-			octaveNumber = Character.getNumericValue(stringNote.charAt(2));
-			// Underneath are the print test to see the values I get if the program goes for this condition
-			//System.out.println("Test for A#5 or Ab5");
-			//System.out.println("noteLetter value: "+noteLetter);
-			//System.out.println("flatOrSharp value: "+flatOrSharp);
-			//System.out.println("octaveNumber value: "+octaveNumber);
+			char third = text.charAt(start + 2);
+			if(second == '-' && third == '1')// Test: G-1
+			{
+				octaveNumber = -1;
+			}
+			else if((flatOrSharp = flatOrSharp(second)) != NATURAL && isDigit(third))// Test: Gb5 or G#5
+			{
+				octaveNumber = third - '0';
+			}
+			else if(isDigit(second) && (flatOrSharp = flatOrSharp(third)) != NATURAL)// Test: G5#
+			{
+				octaveNumber = second - '0';
+			}
+			else
+			{
+				return MALFORMED;
+			}
 		}
-		else if(stringNote.matches("([A-G])([0-9])([B#])"))// Test: G5#
+		else
 		{
-			noteLetter = stringNote.charAt(0) + "";
-			octaveNumber = Character.getNumericValue(stringNote.charAt(1));
-			flatOrSharp = stringNote.charAt(2);
-			// Underneath are the print test to see the values I get if the program goes for this condition
-			//System.out.println("Test for A5# or A5b");
-			//System.out.println("noteLetter value: "+noteLetter);
-			//System.out.println("octaveNumber value: "+octaveNumber);
-			//System.out.println("flatOrSharp value: "+flatOrSharp);
+			char third = text.charAt(start + 2);
+			char fourth = text.charAt(start + 3);
+			if((flatOrSharp = flatOrSharp(second)) != NATURAL && third == '-' && fourth == '1')// Test: Gb-1 or G#-1
+			{
+				octaveNumber = -1;
+			}
+			else if(second == '-' && third == '1' && (flatOrSharp = flatOrSharp(fourth)) != NATURAL)// Test: A-1# or A-1b
+			{
+				octaveNumber = -1;
+			}
+			else
+			{
+				return MALFORMED;
+			}
 		}
 		
-		else if(stringNote.matches("([A-G])([-])([1])([B#])"))// Test: A-1# or A-1b
+		int pitchClass = PITCH_CLASSES[noteLetter * 3 + flatOrSharp];
+		if(pitchClass < 0)
 		{
-			noteLetter = stringNote.charAt(0)+"";
-			octaveNumber = -1;
-			flatOrSharp = stringNote.charAt(3);
-			// Underneath are the print test to see the values I get if the program goes for this condition
-			//System.out.println("Test for A#-1 or Ab-1");
-			//System.out.println("noteLetter value: "+noteLetter);
-			//System.out.println("octaveNumber value: "+octaveNumber);
-			//System.out.println("flatOrSharp value: "+flatOrSharp);
+			return NOT_IN_CHART;
 		}
-		else
+		
+		int noteNumber = pitchClass + (12 * (octaveNumber + 1));
+		if(noteNumber < LOW_MIDI_VALUE || noteNumber > HIGH_MIDI_VALUE)
 		{
-			throw new InvalidNoteException("Values are not in range!");
+			return OUT_OF_RANGE;
 		}
-		// get the default value of the note
-		try
+		return noteNumber;
+	}
+	
+	/**
+	 * Returns the row of the Note Chart for the letters A - G (in either case), or -1 for any other character.
+	 */
+	private static int noteLetter(char letter)
+	{
+		if(letter >= 'A' && letter <= 'G')
 		{
-			noteNumber = notesChart.get(noteLetter + (flatOrSharp > 0 ? flatOrSharp : "")) + (12*(octaveNumber+1));
-			// Underneath are the print test to see the values I get if the program goes for this condition
-			//System.out.println("\nMidi Value of the Note: "+noteNumber);
-			//System.out.println("Octave number: "+octaveNumber);
-			checkMidiRange(noteNumber);
+			return letter - 'A';
 		}
-		catch (NullPointerException e)
+		else if(letter >= 'a' && letter <= 'g')
 		{
-			throw new InvalidNoteException("The Value is not in the Note Chart!");
+			return letter - 'a';
 		}
+		return -1;
 	}
 	
 	/**
-	 * Note constructor that takes in semi-tones.
-	 * @param halfSteps an integer value representing the semi tone
-	 * @throws InvalidNoteException handles the invalid note
+	 * Returns the column of the Note Chart for the characters #, b and B, or NATURAL for any other character.
 	 */
-	public NoteADT(int halfSteps) throws InvalidNoteException
+	private static int flatOrSharp(char sign)
 	{
-		noteNumber = CONCERT_PITCH_MIDI + halfSteps;
-		checkMidiRange(noteNumber);
-		// Underneath is the print test to see the values I get if the program goes for this condition
-		//System.out.println("halfSteps--value of noteNumber: "+noteNumber);
+		if(sign == '#')
+		{
+			return SHARP;
+		}
+		else if(sign == 'b' || sign == 'B')
+		{
+			return FLAT;
+		}
+		return NATURAL;
+	}
+	
+	private static boolean isDigit(char digit)
+	{
+		return digit >= '0' && digit <= '9';
+	}
+	
+	/**
+	 * Accessor method to find out if a common music note name is a valid note, without throwing an exception.
+	 * @param text the characters holding the music note
+	 * @return boolean value representing whether the music note is valid or not
+	 */
+	public static boolean isValid(CharSequence text)
+	{
+		return tryParseMidi(text) >= LOW_MIDI_VALUE;
+	}
+	
+	/**
+	 * Accessor method to find out if an integer is a valid MIDI value, without throwing an exception.
+	 * @param midiValue the integer value being checked
+	 * @return boolean value representing whether the value is between 0 - 127 or not
+	 */
+	public static boolean isValidMidi(int midiValue)
+	{
+		return midiValue >= LOW_MIDI_VALUE && midiValue <= HIGH_MIDI_VALUE;
+	}
+	
+	/**
+	 * Returns the message that describes one of the status codes MALFORMED, NOT_IN_CHART or OUT_OF_RANGE.
+	 * @param status the status code returned by tryParseMidi or tryFrequencyToMidi
+	 * @return the message describing the status code
+	 */
+	public static String statusMessage(int status)
+	{
+		if(status == MALFORMED)
+		{
+			return "Values are not in range!";
+		}
+		else if(status == NOT_IN_CHART)
+		{
+			return "The Value is not in the Note Chart!";
+		}
+		return "Sorry, the note entered is out of range.";
+	}
+	
+	/**
+	 * Creates the exception for one of the status codes. The bulk paths (such as the Note.valueOf
+	 * factories) pass false for writableStackTrace so that skipping a bad note stays cheap.
+	 */
+	static InvalidNoteException invalidNote(int status, boolean writableStackTrace)
+	{
+		return new InvalidNoteException(statusMessage(status), writableStackTrace);
 	}
 	
 	public static void checkMidiRange(int noteNumber ) throws InvalidNoteException
@@ -340,6 +505,7 @@ public abstract class NoteADT implements Comparable<NoteADT>
 	 * 
 	 * @param halfSteps an integer value between 0 - 127
 	 * @throws InvalidNoteException handles the invalid note
+	 * @throws UnsupportedOperationException if the note is shared and cannot be modified
 	 */
 	public abstract void modifyNoteByHalfSteps(int halfSteps) throws InvalidNoteException;
 	
@@ -0,0 +1,408 @@
+/**
+ *
+ */
+package note;
+
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+
+import exception.InvalidNoteException;
+
+/**
+ * @author Floyd Almazar
+ * @version 1.0
+ *
+ * Class Description: An in-memory song made of notes and rests. The MIDI values and durations are kept in two
+ * 					parallel arrays instead of one object per note, and the bulk operations (transpose, range check,
+ * 					slice, concatenate and reverse) are plain loops over those arrays.
+ *
+ * 					A note with a duration of 0 starts together with the next entry, so a chord is kept as its notes
+ * 					in a row with the duration of the chord on the last one.
+ */
+public class NoteSequence implements Iterable<NoteADT>
+{
+	//Constants
+	/**
+	 * The MIDI value kept for a rest.
+	 */
+	public static final int		REST = -1;
+
+	/**
+	 * The longest duration of a note or rest in milliseconds.
+	 */
+	public static final int		MAX_DURATION = Short.MAX_VALUE;
+
+	//Attributes
+	private int[] midiValues;
+	private short[] durations;
+	private int size;
+
+	/**
+	 * Constructor for an empty sequence.
+	 */
+	public NoteSequence()
+	{
+		this(16);
+	}
+
+	/**
+	 * Constructor for an empty sequence with room for a number of notes and rests.
+	 * @param capacity the number of notes and rests that fit before the arrays grow
+	 */
+	public NoteSequence(int capacity)
+	{
+		midiValues = new int[Math.max(capacity, 1)];
+		durations = new short[midiValues.length];
+	}
+
+	/**
+	 * Factory method that builds a sequence out of notes that all have the same duration.
+	 * @param notes the notes of the sequence
+	 * @param duration the duration of every note in milliseconds
+	 * @return the new sequence
+	 */
+	public static NoteSequence of(Iterable<? extends NoteADT> notes, int duration)
+	{
+		NoteSequence sequence = new NoteSequence();
+		for(NoteADT note : notes)
+		{
+			sequence.add(note, duration);
+		}
+		return sequence;
+	}
+
+	/**
+	 * Mutator method that adds a note at the end of the sequence.
+	 * @param midiValue an integer value between 0 - 127
+	 * @param duration the duration of the note in milliseconds
+	 * @throws InvalidNoteException handles the invalid note
+	 */
+	public void add(int midiValue, int duration) throws InvalidNoteException
+	{
+		NoteADT.checkMidiRange(midiValue);
+		append(midiValue, duration);
+	}
+
+	/**
+	 * Mutator method that adds a note at the end of the sequence.
+	 * @param note the note being added
+	 * @param duration the duration of the note in milliseconds
+	 */
+	public void add(NoteADT note, int duration)
+	{
+		append(note.getMIDIValue(), duration);
+	}
+
+	/**
+	 * Mutator method that adds a rest at the end of the sequence.
+	 * @param duration the duration of the rest in milliseconds
+	 */
+	public void addRest(int duration)
+	{
+		append(REST, duration);
+	}
+
+	private void append(int midiValue, int duration)
+	{
+		if(duration < 0 || duration > MAX_DURATION)
+		{
+			throw new IllegalArgumentException("The duration must be between 0 - " + MAX_DURATION + ": " + duration);
+		}
+		ensureCapacity(size + 1);
+		midiValues[size] = midiValue;
+		durations[size] = (short) duration;
+		size++;
+	}
+
+	private void ensureCapacity(int capacity)
+	{
+		if(capacity > midiValues.length)
+		{
+			int length = Math.max(capacity, midiValues.length * 2);
+			midiValues = Arrays.copyOf(midiValues, length);
+			durations = Arrays.copyOf(durations, length);
+		}
+	}
+
+	/**
+	 * Accessor method that returns the number of notes and rests in the sequence.
+	 * @return the size of the sequence
+	 */
+	public int size()
+	{
+		return size;
+	}
+
+	/**
+	 * Accessor method that returns the MIDI value at an index, or REST.
+	 * @param index the index of the note between 0 and size - 1
+	 * @return the MIDI value at the index
+	 */
+	public int getMIDIValue(int index)
+	{
+		checkIndex(index);
+		return midiValues[index];
+	}
+
+	/**
+	 * Accessor method that returns the duration at an index in milliseconds.
+	 * @param index the index of the note or rest between 0 and size - 1
+	 * @return the duration at the index
+	 */
+	public int getDuration(int index)
+	{
+		checkIndex(index);
+		return durations[index];
+	}
+
+	/**
+	 * Accessor method that returns how long the entry at an index sounds in milliseconds: its own duration, or
+	 * for a note of a chord (a duration of 0) the duration of the chord.
+	 * @param index the index of the note or rest between 0 and size - 1
+	 * @return the duration of the first entry from the index that is longer than 0, or 0 if there is none
+	 */
+	public int getSoundingDuration(int index)
+	{
+		checkIndex(index);
+		while(index < size - 1 && durations[index] == 0)
+		{
+			index++;
+		}
+		return durations[index];
+	}
+
+	/**
+	 * Accessor method to find out if the entry at an index is a rest.
+	 * @param index the index of the note or rest between 0 and size - 1
+	 * @return boolean value representing whether the entry is a rest or not
+	 */
+	public boolean isRest(int index)
+	{
+		return getMIDIValue(index) == REST;
+	}
+
+	/**
+	 * Accessor method that returns the shared note at an index.
+	 * @param index the index of the note between 0 and size - 1
+	 * @return the shared note at the index, or null for a rest
+	 */
+	public Note getNote(int index)
+	{
+		int midiValue = getMIDIValue(index);
+		return midiValue == REST ? null : Note.shared(midiValue);
+	}
+
+	private void checkIndex(int index)
+	{
+		if(index < 0 || index >= size)
+		{
+			throw new IndexOutOfBoundsException("index: " + index + ", size: " + size);
+		}
+	}
+
+	/**
+	 * Accessor method that returns the lowest MIDI value of the notes, or REST if there are no notes.
+	 * @return the lowest MIDI value
+	 */
+	public int lowestMIDIValue()
+	{
+		int lowest = Integer.MAX_VALUE;
+		for(int i = 0; i < size; i++)
+		{
+			int midiValue = midiValues[i];
+			if(midiValue != REST && midiValue < lowest)
+			{
+				lowest = midiValue;
+			}
+		}
+		return lowest == Integer.MAX_VALUE ? REST : lowest;
+	}
+
+	/**
+	 * Accessor method that returns the highest MIDI value of the notes, or REST if there are no notes.
+	 * @return the highest MIDI value
+	 */
+	public int highestMIDIValue()
+	{
+		int highest = REST;
+		for(int i = 0; i < size; i++)
+		{
+			if(midiValues[i] > highest)
+			{
+				highest = midiValues[i];
+			}
+		}
+		return highest;
+	}
+
+	/**
+	 * Accessor method to find out if every note stays between 0 - 127 when transposed.
+	 * @param halfSteps the number of semi-tones to move every note by
+	 * @return boolean value representing whether the sequence can be transposed or not
+	 */
+	public boolean canTranspose(int halfSteps)
+	{
+		int lowest = lowestMIDIValue();
+		return lowest == REST || (NoteADT.isValidMidi(lowest + halfSteps)
+				&& NoteADT.isValidMidi(highestMIDIValue() + halfSteps));
+	}
+
+	/**
+	 * Mutator method that moves every note of the sequence by a number of semi-tones. Rests are not changed.
+	 *
+	 * Precondition: Every transposed note must have a MIDI value ranging from 0 - 127.
+	 *
+	 * Postcondition: Every note is transposed, or nothing is changed if one note would be out of range.
+	 *
+	 * @param halfSteps the number of semi-tones to move every note by
+	 * @throws InvalidNoteException handles the invalid note
+	 */
+	public void transpose(int halfSteps) throws InvalidNoteException
+	{
+		if(!canTranspose(halfSteps))
+		{
+			throw new InvalidNoteException("Sorry, the transposed notes are out of range.");
+		}
+		for(int i = 0; i < size; i++)
+		{
+			if(midiValues[i] != REST)
+			{
+				midiValues[i] += halfSteps;
+			}
+		}
+	}
+
+	/**
+	 * Accessor method that returns a copy of part of the sequence. A chord is never cut in half, so both ends of
+	 * the slice must be at the start of an entry that is not in the middle of a chord.
+	 * @param from the index of the first entry, inclusive
+	 * @param to the index after the last entry, exclusive
+	 * @return the new sequence
+	 * @throws IllegalArgumentException if from or to is inside a chord
+	 */
+	public NoteSequence slice(int from, int to)
+	{
+		if(from < 0 || to > size || from > to)
+		{
+			throw new IndexOutOfBoundsException("from: " + from + ", to: " + to + ", size: " + size);
+		}
+		if(isInsideChord(from) || (to < size && isInsideChord(to)))
+		{
+			throw new IllegalArgumentException("The slice cuts a chord: from: " + from + ", to: " + to);
+		}
+		NoteSequence slice = new NoteSequence(to - from);
+		System.arraycopy(midiValues, from, slice.midiValues, 0, to - from);
+		System.arraycopy(durations, from, slice.durations, 0, to - from);
+		slice.size = to - from;
+		return slice;
+	}
+
+	/**
+	 * Returns whether the entry at an index belongs to the same chord as the entry before it.
+	 */
+	private boolean isInsideChord(int index)
+	{
+		return index > 0 && durations[index - 1] == 0;
+	}
+
+	/**
+	 * Returns the index of the first note of the chord that ends at an index, or the index itself if the entry
+	 * is not the last note of a chord.
+	 */
+	private int chordStart(int last)
+	{
+		int start = last;
+		while(isInsideChord(start))
+		{
+			start--;
+		}
+		return start;
+	}
+
+	/**
+	 * Accessor method that returns a new sequence with the entries of this sequence followed by another one.
+	 * @param other the sequence played after this one
+	 * @return the new sequence
+	 */
+	public NoteSequence concatenate(NoteSequence other)
+	{
+		NoteSequence sequence = slice(0, size);
+		sequence.addAll(other);
+		return sequence;
+	}
+
+	/**
+	 * Mutator method that adds every entry of another sequence at the end of this one.
+	 * @param other the sequence being added
+	 */
+	public void addAll(NoteSequence other)
+	{
+		int count = other.size;
+		ensureCapacity(size + count);
+		System.arraycopy(other.midiValues, 0, midiValues, size, count);
+		System.arraycopy(other.durations, 0, durations, size, count);
+		size += count;
+	}
+
+	/**
+	 * Mutator method that reverses the order of the entries. A chord is moved as a whole and keeps the order of
+	 * its notes, so its duration stays on its last note.
+	 */
+	public void reverse()
+	{
+		int[] reversedValues = new int[midiValues.length];
+		short[] reversedDurations = new short[durations.length];
+		int count = 0;
+		for(int end = size; end > 0;)
+		{
+			int start = chordStart(end - 1);
+			System.arraycopy(midiValues, start, reversedValues, count, end - start);
+			System.arraycopy(durations, start, reversedDurations, count, end - start);
+			count += end - start;
+			end = start;
+		}
+		midiValues = reversedValues;
+		durations = reversedDurations;
+	}
+
+	/**
+	 * Returns the shared notes of the sequence in order, skipping the rests.
+	 * @return an iterator over the notes
+	 */
+	@Override
+	public Iterator<NoteADT> iterator()
+	{
+		return new Iterator<NoteADT>()
+		{
+			private int index = skipRests(0);
+
+			@Override
+			public boolean hasNext()
+			{
+				return index < size;
+			}
+
+			@Override
+			public NoteADT next()
+			{
+				if(index >= size)
+				{
+					throw new NoSuchElementException();
+				}
+				Note note = Note.shared(midiValues[index]);
+				index = skipRests(index + 1);
+				return note;
+			}
+		};
+	}
+
+	private int skipRests(int index)
+	{
+		while(index < size && midiValues[index] == REST)
+		{
+			index++;
+		}
+		return index;
+	}
+}
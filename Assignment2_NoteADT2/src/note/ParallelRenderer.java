@@ -0,0 +1,233 @@
+/**
+ *
+ */
+package note;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+
+/**
+ * @author Floyd Almazar
+ * @version 1.0
+ *
+ * Class Description: Renders songs and whole playlists with the SongRenderer on a ForkJoinPool. The work is split
+ * 					by song and long songs are split again into time segments. A segment also renders the tails of
+ * 					the notes that started before it, and the notes are added in the order of the song, so the result
+ * 					is sample-identical to rendering everything with the SongRenderer on one thread.
+ */
+public class ParallelRenderer
+{
+	//Constants
+	/**
+	 * The number of frames rendered by one task (about 3 seconds of audio).
+	 */
+	public static final int		SEGMENT_FRAMES = 1 << 17;
+
+	//Attributes
+	private final ForkJoinPool pool;
+	private final SampleCache cache;
+	private double audioSeconds;
+	private double wallSeconds;
+
+	/**
+	 * Constructor for a renderer that renders on the common ForkJoinPool.
+	 */
+	public ParallelRenderer()
+	{
+		this(ForkJoinPool.commonPool(), null);
+	}
+
+	/**
+	 * Constructor for a renderer that renders on the common ForkJoinPool and reuses the notes of a cache.
+	 * @param cache the cache of rendered notes shared by the segments
+	 */
+	public ParallelRenderer(SampleCache cache)
+	{
+		this(ForkJoinPool.commonPool(), cache);
+	}
+
+	/**
+	 * Constructor for a renderer that renders on the given pool.
+	 * @param pool the pool that renders the segments
+	 */
+	public ParallelRenderer(ForkJoinPool pool)
+	{
+		this(pool, null);
+	}
+
+	/**
+	 * Constructor for a renderer that renders on the given pool and reuses the notes of a cache.
+	 * @param pool the pool that renders the segments
+	 * @param cache the cache of rendered notes shared by the segments, or null to render every note
+	 */
+	public ParallelRenderer(ForkJoinPool pool, SampleCache cache)
+	{
+		this.pool = pool;
+		this.cache = cache;
+	}
+
+	/**
+	 * Renders a whole song.
+	 * @param song the notes and rests of the song
+	 * @return the same samples as SongRenderer.render(song)
+	 */
+	public float[] render(NoteSequence song)
+	{
+		return renderPlaylist(Arrays.asList(song));
+	}
+
+	/**
+	 * Renders a playlist into one stream, with every song starting right after the release of the one before.
+	 * @param songs the songs of the playlist in order
+	 * @return the same samples as rendering every song with SongRenderer.render(song) and joining them
+	 */
+	public float[] renderPlaylist(List<NoteSequence> songs)
+	{
+		long started = System.nanoTime();
+
+		long total = 0;
+		List<RecursiveAction> segments = new ArrayList<RecursiveAction>();
+		int[] lengths = new int[songs.size()];
+		for(int i = 0; i < songs.size(); i++)
+		{
+			lengths[i] = SongRenderer.frameLength(songs.get(i));
+			total += lengths[i];
+		}
+		if(total > Integer.MAX_VALUE)
+		{
+			throw new IllegalArgumentException("The playlist is too long to be rendered into one buffer.");
+		}
+
+		float[] samples = new float[(int) total];
+		int offset = 0;
+		for(int i = 0; i < songs.size(); i++)
+		{
+			NoteSequence song = songs.get(i);
+			int length = lengths[i];
+			long[] starts = SongRenderer.startFrames(song);
+			long lookBack = longestNote(starts) + SongRenderer.RELEASE_FRAMES;
+			for(int frame = 0; frame < length; frame += SEGMENT_FRAMES)
+			{
+				segments.add(new Segment(song, starts, firstNote(starts, frame - lookBack), samples, offset + frame,
+						Math.min(SEGMENT_FRAMES, length - frame), frame, cache));
+			}
+			offset += length;
+		}
+		pool.invoke(new RenderAll(segments));
+
+		audioSeconds = (double) total / SongRenderer.SAMPLE_RATE;
+		wallSeconds = (System.nanoTime() - started) / 1e9;
+		return samples;
+	}
+
+	/**
+	 * Accessor method that returns the seconds of audio rendered by the last render.
+	 * @return the length of the last render in seconds
+	 */
+	public double getAudioSeconds()
+	{
+		return audioSeconds;
+	}
+
+	/**
+	 * Accessor method that returns the throughput of the last render.
+	 * @return the seconds of audio rendered per second of wall time
+	 */
+	public double getThroughput()
+	{
+		return wallSeconds == 0 ? 0 : audioSeconds / wallSeconds;
+	}
+
+	private static long longestNote(long[] starts)
+	{
+		long longest = 0;
+		for(int i = 0; i + 1 < starts.length; i++)
+		{
+			longest = Math.max(longest, starts[i + 1] - starts[i]);
+		}
+		return longest;
+	}
+
+	/**
+	 * Returns the index of the first note that starts at or after a frame, so that every note before it has
+	 * ended before the frame plus the look back.
+	 */
+	private static int firstNote(long[] starts, long frame)
+	{
+		int low = 0;
+		int high = starts.length - 1;
+		while(low < high)
+		{
+			int middle = (low + high) >>> 1;
+			if(starts[middle] < frame)
+			{
+				low = middle + 1;
+			}
+			else
+			{
+				high = middle;
+			}
+		}
+		return low;
+	}
+
+	/**
+	 * The task that renders every segment at the same time.
+	 */
+	private static final class RenderAll extends RecursiveAction
+	{
+		private static final long serialVersionUID = 1L;
+
+		private final List<RecursiveAction> segments;
+
+		RenderAll(List<RecursiveAction> segments)
+		{
+			this.segments = segments;
+		}
+
+		@Override
+		protected void compute()
+		{
+			invokeAll(segments);
+		}
+	}
+
+	/**
+	 * The task that renders one segment of a song into its own part of the shared buffer.
+	 */
+	private static final class Segment extends RecursiveAction
+	{
+		private static final long serialVersionUID = 1L;
+
+		private final NoteSequence song;
+		private final long[] starts;
+		private final int firstNote;
+		private final float[] samples;
+		private final int offset;
+		private final int length;
+		private final long firstFrame;
+		private final SampleCache cache;
+
+		Segment(NoteSequence song, long[] starts, int firstNote, float[] samples, int offset, int length, long firstFrame,
+				SampleCache cache)
+		{
+			this.song = song;
+			this.starts = starts;
+			this.firstNote = firstNote;
+			this.samples = samples;
+			this.offset = offset;
+			this.length = length;
+			this.firstFrame = firstFrame;
+			this.cache = cache;
+		}
+
+		@Override
+		protected void compute()
+		{
+			SongRenderer.render(song, starts, firstNote, samples, offset, length, firstFrame, cache);
+		}
+	}
+}
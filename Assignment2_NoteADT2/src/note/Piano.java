@@ -1,6 +1,10 @@
 package note;
 
+import java.util.ArrayDeque;
+import java.util.Queue;
+
 import javax.sound.midi.*;
+import javax.sound.sampled.LineUnavailableException;
 
 import exception.InvalidNoteException;
 
@@ -10,64 +14,362 @@ public class Piano
 	public static final int		HIGHEST_MIDI_VALUE = 127;
 	public static final int 	LOWEST_MIDI_VALUE = 0;
 	
+	/**
+	 * Sequences are built with 500 ticks per quarter note at 500000 microseconds per quarter note (120 bpm),
+	 * so one tick is one millisecond and the rests of a song are used as ticks directly.
+	 */
+	public static final int		TICKS_PER_QUARTER_NOTE = 500;
+	public static final int		MICROSECONDS_PER_QUARTER_NOTE = 500000;
+	public static final int		SEQUENCE_CHANNEL = 1;
+	public static final int		SEQUENCE_PROGRAM = 1;
+	
+	private static final int	SET_TEMPO = 0x51;
+	private static final int	END_OF_TRACK = 0x2F;
+	private static final int	ALL_NOTES_OFF = 123;
+	private static final int	DEFAULT_VELOCITY = 64;
+	
+	/**
+	 * The pending note offs are kept on a wheel of one slot per millisecond, about 4 seconds per turn.
+	 */
+	private static final int	PENDING_SLOTS = 4096;
+	
 	//Attributes
 	Synthesizer synthesizer;
 	Instrument [] instruments;
-	MidiChannel [] channels;
+	Receiver output;
+	private final ShortMessage message = new ShortMessage();
+	DeadlineScheduler scheduler = new DeadlineScheduler();
+	VoiceAllocator voices = new VoiceAllocator();
+	private final boolean[] programsSet = new boolean[VoiceAllocator.CHANNELS];
+	TimingWheel pendingEvents = new TimingWheel(PENDING_SLOTS);
+	private long clock;
+	PlaybackLog log = PlaybackLog.direct(System.out);
+	PlaybackMetrics metrics = new PlaybackMetrics();
+	
+	/**
+	 * Sends the pending events of the TimingWheel when their time comes.
+	 */
+	private final TimingWheel.Listener expiredEvents = new TimingWheel.Listener()
+	{
+		@Override
+		public void onExpire(long tick, int event)
+		{
+			if((event & 0xF0) == ShortMessage.NOTE_ON)
+			{
+				noteOn(event >>> 8);
+			}
+			else
+			{
+				noteOff(event >>> 8);
+			}
+		}
+	};
+	
+	Sequencer sequencer;
+	private final Queue<Sequence> queuedSequences = new ArrayDeque<Sequence>();
+	private boolean sequencePlaying;
+	private int sequenceGeneration;
+	private MetaEventListener endOfTrack;
+	private float tempoFactor = 1.0f;
 	
 	//Constructor
+	/**
+	 * Constructor for a piano that plays on the JDK synthesizer. The synthesizer is only opened when the piano
+	 * makes its first sound, so a piano that is never played never touches the sound system.
+	 */
 	public Piano()
 	{
-		try
+	}
+	
+	/**
+	 * Opens the JDK synthesizer and loads the piano instrument the first time it is needed.
+	 * @return the receiver of the MIDI messages
+	 * @throws IllegalStateException if the synthesizer is not available
+	 */
+	private Receiver output()
+	{
+		synchronized(message)
+		{
+			if(output == null)
+			{
+				try
+				{
+					synthesizer = MidiSystem.getSynthesizer();
+					synthesizer.open();
+					Soundbank soundbank = synthesizer.getDefaultSoundbank();
+					if(soundbank != null)
+					{
+						instruments = soundbank.getInstruments();
+						synthesizer.loadInstrument(instruments[30]);
+					}
+					output = synthesizer.getReceiver();
+				}
+				catch(MidiUnavailableException mue)
+				{
+					throw new IllegalStateException("The synthesizer is not available.", mue);
+				}
+			}
+			return output;
+		}
+	}
+	
+	/**
+	 * Constructor for a piano that sends its MIDI messages to any receiver instead of the JDK synthesizer, for
+	 * example a SynthEngine, or a RecordingReceiver that keeps the messages for a test.
+	 * The receiver must copy a message if it keeps it, because the piano reuses its message object.
+	 * @param output the receiver of the note on, note off and program change messages
+	 */
+	public Piano(Receiver output)
+	{
+		this.output = output;
+	}
+	
+	/**
+	 * Factory method for a piano that plays through the built-in SynthEngine instead of the JDK synthesizer.
+	 * @return the piano with an open SynthEngine
+	 * @throws LineUnavailableException if no audio line can be opened
+	 */
+	public static Piano withSynthEngine() throws LineUnavailableException
+	{
+		SynthEngine engine = new SynthEngine();
+		engine.open();
+		return new Piano(engine);
+	}
+	
+	/**
+	 * Sends one short MIDI message to the output, reusing the same message object.
+	 */
+	private void send(int command, int channel, int data1, int data2)
+	{
+		synchronized(message)
 		{
-			synthesizer = MidiSystem.getSynthesizer();
-			synthesizer.open();
+			try
+			{
+				message.setMessage(command, channel, data1, data2);
+			}
+			catch(InvalidMidiDataException e)
+			{
+				throw new IllegalArgumentException(e);
+			}
+			output().send(message, -1);
 		}
-		catch(MidiUnavailableException mue)
+		if((command == ShortMessage.NOTE_ON || command == ShortMessage.NOTE_OFF) && FlightEvent.NOTE_DISPATCH.isEnabled())
 		{
-			mue.printStackTrace();
+			FlightEvent.NOTE_DISPATCH.emit(command == ShortMessage.NOTE_ON ? "on" : "off", data1, channel);
 		}
-			instruments = synthesizer.getDefaultSoundbank().getInstruments();
-			synthesizer.loadInstrument(instruments[30]);
-			channels = synthesizer.getChannels();
 	}
 	
     public void playSong(int rest, NoteADT musicNote)
     {
-    	channels[1].noteOn(musicNote.getMIDIValue(), HIGHEST_MIDI_VALUE);
-		channels[1].programChange(1);
-		channels[1].noteOff(musicNote.getMIDIValue());
-		
-		try
-		{
-			Thread.sleep(rest);	
-		} 
-		catch (InterruptedException e)
-		{
-			e.printStackTrace();
-		}
+    	playSong(rest, musicNote.getMIDIValue());
+    }
+    
+    /**
+     * Plays a note at its target time and waits until the target time of the next note. The note sounds until
+     * the next note starts. The target times come from the DeadlineScheduler, so the time spent between calls
+     * does not make the song drift.
+     * @param rest the rest after the note in milliseconds
+     * @param midiValue the MIDI value of the note
+     */
+    public void playSong(int rest, int midiValue)
+    {
+    	playNote(midiValue, rest, rest);
+    }
+    
+    /**
+     * Plays a note at its target time and waits until the target time of the next note. The note off is kept in
+     * the TimingWheel and sent when the duration is over, also while later notes are playing.
+     * @param midiValue the MIDI value of the note
+     * @param duration how long the note sounds in milliseconds
+     * @param rest the time until the next note in milliseconds
+     */
+    public void playNote(int midiValue, int duration, int rest)
+    {
+    	scheduler.awaitEvent();
+    	int voice = noteOn(midiValue);
+    	pendingEvents.schedule(clock + duration, event(ShortMessage.NOTE_OFF, voice));
+    	awaitTime(clock + rest);
     }
  
+    /**
+     * Plays the notes of a chord together at their target time and waits until the target time of the next note.
+     * Every note of the chord gets its own voice from the VoiceAllocator and the note on messages of the whole
+     * chord are sent in one batch. The notes sound until the next note starts.
+     * @param rest the rest after the chord in milliseconds
+     * @param midiValues the MIDI values of the notes of the chord
+     * @param count the number of notes in midiValues
+     */
+    public void playChord(int rest, int[] midiValues, int count)
+    {
+    	scheduler.awaitEvent();
+    	synchronized(message)
+    	{
+    		for(int i = 0; i < count; i++)
+    		{
+    			pendingEvents.schedule(clock + rest, event(ShortMessage.NOTE_OFF, noteOn(midiValues[i])));
+    		}
+    	}
+    	awaitTime(clock + rest);
+    }
+    
+    /**
+     * Plays the merged notes of several tracks, every note for its own duration, and waits until the end of the
+     * longest track. Sustained notes overlap freely, their note offs are kept in the TimingWheel. An interrupt
+     * stops the song before the next note and stays set; the notes that are still sounding are turned off.
+     * @param merger the merged notes of the tracks, positioned before the first note
+     */
+    public void playTracks(TrackMerger merger)
+    {
+    	long start = clock;
+    	while(merger.next())
+    	{
+    		if(Thread.currentThread().isInterrupted())
+    		{
+    			// the waits end at once while interrupted, so the pending note offs are sent right away
+    			break;
+    		}
+    		long time = start + merger.getTime();
+    		awaitTime(time);
+    		scheduler.awaitEvent();
+    		int voice = noteOn(merger.getMIDIValue());
+    		pendingEvents.schedule(time + merger.getDuration(), event(ShortMessage.NOTE_OFF, voice));
+    	}
+    	awaitTime(start + merger.getEndTime());
+    }
+    
     public void noteRest(int rest)
 	{
-		try
-		{
-			Thread.sleep(rest);
-		}
-		catch(InterruptedException e)
-		{
-			e.printStackTrace();
-		}
+		awaitTime(clock + rest);
 	}
     
+    /**
+     * Sends a note on for a note on a voice of the VoiceAllocator. When the polyphony limit is reached the oldest
+     * note is turned off and its voice is taken over, which is counted as a dropped note. The lateness of the note
+     * on against the target time of the scheduler is recorded in the PlaybackMetrics.
+     * @return the voice of the note, for its note off
+     */
+    private int noteOn(int midiValue)
+    {
+    	int voice = voices.allocate(midiValue);
+    	int replaced = voices.getReplacedVoice();
+    	if(replaced != VoiceAllocator.FREE)
+    	{
+    		send(ShortMessage.NOTE_OFF, VoiceAllocator.channelOf(replaced), VoiceAllocator.noteOf(replaced),
+    				DEFAULT_VELOCITY);
+    		metrics.recordDropped();
+    	}
+    	int channel = VoiceAllocator.channelOf(voice);
+    	if(!programsSet[channel])
+    	{
+    		send(ShortMessage.PROGRAM_CHANGE, channel, SEQUENCE_PROGRAM, 0);
+    		programsSet[channel] = true;
+    	}
+    	send(ShortMessage.NOTE_ON, channel, midiValue, HIGHEST_MIDI_VALUE);
+    	metrics.recordNoteOn(scheduler.getLastDeadline(), System.nanoTime());
+    	return voice;
+    }
+    
+    /**
+     * Sends the note off of a voice, unless the voice has been taken over by a later note since.
+     */
+    private void noteOff(int voice)
+    {
+    	if(voices.release(voice))
+    	{
+    		send(ShortMessage.NOTE_OFF, VoiceAllocator.channelOf(voice), VoiceAllocator.noteOf(voice), DEFAULT_VELOCITY);
+    	}
+    }
+    
+    /**
+     * Moves the song to a time, sending every pending event on its own target time on the way.
+     * @param time the time from the start of the song in milliseconds
+     */
+    private void awaitTime(long time)
+    {
+    	long tick;
+    	while((tick = pendingEvents.nextTick(time)) >= 0)
+    	{
+    		moveTo(tick);
+    		pendingEvents.advance(tick, expiredEvents);
+    	}
+    	moveTo(time);
+    	pendingEvents.advance(time, expiredEvents);
+    }
+    
+    private void moveTo(long time)
+    {
+    	scheduler.advance((int) (time - clock));
+    	clock = time;
+    	scheduler.awaitDeadline();
+    }
+    
+    /**
+     * Returns a pending event for the TimingWheel: a note on command with the MIDI value of the note, or a note off
+     * command with the voice of the note.
+     */
+    private static int event(int command, int note)
+    {
+    	return command | note << 8;
+    }
+    
+    /**
+     * Mutator method that sets the largest number of notes that sound at the same time before the oldest note is
+     * cut off. It can only be changed while no note is sounding.
+     * @param polyphony the polyphony limit
+     */
+    public void setPolyphony(int polyphony)
+    {
+    	if(voices.getActiveVoices() > 0)
+    	{
+    		throw new IllegalStateException("The polyphony cannot be changed while notes are sounding.");
+    	}
+    	voices = new VoiceAllocator(polyphony);
+    }
+    
+    /**
+     * Mutator method that sets the log where playAllNotes prints the notes it plays.
+     * @param log the console output of the piano
+     */
+    public void setLog(PlaybackLog log)
+    {
+    	this.log = log;
+    }
+    
+    /**
+     * Accessor method that returns the wheel of the note offs that have not been sent yet.
+     * @return the pending events
+     */
+    public TimingWheel getPendingEvents()
+    {
+    	return pendingEvents;
+    }
+    
+    /**
+     * Accessor method that returns the scheduler with the lateness of every note played.
+     * @return the playback scheduler
+     */
+    public DeadlineScheduler getScheduler()
+    {
+    	return scheduler;
+    }
+    
+    /**
+     * Accessor method that returns the timing of the note ons played so far.
+     * @return the playback metrics
+     */
+    public PlaybackMetrics getMetrics()
+    {
+    	return metrics;
+    }
+    
     public void playAllNotes()
     {
     	for(int i=1; i<=127; i++)
     	{
-	       channels[1].noteOn(i, 127);
+	       send(ShortMessage.NOTE_ON, 1, i, 127);
 	       //sets the instrument to play the note.
-	       channels[1].programChange(12);
-	       System.out.println(i);
+	       send(ShortMessage.PROGRAM_CHANGE, 1, 12, 0);
+	       log.println(String.valueOf(i));
 	       try
 	       {
 		    Thread.sleep(100);
@@ -76,8 +378,301 @@ public class Piano
 	       {
 	    	   ie.printStackTrace();
 	       }
-	       channels[1].noteOff(i,127);
+	       send(ShortMessage.NOTE_OFF, 1, i, 127);
     	}
     }
     
+    
+    /**
+     * Converts a song into a MIDI sequence with one track. Every note is turned on at its start and turned off
+     * when its rest is over (the notes of a chord when the rest of the chord is over), on SEQUENCE_CHANNEL with
+     * SEQUENCE_PROGRAM.
+     * @param song the notes and rests of the song
+     * @return the MIDI sequence of the song
+     * @throws InvalidMidiDataException if a MIDI message cannot be built
+     */
+    public static Sequence toSequence(NoteSequence song) throws InvalidMidiDataException
+    {
+    	Sequence sequence = new Sequence(Sequence.PPQ, TICKS_PER_QUARTER_NOTE);
+    	Track track = startTrack(sequence);
+    	
+    	long tick = 0;
+    	for(int i = 0; i < song.size(); i++)
+    	{
+    		int duration = song.getDuration(i);
+    		if(!song.isRest(i))
+    		{
+    			addNote(track, song.getMIDIValue(i), tick, song.getSoundingDuration(i));
+    		}
+    		tick += duration;
+    	}
+    	track.add(new MidiEvent(new MetaMessage(END_OF_TRACK, new byte[0], 0), tick));
+    	return sequence;
+    }
+    
+    /**
+     * Converts the merged notes of several tracks into a MIDI sequence with one track. Every note is turned on
+     * at its start and turned off after its own duration, so a note held in one track keeps sounding over the
+     * notes of the other tracks that start while it is held.
+     * @param merger the merged notes of the tracks, positioned before the first note
+     * @return the MIDI sequence of the tracks
+     * @throws InvalidMidiDataException if a MIDI message cannot be built
+     */
+    public static Sequence toSequence(TrackMerger merger) throws InvalidMidiDataException
+    {
+    	Sequence sequence = new Sequence(Sequence.PPQ, TICKS_PER_QUARTER_NOTE);
+    	Track track = startTrack(sequence);
+    	
+    	long end = merger.getEndTime();
+    	while(merger.next())
+    	{
+    		addNote(track, merger.getMIDIValue(), merger.getTime(), merger.getDuration());
+    		end = Math.max(end, merger.getTime() + merger.getDuration());
+    	}
+    	track.add(new MidiEvent(new MetaMessage(END_OF_TRACK, new byte[0], 0), end));
+    	return sequence;
+    }
+    
+    /**
+     * Creates the track of a sequence with the tempo and the program of the sequencer.
+     */
+    private static Track startTrack(Sequence sequence) throws InvalidMidiDataException
+    {
+    	Track track = sequence.createTrack();
+    	byte[] tempo = 
+    	{
+    		(byte) (MICROSECONDS_PER_QUARTER_NOTE >> 16),
+    		(byte) (MICROSECONDS_PER_QUARTER_NOTE >> 8),
+    		(byte) MICROSECONDS_PER_QUARTER_NOTE
+    	};
+    	track.add(new MidiEvent(new MetaMessage(SET_TEMPO, tempo, tempo.length), 0));
+    	track.add(new MidiEvent(new ShortMessage(ShortMessage.PROGRAM_CHANGE, SEQUENCE_CHANNEL, SEQUENCE_PROGRAM, 0), 0));
+    	return track;
+    }
+    
+    private static void addNote(Track track, int midiValue, long tick, int duration) throws InvalidMidiDataException
+    {
+    	track.add(new MidiEvent(new ShortMessage(ShortMessage.NOTE_ON, SEQUENCE_CHANNEL, midiValue, 
+    			HIGHEST_MIDI_VALUE), tick));
+    	track.add(new MidiEvent(new ShortMessage(ShortMessage.NOTE_OFF, SEQUENCE_CHANNEL, midiValue, 0), 
+    			tick + duration));
+    }
+    
+    /**
+     * Plays a song on the JDK Sequencer, which keeps the timing on its own thread. This method returns right
+     * away; any song that is playing or queued is stopped first.
+     * @param song the notes and rests of the song
+     * @throws InvalidMidiDataException if the song cannot be converted into a MIDI sequence
+     * @throws MidiUnavailableException if the sequencer cannot be opened
+     */
+    public synchronized void playSequence(NoteSequence song) throws InvalidMidiDataException, MidiUnavailableException
+    {
+    	playSequence(toSequence(song));
+    }
+    
+    /**
+     * Plays a MIDI sequence made by toSequence on the JDK Sequencer. This method returns right away; any song
+     * that is playing or queued is stopped first.
+     * @param sequence the MIDI sequence of the song
+     * @throws InvalidMidiDataException if the sequencer does not take the sequence
+     * @throws MidiUnavailableException if the sequencer cannot be opened
+     */
+    public synchronized void playSequence(Sequence sequence) throws InvalidMidiDataException, MidiUnavailableException
+    {
+    	stopSequence();
+    	startSequence(sequence);
+    }
+    
+    /**
+     * Queues a song to be played on the JDK Sequencer after the songs that are playing or queued, or plays it
+     * right away if nothing is playing. This method returns right away.
+     * @param song the notes and rests of the song
+     * @throws InvalidMidiDataException if the song cannot be converted into a MIDI sequence
+     * @throws MidiUnavailableException if the sequencer cannot be opened
+     */
+    public synchronized void queueSequence(NoteSequence song) throws InvalidMidiDataException, MidiUnavailableException
+    {
+    	queueSequence(toSequence(song));
+    }
+    
+    /**
+     * Queues a MIDI sequence made by toSequence to be played on the JDK Sequencer after the songs that are
+     * playing or queued, or plays it right away if nothing is playing. This method returns right away.
+     * @param sequence the MIDI sequence of the song
+     * @throws InvalidMidiDataException if the sequencer does not take the sequence
+     * @throws MidiUnavailableException if the sequencer cannot be opened
+     */
+    public synchronized void queueSequence(Sequence sequence) throws InvalidMidiDataException, MidiUnavailableException
+    {
+    	if(sequencePlaying)
+    	{
+    		queuedSequences.add(sequence);
+    	}
+    	else
+    	{
+    		startSequence(sequence);
+    	}
+    }
+    
+    /**
+     * Stops the song playing on the sequencer and removes the queued songs.
+     */
+    public synchronized void stopSequence()
+    {
+    	queuedSequences.clear();
+    	if(sequencer != null && sequencer.isRunning())
+    	{
+    		sequencer.stop();
+    		send(ShortMessage.CONTROL_CHANGE, SEQUENCE_CHANNEL, ALL_NOTES_OFF, 0);
+    	}
+    	sequencePlaying = false;
+    	notifyAll();
+    }
+    
+    /**
+     * Waits until the song playing on the sequencer and every queued song are over.
+     * @throws InterruptedException if the thread is interrupted while waiting
+     */
+    public synchronized void awaitSequences() throws InterruptedException
+    {
+    	while(sequencePlaying)
+    	{
+    		wait();
+    	}
+    }
+    
+    /**
+     * Mutator method that changes the tempo of the sequencer, 1.0 is the tempo of the song.
+     * @param tempoFactor the factor the tempo is multiplied by
+     */
+    public synchronized void setTempoFactor(float tempoFactor)
+    {
+    	this.tempoFactor = tempoFactor;
+    	if(sequencer != null)
+    	{
+    		sequencer.setTempoFactor(tempoFactor);
+    	}
+    }
+    
+    private void startSequence(Sequence sequence) throws InvalidMidiDataException, MidiUnavailableException
+    {
+    	Sequencer player = sequencer();
+    	player.setSequence(sequence);
+    	player.setTickPosition(0);
+    	player.setTempoFactor(tempoFactor);
+    	listenForEndOfTrack(player, ++sequenceGeneration);
+    	player.start();
+    	sequencePlaying = true;
+    }
+    
+    /**
+     * Replaces the end of track listener of the sequencer with one for the song that is started. The sequencer
+     * hands its meta events to the listeners on another thread, so the end of track of an earlier song can arrive
+     * after the next song has started, and is ignored because it carries an older generation.
+     */
+    private void listenForEndOfTrack(Sequencer player, final int generation)
+    {
+    	if(endOfTrack != null)
+    	{
+    		player.removeMetaEventListener(endOfTrack);
+    	}
+    	endOfTrack = new MetaEventListener()
+    	{
+    		@Override
+    		public void meta(MetaMessage message)
+    		{
+    			if(message.getType() == END_OF_TRACK)
+    			{
+    				playNextSequence(generation);
+    			}
+    		}
+    	};
+    	player.addMetaEventListener(endOfTrack);
+    }
+    
+    /**
+     * Starts the next queued song when the sequencer reaches the end of the song that was started as the given
+     * generation.
+     */
+    private synchronized void playNextSequence(int generation)
+    {
+    	if(generation != sequenceGeneration || !sequencePlaying)
+    	{
+    		return;
+    	}
+    	Sequence next = queuedSequences.poll();
+    	try
+    	{
+    		if(next != null)
+    		{
+    			startSequence(next);
+    			return;
+    		}
+    	}
+    	catch(InvalidMidiDataException | MidiUnavailableException e)
+    	{
+    		e.printStackTrace();
+    	}
+    	sequencePlaying = false;
+    	notifyAll();
+    }
+    
+    /**
+     * Opens the sequencer ahead of time, so that the first song played on it starts right away.
+     * @throws MidiUnavailableException if the sequencer cannot be opened
+     */
+    public synchronized void openSequencer() throws MidiUnavailableException
+    {
+    	sequencer();
+    }
+    
+    /**
+     * Accessor method to find out if a song is playing on the sequencer.
+     * @return boolean value representing whether a song is playing or not
+     */
+    public synchronized boolean isSequencePlaying()
+    {
+    	return sequencePlaying;
+    }
+    
+    /**
+     * Accessor method that returns the number of songs waiting to be played on the sequencer.
+     * @return the number of queued songs
+     */
+    public synchronized int getQueuedSequences()
+    {
+    	return queuedSequences.size();
+    }
+    
+    private Sequencer sequencer() throws MidiUnavailableException
+    {
+    	if(sequencer == null)
+    	{
+    		sequencer = MidiSystem.getSequencer(false);
+    		sequencer.open();
+    		sequencer.getTransmitter().setReceiver(output());
+    	}
+    	return sequencer;
+    }
+    
+    /**
+     * Closes the sequencer, the output and the synthesizer of this piano.
+     */
+    public synchronized void close()
+    {
+    	pendingEvents.expireAll(expiredEvents);
+    	stopSequence();
+    	if(sequencer != null)
+    	{
+    		sequencer.close();
+    	}
+    	if(output != null)
+    	{
+    		output.close();
+    	}
+    	if(synthesizer != null)
+    	{
+    		synthesizer.close();
+    	}
+    }
 }
\ No newline at end of file
@@ -0,0 +1,191 @@
+/**
+ *
+ */
+package note;
+
+import java.io.PrintStream;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * @author Floyd Almazar
+ * @version 1.0
+ *
+ * Class Description: The console output of the players. A direct log prints every line right away, an
+ * 					asynchronous log puts the lines on a bounded queue that a background thread writes to the
+ * 					console in batches, and a quiet log prints nothing. A full queue drops the line instead of
+ * 					waiting, so printing never holds up the timing of the notes.
+ */
+public class PlaybackLog
+{
+	//Constants
+	public static final int		DEFAULT_CAPACITY = 1024;
+
+	/**
+	 * The largest number of lines written to the console at once.
+	 */
+	public static final int		BATCH_SIZE = 64;
+
+	/**
+	 * The line that stops the writer thread, compared by identity.
+	 */
+	private static final String	END = new String("END");
+
+	//Attributes
+	private final PrintStream out;
+	private final BlockingQueue<String> lines;
+	private final Thread writer;
+	private volatile boolean closed;
+	private final AtomicLong dropped = new AtomicLong();
+
+	private PlaybackLog(PrintStream out, int capacity)
+	{
+		this.out = out;
+		if(out == null || capacity == 0)
+		{
+			lines = null;
+			writer = null;
+			return;
+		}
+
+		lines = new ArrayBlockingQueue<String>(capacity);
+		writer = new Thread(new Runnable()
+		{
+			@Override
+			public void run()
+			{
+				write();
+			}
+		}, "PlaybackLog");
+		writer.setDaemon(true);
+		writer.start();
+	}
+
+	/**
+	 * Factory method for a log that prints every line right away on the calling thread.
+	 * @param out the console
+	 * @return the new log
+	 */
+	public static PlaybackLog direct(PrintStream out)
+	{
+		return new PlaybackLog(out, 0);
+	}
+
+	/**
+	 * Factory method for a log that prints the lines in batches on a background thread.
+	 * @param out the console
+	 * @param capacity the number of lines that can wait to be printed before lines are dropped
+	 * @return the new log
+	 */
+	public static PlaybackLog async(PrintStream out, int capacity)
+	{
+		if(capacity <= 0)
+		{
+			throw new IllegalArgumentException("The capacity must be at least 1: " + capacity);
+		}
+		return new PlaybackLog(out, capacity);
+	}
+
+	/**
+	 * Factory method for a log that prints nothing.
+	 * @return the new log
+	 */
+	public static PlaybackLog quiet()
+	{
+		return new PlaybackLog(null, 0);
+	}
+
+	/**
+	 * Accessor method to find out if the lines of this log are printed at all, so that a caller can skip
+	 * building a line that would not be printed.
+	 * @return boolean value representing whether the log prints or not
+	 */
+	public boolean isEnabled()
+	{
+		return out != null;
+	}
+
+	/**
+	 * Prints a line, or queues it for the writer thread. A line that does not fit in the queue is dropped.
+	 * @param line the line without its line break
+	 */
+	public void println(String line)
+	{
+		if(out == null)
+		{
+			return;
+		}
+		if(lines == null || closed)
+		{
+			out.println(line);
+		}
+		else if(!lines.offer(line))
+		{
+			dropped.incrementAndGet();
+		}
+	}
+
+	private void write()
+	{
+		List<String> batch = new ArrayList<String>(BATCH_SIZE);
+		StringBuilder text = new StringBuilder();
+		String separator = System.lineSeparator();
+		try
+		{
+			while(true)
+			{
+				batch.add(lines.take());
+				lines.drainTo(batch, BATCH_SIZE - 1);
+				boolean end = false;
+				for(String line : batch)
+				{
+					if(line == END)
+					{
+						end = true;
+						break;
+					}
+					text.append(line).append(separator);
+				}
+				out.print(text);
+				out.flush();
+				text.setLength(0);
+				batch.clear();
+				if(end)
+				{
+					return;
+				}
+			}
+		}
+		catch(InterruptedException e)
+		{
+			Thread.currentThread().interrupt();
+		}
+	}
+
+	/**
+	 * Prints every queued line and stops the writer thread. Lines printed after this are printed right away.
+	 * @throws InterruptedException if the caller is interrupted while the queue is written
+	 */
+	public void close() throws InterruptedException
+	{
+		if(writer == null || closed)
+		{
+			return;
+		}
+		lines.put(END);
+		writer.join();
+		closed = true;
+	}
+
+	/**
+	 * Accessor method that returns the number of lines dropped because the queue was full.
+	 * @return the number of dropped lines
+	 */
+	public long getDropped()
+	{
+		return dropped.get();
+	}
+}
@@ -0,0 +1,215 @@
+/**
+ *
+ */
+package note;
+
+import java.io.PrintStream;
+import java.util.Arrays;
+import java.util.Locale;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * @author Floyd Almazar
+ * @version 1.0
+ *
+ * Class Description: The timing of the notes played by a Piano. For every note on, the time it was scheduled for
+ * 					and the time it was actually sent are recorded, and the difference (the lateness) is counted
+ * 					in a histogram, so the median, the 99th percentile and the largest lateness of a song can be
+ * 					read at the end. The number of note ons per second and the number of dropped notes (notes that
+ * 					were cut off because every channel was busy) are kept as well.
+ *
+ * 					The histogram has 32 buckets for every power of two of microseconds, so a percentile is
+ * 					precise to about 3% and recording a note never allocates. The metrics are recorded by the
+ * 					thread that plays the song and are meant to be read after it.
+ */
+public class PlaybackMetrics
+{
+	//Constants
+	/**
+	 * The number of buckets for every power of two; lateness below twice this many microseconds is exact.
+	 */
+	private static final int	SUB_BUCKETS = 32;
+	private static final int	SUB_BUCKET_BITS = 5;
+	private static final int	BUCKETS = (Long.SIZE - SUB_BUCKET_BITS + 1) * SUB_BUCKETS;
+	private static final long	NANOS_PER_MICRO = TimeUnit.MICROSECONDS.toNanos(1);
+
+	//Attributes
+	private final long[] buckets = new long[BUCKETS];
+	private long events;
+	private long dropped;
+	private long totalLateness;
+	private long maxLateness;
+	private long firstTime;
+	private long lastTime;
+
+	/**
+	 * Mutator method that records a note on.
+	 * @param scheduled the time the note was scheduled for, from System.nanoTime()
+	 * @param actual the time the note on was sent, from System.nanoTime()
+	 */
+	public void recordNoteOn(long scheduled, long actual)
+	{
+		long lateness = Math.max(0, actual - scheduled);
+		buckets[bucketOf(lateness / NANOS_PER_MICRO)]++;
+		if(events == 0)
+		{
+			firstTime = actual;
+		}
+		lastTime = actual;
+		events++;
+		totalLateness += lateness;
+		maxLateness = Math.max(maxLateness, lateness);
+	}
+
+	/**
+	 * Mutator method that records a note that was dropped before its end.
+	 */
+	public void recordDropped()
+	{
+		dropped++;
+	}
+
+	/**
+	 * Mutator method that forgets every recorded note, for the next song.
+	 */
+	public void reset()
+	{
+		Arrays.fill(buckets, 0);
+		events = 0;
+		dropped = 0;
+		totalLateness = 0;
+		maxLateness = 0;
+		firstTime = 0;
+		lastTime = 0;
+	}
+
+	/**
+	 * Returns the bucket of a lateness in microseconds.
+	 */
+	static int bucketOf(long micros)
+	{
+		if(micros < 2 * SUB_BUCKETS)
+		{
+			return (int) micros;
+		}
+		int shift = Long.SIZE - 1 - Long.numberOfLeadingZeros(micros) - SUB_BUCKET_BITS;
+		return shift * SUB_BUCKETS + (int) (micros >>> shift);
+	}
+
+	/**
+	 * Returns the largest lateness in microseconds that falls in a bucket.
+	 */
+	static long highestOf(int bucket)
+	{
+		if(bucket < 2 * SUB_BUCKETS)
+		{
+			return bucket;
+		}
+		int shift = bucket / SUB_BUCKETS - 1;
+		long lowest = (long) (bucket - shift * SUB_BUCKETS) << shift;
+		return lowest + (1L << shift) - 1;
+	}
+
+	/**
+	 * Accessor method that returns the lateness that a percentage of the notes were not later than.
+	 * @param percentile the percentage between 0 - 100, for example 50 for the median or 99
+	 * @return the lateness in nanoseconds, never more than the largest lateness, or 0 if there are no notes
+	 */
+	public long getPercentile(double percentile)
+	{
+		if(percentile < 0 || percentile > 100)
+		{
+			throw new IllegalArgumentException("The percentile must be between 0 - 100: " + percentile);
+		}
+		if(events == 0)
+		{
+			return 0;
+		}
+		long rank = Math.max(1, (long) Math.ceil(events * percentile / 100));
+		long count = 0;
+		for(int bucket = 0; bucket < buckets.length; bucket++)
+		{
+			count += buckets[bucket];
+			if(count >= rank)
+			{
+				return Math.min(maxLateness, highestOf(bucket) * NANOS_PER_MICRO + NANOS_PER_MICRO - 1);
+			}
+		}
+		return maxLateness;
+	}
+
+	/**
+	 * Accessor method that returns the number of note ons recorded.
+	 * @return the number of note ons
+	 */
+	public long getEventCount()
+	{
+		return events;
+	}
+
+	/**
+	 * Accessor method that returns the number of notes dropped before their end.
+	 * @return the number of dropped notes
+	 */
+	public long getDropped()
+	{
+		return dropped;
+	}
+
+	/**
+	 * Accessor method that returns the largest lateness of a note on in nanoseconds.
+	 * @return the largest lateness
+	 */
+	public long getMaxLateness()
+	{
+		return maxLateness;
+	}
+
+	/**
+	 * Accessor method that returns the average lateness of the note ons in nanoseconds.
+	 * @return the average lateness, or 0 if there are no notes
+	 */
+	public long getAverageLateness()
+	{
+		return events == 0 ? 0 : totalLateness / events;
+	}
+
+	/**
+	 * Accessor method that returns the number of note ons per second, from the first note on to the last one.
+	 * @return the note ons per second, or 0 if fewer than two notes were recorded
+	 */
+	public double getEventsPerSecond()
+	{
+		return events < 2 || lastTime == firstTime ? 0 : (events - 1) * 1e9 / (lastTime - firstTime);
+	}
+
+	/**
+	 * Prints a summary of the metrics followed by the histogram of the lateness, one line per bucket that has
+	 * notes.
+	 * @param out where the metrics are printed
+	 */
+	public void print(PrintStream out)
+	{
+		out.println(this);
+		for(int bucket = 0; bucket < buckets.length; bucket++)
+		{
+			if(buckets[bucket] > 0)
+			{
+				long lowest = bucket == 0 ? 0 : highestOf(bucket - 1) + 1;
+				out.println(String.format(Locale.ROOT, "  %8d - %8d us: %d", lowest, highestOf(bucket),
+						buckets[bucket]));
+			}
+		}
+	}
+
+	/**
+	 * Returns a one-line summary of the metrics.
+	 */
+	@Override
+	public String toString()
+	{
+		return String.format(Locale.ROOT,
+				"%d notes, %.1f notes/s, lateness p50 %.3f ms, p99 %.3f ms, max %.3f ms, %d dropped", events,
+				getEventsPerSecond(), getPercentile(50) / 1e6, getPercentile(99) / 1e6, maxLateness / 1e6, dropped);
+	}
+}
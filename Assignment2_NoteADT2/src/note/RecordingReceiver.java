@@ -0,0 +1,144 @@
+/**
+ *
+ */
+package note;
+
+import java.util.Arrays;
+
+import javax.sound.midi.MidiMessage;
+import javax.sound.midi.Receiver;
+
+/**
+ * @author Floyd Almazar
+ * @version 1.0
+ *
+ * Class Description: A MIDI output that plays nothing and records every message it receives with the time it was
+ * 					received, so the messages of a Piano can be checked without a sound card. Every message is kept
+ * 					as its status and data bytes in primitive arrays, because the Piano reuses its message object.
+ */
+public class RecordingReceiver implements Receiver
+{
+	//Attributes
+	private long[] times = new long[64];
+	private int[] messages = new int[times.length];
+	private int size;
+	private boolean closed;
+
+	/**
+	 * Records a message with the current time from System.nanoTime(). Only the first three bytes of a message
+	 * are kept.
+	 */
+	@Override
+	public synchronized void send(MidiMessage message, long timeStamp)
+	{
+		if(size == times.length)
+		{
+			times = Arrays.copyOf(times, size * 2);
+			messages = Arrays.copyOf(messages, size * 2);
+		}
+		byte[] bytes = message.getMessage();
+		int packed = 0;
+		for(int i = 0; i < Math.min(3, message.getLength()); i++)
+		{
+			packed |= (bytes[i] & 0xFF) << (8 * i);
+		}
+		times[size] = System.nanoTime();
+		messages[size] = packed;
+		size++;
+	}
+
+	/**
+	 * Mutator method that forgets every recorded message.
+	 */
+	public synchronized void clear()
+	{
+		size = 0;
+	}
+
+	@Override
+	public synchronized void close()
+	{
+		closed = true;
+	}
+
+	/**
+	 * Accessor method to find out if the receiver has been closed.
+	 * @return boolean value representing whether the receiver is closed or not
+	 */
+	public synchronized boolean isClosed()
+	{
+		return closed;
+	}
+
+	/**
+	 * Accessor method that returns the number of messages recorded.
+	 * @return the number of messages
+	 */
+	public synchronized int size()
+	{
+		return size;
+	}
+
+	/**
+	 * Accessor method that returns the time a message was received.
+	 * @param index the index of the message
+	 * @return the time from System.nanoTime()
+	 */
+	public synchronized long getTime(int index)
+	{
+		checkIndex(index);
+		return times[index];
+	}
+
+	/**
+	 * Accessor method that returns the command of a message, for example ShortMessage.NOTE_ON.
+	 * @param index the index of the message
+	 * @return the status byte without the channel
+	 */
+	public synchronized int getCommand(int index)
+	{
+		checkIndex(index);
+		return messages[index] & 0xF0;
+	}
+
+	/**
+	 * Accessor method that returns the channel of a message.
+	 * @param index the index of the message
+	 * @return the channel between 0 - 15
+	 */
+	public synchronized int getChannel(int index)
+	{
+		checkIndex(index);
+		return messages[index] & 0x0F;
+	}
+
+	/**
+	 * Accessor method that returns the first data byte of a message, the MIDI value of a note on or note off.
+	 * @param index the index of the message
+	 * @return the first data byte
+	 */
+	public synchronized int getData1(int index)
+	{
+		checkIndex(index);
+		return messages[index] >>> 8 & 0xFF;
+	}
+
+	/**
+	 * Accessor method that returns the second data byte of a message, the velocity of a note on or note off.
+	 * @param index the index of the message
+	 * @return the second data byte
+	 */
+	public synchronized int getData2(int index)
+	{
+		checkIndex(index);
+		return messages[index] >>> 16 & 0xFF;
+	}
+
+	private void checkIndex(int index)
+	{
+		if(index < 0 || index >= size)
+		{
+			throw new IndexOutOfBoundsException("Index: " + index + ", Size: " + size);
+		}
+	}
+}
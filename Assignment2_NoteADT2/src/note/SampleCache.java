@@ -0,0 +1,183 @@
+/**
+ *
+ */
+package note;
+
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * @author Floyd Almazar
+ * @version 1.0
+ *
+ * Class Description: A cache of rendered notes for the SongRenderer. A note is rendered once for every MIDI value,
+ * 					length and program and the samples are reused every time the same note comes back, so a
+ * 					repetitive song is mostly mixed out of buffers instead of synthesized. The cache holds at most
+ * 					a number of bytes and forgets the least recently used notes first.
+ *
+ * 					A cached note gives exactly the same samples as rendering it in place, because the samples of
+ * 					a note only depend on the position inside the note. The cache is safe to share between threads.
+ */
+public class SampleCache
+{
+	//Constants
+	/**
+	 * The default size of the cache in bytes.
+	 */
+	public static final long	DEFAULT_BUDGET = 64L << 20;
+
+	private static final int	BYTES_PER_SAMPLE = 4;
+
+	//Attributes
+	private final long budget;
+	private final LinkedHashMap<Long, float[]> notes = new LinkedHashMap<Long, float[]>(64, 0.75f, true);
+	private long bytes;
+
+	private long hits;
+	private long misses;
+	private long evictions;
+
+	/**
+	 * Constructor for a cache of DEFAULT_BUDGET bytes.
+	 */
+	public SampleCache()
+	{
+		this(DEFAULT_BUDGET);
+	}
+
+	/**
+	 * Constructor for a cache that holds at most a number of bytes of samples.
+	 * @param budget the size of the cache in bytes
+	 */
+	public SampleCache(long budget)
+	{
+		if(budget < 0)
+		{
+			throw new IllegalArgumentException("The budget cannot be negative: " + budget);
+		}
+		this.budget = budget;
+	}
+
+	/**
+	 * Returns the samples of a note, rendering it if it is not in the cache. A note larger than the whole cache
+	 * is rendered every time and never kept. The returned array must not be changed.
+	 * @param midiValue the MIDI value of the note between 0 - 127
+	 * @param gate the number of frames until the note is released
+	 * @param program the program of the sound of the note between 0 - 127
+	 * @return the samples of the whole note, including its release
+	 */
+	public float[] get(int midiValue, int gate, int program)
+	{
+		Long key = Long.valueOf(((long) gate << 14) | (program << 7) | midiValue);
+		synchronized(this)
+		{
+			float[] samples = notes.get(key);
+			if(samples != null)
+			{
+				hits++;
+				return samples;
+			}
+			misses++;
+		}
+
+		float[] samples = SongRenderer.renderNote(midiValue, gate);
+		long size = (long) samples.length * BYTES_PER_SAMPLE;
+		if(size <= budget)
+		{
+			synchronized(this)
+			{
+				if(notes.put(key, samples) == null)
+				{
+					bytes += size;
+					evict();
+				}
+			}
+		}
+		return samples;
+	}
+
+	private void evict()
+	{
+		Iterator<Map.Entry<Long, float[]>> eldest = notes.entrySet().iterator();
+		while(bytes > budget)
+		{
+			bytes -= (long) eldest.next().getValue().length * BYTES_PER_SAMPLE;
+			eldest.remove();
+			evictions++;
+		}
+	}
+
+	/**
+	 * Mutator method that empties the cache. The counters are kept.
+	 */
+	public synchronized void clear()
+	{
+		notes.clear();
+		bytes = 0;
+	}
+
+	/**
+	 * Accessor method that returns the size of the cache in bytes.
+	 * @return the budget of the cache
+	 */
+	public long getBudget()
+	{
+		return budget;
+	}
+
+	/**
+	 * Accessor method that returns the number of bytes of samples in the cache.
+	 * @return the bytes in use
+	 */
+	public synchronized long getBytes()
+	{
+		return bytes;
+	}
+
+	/**
+	 * Accessor method that returns the number of notes in the cache.
+	 * @return the number of cached notes
+	 */
+	public synchronized int size()
+	{
+		return notes.size();
+	}
+
+	/**
+	 * Accessor method that returns the number of notes found in the cache.
+	 * @return the number of hits
+	 */
+	public synchronized long getHits()
+	{
+		return hits;
+	}
+
+	/**
+	 * Accessor method that returns the number of notes that had to be rendered.
+	 * @return the number of misses
+	 */
+	public synchronized long getMisses()
+	{
+		return misses;
+	}
+
+	/**
+	 * Accessor method that returns the number of notes removed to stay within the budget.
+	 * @return the number of evictions
+	 */
+	public synchronized long getEvictions()
+	{
+		return evictions;
+	}
+
+	/**
+	 * Accessor method that returns the part of the notes that were found in the cache.
+	 * @return the hit rate between 0.0 and 1.0, or 0 if nothing was asked yet
+	 */
+	public synchronized double getHitRate()
+	{
+		long requests = hits + misses;
+		return requests == 0 ? 0 : (double) hits / requests;
+	}
+}
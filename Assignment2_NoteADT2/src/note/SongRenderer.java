@@ -0,0 +1,365 @@
+/**
+ *
+ */
+package note;
+
+import java.io.ByteArrayInputStream;
+import java.io.File;
+import java.io.IOException;
+import java.util.List;
+
+import javax.sound.sampled.AudioFileFormat;
+import javax.sound.sampled.AudioFormat;
+import javax.sound.sampled.AudioInputStream;
+import javax.sound.sampled.AudioSystem;
+
+/**
+ * @author Floyd Almazar
+ * @version 1.0
+ *
+ * Class Description: An offline renderer that turns a song into PCM audio as fast as the CPU allows, without a
+ * 					sound card and without waiting for the rests. Every note is a sum of three harmonics with a
+ * 					short attack, a slow decay and a release after its rest is over.
+ *
+ * 					Every sample of a note only depends on the position of the sample inside the note, so any part
+ * 					of a song can be rendered on its own and gives exactly the same samples as a whole render.
+ */
+public class SongRenderer
+{
+	//Constants
+	public static final int		SAMPLE_RATE = 44100;
+	public static final int		ATTACK_MILLIS = 5;
+	public static final int		RELEASE_MILLIS = 120;
+
+	/**
+	 * The program of the sound of the renderer, used to find its notes in a SampleCache.
+	 */
+	public static final int		PROGRAM = 0;
+
+	static final int			ATTACK_FRAMES = (int) frames(ATTACK_MILLIS);
+	static final int			RELEASE_FRAMES = (int) frames(RELEASE_MILLIS);
+
+	/**
+	 * The volume of a single note, low enough for a few notes to overlap before the samples are clipped.
+	 */
+	static final float			GAIN = 0.25f;
+
+	private static final int	TABLE_BITS = 12;
+	private static final int	TABLE_MASK = (1 << TABLE_BITS) - 1;
+	private static final int	PHASE_SHIFT = 32 - TABLE_BITS;
+
+	/**
+	 * One cycle of a sine wave, read with a 32-bit fixed point phase.
+	 */
+	private static final float[] SINE = new float[1 << TABLE_BITS];
+
+	/**
+	 * The decay of a note over four seconds, after which it stays at the last value.
+	 */
+	private static final float[] DECAY = new float[4 * SAMPLE_RATE];
+
+	private static final float[] HARMONICS = { 1.0f, 0.5f, 0.25f };
+
+	static
+	{
+		for(int i = 0; i < SINE.length; i++)
+		{
+			SINE[i] = (float) Math.sin(2 * Math.PI * i / SINE.length);
+		}
+		for(int i = 0; i < DECAY.length; i++)
+		{
+			DECAY[i] = (float) Math.exp(-i / (0.8 * SAMPLE_RATE));
+		}
+	}
+
+	/**
+	 * Returns the number of frames in a number of milliseconds.
+	 * @param millis the time in milliseconds
+	 * @return the number of frames
+	 */
+	public static long frames(long millis)
+	{
+		return millis * SAMPLE_RATE / 1000;
+	}
+
+	/**
+	 * Accessor method that returns the number of frames of a whole render of a song, including the release of
+	 * the last notes.
+	 * @param song the notes and rests of the song
+	 * @return the number of frames
+	 */
+	public static int frameLength(NoteSequence song)
+	{
+		long millis = 0;
+		long end = 0;
+		for(int i = 0; i < song.size(); i++)
+		{
+			millis += song.getDuration(i);
+			long frame = frames(millis);
+			end = Math.max(end, song.isRest(i) ? frame : frame + RELEASE_FRAMES);
+		}
+		if(end > Integer.MAX_VALUE)
+		{
+			throw new IllegalArgumentException("The song is too long to be rendered into one buffer.");
+		}
+		return (int) end;
+	}
+
+	/**
+	 * Renders a whole song.
+	 * @param song the notes and rests of the song
+	 * @return the mono samples of the song between -1.0 and 1.0 (before clipping)
+	 */
+	public static float[] render(NoteSequence song)
+	{
+		float[] samples = new float[frameLength(song)];
+		render(song, samples, 0, samples.length, 0);
+		return samples;
+	}
+
+	/**
+	 * Renders a whole song, reusing the notes that are already in a cache.
+	 * @param song the notes and rests of the song
+	 * @param cache the cache of rendered notes
+	 * @return the same samples as render(song)
+	 */
+	public static float[] render(NoteSequence song, SampleCache cache)
+	{
+		float[] samples = new float[frameLength(song)];
+		render(song, startFrames(song), 0, samples, 0, samples.length, 0, cache);
+		return samples;
+	}
+
+	/**
+	 * Renders the tracks of a song that play at the same time, reusing the notes that are already in a cache.
+	 * The tracks are merged by start time and every note is released after its own duration, so a note held in
+	 * one track keeps sounding over the notes of the other tracks.
+	 * @param tracks the tracks, all starting at time 0
+	 * @param cache the cache of rendered notes
+	 * @return the mono samples of the tracks between -1.0 and 1.0 (before clipping)
+	 */
+	public static float[] render(List<NoteSequence> tracks, SampleCache cache)
+	{
+		TrackMerger merger = new TrackMerger(tracks);
+		long end = frames(merger.getEndTime());
+		while(merger.next())
+		{
+			end = Math.max(end, frames(merger.getTime() + merger.getDuration()) + RELEASE_FRAMES);
+		}
+		if(end > Integer.MAX_VALUE)
+		{
+			throw new IllegalArgumentException("The song is too long to be rendered into one buffer.");
+		}
+
+		float[] samples = new float[(int) end];
+		merger = new TrackMerger(tracks);
+		while(merger.next())
+		{
+			long start = frames(merger.getTime());
+			int gate = (int) (frames(merger.getTime() + merger.getDuration()) - start);
+			mixNote(samples, 0, samples.length, 0, start, cache.get(merger.getMIDIValue(), gate, PROGRAM));
+		}
+		return samples;
+	}
+
+	/**
+	 * Renders part of a song and adds it to the samples already in the buffer. The notes are added in the order
+	 * of the song, so rendering a song in parts gives exactly the same samples as rendering it at once.
+	 * @param song the notes and rests of the song
+	 * @param buffer the buffer the samples are added to
+	 * @param offset the index in the buffer of the first frame
+	 * @param length the number of frames to render
+	 * @param firstFrame the frame of the song rendered at the offset
+	 */
+	public static void render(NoteSequence song, float[] buffer, int offset, int length, long firstFrame)
+	{
+		render(song, startFrames(song), 0, buffer, offset, length, firstFrame, null);
+	}
+	
+	/**
+	 * Renders part of a song starting at a note, with the start frames of the notes already known. Notes before
+	 * firstNote must have ended before firstFrame. The notes are taken from the cache unless it is null.
+	 */
+	static void render(NoteSequence song, long[] starts, int firstNote, float[] buffer, int offset, int length,
+			long firstFrame, SampleCache cache)
+	{
+		long lastFrame = firstFrame + length;
+		for(int i = firstNote; i < song.size() && starts[i] < lastFrame; i++)
+		{
+			if(!song.isRest(i))
+			{
+				int gate = (int) (starts[chordEnd(starts, i)] - starts[i]);
+				if(starts[i] + gate + RELEASE_FRAMES <= firstFrame)
+				{
+					continue;
+				}
+				if(cache == null)
+				{
+					addNote(buffer, offset, length, firstFrame, starts[i], song.getMIDIValue(i), gate);
+				}
+				else
+				{
+					mixNote(buffer, offset, length, firstFrame, starts[i], cache.get(song.getMIDIValue(i), gate, PROGRAM));
+				}
+			}
+		}
+	}
+	
+	/**
+	 * Returns the index of the first entry that starts after an entry, so that the notes of a chord (with a
+	 * duration of 0) are released together with the last note of the chord.
+	 */
+	private static int chordEnd(long[] starts, int index)
+	{
+		int end = index + 1;
+		while(end < starts.length - 1 && starts[end] == starts[index])
+		{
+			end++;
+		}
+		return end;
+	}
+
+	/**
+	 * Returns the frame where every note and rest of a song starts, followed by the frame where the last one ends.
+	 * @param song the notes and rests of the song
+	 * @return size + 1 start frames in order
+	 */
+	static long[] startFrames(NoteSequence song)
+	{
+		long[] starts = new long[song.size() + 1];
+		long millis = 0;
+		for(int i = 0; i < song.size(); i++)
+		{
+			starts[i] = frames(millis);
+			millis += song.getDuration(i);
+		}
+		starts[song.size()] = frames(millis);
+		return starts;
+	}
+	
+	/**
+	 * Adds the part of one note that falls between firstFrame and firstFrame + length to the buffer.
+	 * @param buffer the buffer the samples are added to
+	 * @param offset the index in the buffer of firstFrame
+	 * @param length the number of frames in the buffer from the offset
+	 * @param firstFrame the frame of the song at the offset
+	 * @param start the frame of the song where the note starts
+	 * @param midiValue the MIDI value of the note
+	 * @param gate the number of frames until the note is released
+	 */
+	static void addNote(float[] buffer, int offset, int length, long firstFrame, long start, int midiValue, int gate)
+	{
+		long phaseStep = Math.round(NoteADT.frequencyOf(midiValue) / SAMPLE_RATE * (1L << 32));
+		int harmonics = 0;
+		while(harmonics < HARMONICS.length && NoteADT.frequencyOf(midiValue) * (harmonics + 1) < SAMPLE_RATE / 2)
+		{
+			harmonics++;
+		}
+
+		int from = (int) Math.max(0, firstFrame - start);
+		int to = (int) Math.min(gate + RELEASE_FRAMES, firstFrame + length - start);
+		int index = (int) (offset + start + from - firstFrame);
+		for(int t = from; t < to; t++)
+		{
+			long phase = t * phaseStep;
+			float tone = 0;
+			for(int h = 0; h < harmonics; h++)
+			{
+				tone += HARMONICS[h] * SINE[(int) ((phase * (h + 1)) >>> PHASE_SHIFT) & TABLE_MASK];
+			}
+			buffer[index++] += GAIN * envelope(t, gate) * tone;
+		}
+	}
+
+	/**
+	 * Renders one whole note on its own.
+	 * @param midiValue the MIDI value of the note
+	 * @param gate the number of frames until the note is released
+	 * @return the samples of the note, including its release
+	 */
+	static float[] renderNote(int midiValue, int gate)
+	{
+		float[] note = new float[gate + RELEASE_FRAMES];
+		addNote(note, 0, note.length, 0, 0, midiValue, gate);
+		return note;
+	}
+
+	/**
+	 * Adds the part of a rendered note that falls between firstFrame and firstFrame + length to the buffer.
+	 */
+	private static void mixNote(float[] buffer, int offset, int length, long firstFrame, long start, float[] note)
+	{
+		int from = (int) Math.max(0, firstFrame - start);
+		int to = (int) Math.min(note.length, firstFrame + length - start);
+		int index = (int) (offset + start + from - firstFrame);
+		for(int t = from; t < to; t++)
+		{
+			buffer[index++] += note[t];
+		}
+	}
+
+	private static float envelope(int t, int gate)
+	{
+		float level = DECAY[Math.min(t, DECAY.length - 1)];
+		if(t < ATTACK_FRAMES)
+		{
+			level *= (float) t / ATTACK_FRAMES;
+		}
+		if(t >= gate)
+		{
+			level *= 1.0f - (float) (t - gate) / RELEASE_FRAMES;
+		}
+		return level;
+	}
+
+	/**
+	 * Converts samples into signed 16-bit little-endian PCM, clipping them to -1.0 and 1.0.
+	 * @param samples the mono samples
+	 * @return the PCM bytes
+	 */
+	public static byte[] toPcm16(float[] samples)
+	{
+		byte[] pcm = new byte[samples.length * 2];
+		for(int i = 0; i < samples.length; i++)
+		{
+			float sample = Math.max(-1.0f, Math.min(1.0f, samples[i]));
+			int value = (int) (sample * Short.MAX_VALUE);
+			pcm[2 * i] = (byte) value;
+			pcm[2 * i + 1] = (byte) (value >> 8);
+		}
+		return pcm;
+	}
+
+	/**
+	 * Accessor method that returns the format of the PCM audio made by toPcm16.
+	 * @return 44100 Hz, 16-bit, mono, signed, little-endian
+	 */
+	public static AudioFormat getFormat()
+	{
+		return new AudioFormat(SAMPLE_RATE, 16, 1, true, false);
+	}
+
+	/**
+	 * Writes samples into a WAV file.
+	 * @param samples the mono samples
+	 * @param wav the WAV file
+	 * @throws IOException if the file cannot be written
+	 */
+	public static void writeWav(float[] samples, File wav) throws IOException
+	{
+		byte[] pcm = toPcm16(samples);
+		AudioInputStream audio = new AudioInputStream(new ByteArrayInputStream(pcm), getFormat(), samples.length);
+		AudioSystem.write(audio, AudioFileFormat.Type.WAVE, wav);
+	}
+
+	/**
+	 * Renders a whole song into a WAV file.
+	 * @param song the notes and rests of the song
+	 * @param wav the WAV file
+	 * @throws IOException if the file cannot be written
+	 */
+	public static void renderToWav(NoteSequence song, File wav) throws IOException
+	{
+		writeWav(render(song), wav);
+	}
+}
@@ -0,0 +1,370 @@
+/**
+ *
+ */
+package note;
+
+import javax.sound.midi.MidiMessage;
+import javax.sound.midi.Receiver;
+import javax.sound.midi.ShortMessage;
+import javax.sound.sampled.AudioFormat;
+import javax.sound.sampled.AudioSystem;
+import javax.sound.sampled.LineUnavailableException;
+import javax.sound.sampled.SourceDataLine;
+
+/**
+ * @author Floyd Almazar
+ * @version 1.0
+ *
+ * Class Description: A small built-in synthesizer that can be used by the Piano in place of the JDK synthesizer.
+ * 					It has a fixed pool of voices, each one a wavetable oscillator with an ADSR envelope, and it
+ * 					renders into buffers that are made once, so nothing is allocated while audio is playing.
+ *
+ * 					The engine is a MIDI Receiver: note on, note off and the all notes off controller are played,
+ * 					other messages (such as program changes) are ignored because the engine has one sound. Every
+ * 					voice keeps the channel of its note, so a note off only ends the note of the same pitch on its
+ * 					own channel.
+ */
+public class SynthEngine implements Receiver
+{
+	//Constants
+	public static final int		VOICES = 32;
+	public static final int		SAMPLE_RATE = SongRenderer.SAMPLE_RATE;
+	public static final int		BLOCK_FRAMES = 256;
+
+	public static final int		ATTACK_MILLIS = 5;
+	public static final int		DECAY_MILLIS = 300;
+	public static final float	SUSTAIN_LEVEL = 0.5f;
+	public static final int		RELEASE_MILLIS = 400;
+
+	/**
+	 * The volume of a single voice at full velocity.
+	 */
+	static final float			GAIN = 0.2f;
+
+	private static final int	ALL_NOTES_OFF = 123;
+
+	private static final int	TABLE_BITS = 12;
+	private static final int	PHASE_SHIFT = 32 - TABLE_BITS;
+
+	/**
+	 * One cycle of the sound of a voice: a sine wave with its second and third harmonics.
+	 */
+	private static final float[] WAVETABLE = new float[1 << TABLE_BITS];
+
+	private static final int	IDLE = 0;
+	private static final int	ATTACK = 1;
+	private static final int	DECAY = 2;
+	private static final int	SUSTAIN = 3;
+	private static final int	RELEASE = 4;
+
+	private static final float	ATTACK_STEP = 1.0f / (ATTACK_MILLIS * SAMPLE_RATE / 1000);
+	private static final float	DECAY_STEP = (1.0f - SUSTAIN_LEVEL) / (DECAY_MILLIS * SAMPLE_RATE / 1000);
+	private static final int	RELEASE_FRAMES = RELEASE_MILLIS * SAMPLE_RATE / 1000;
+
+	static
+	{
+		for(int i = 0; i < WAVETABLE.length; i++)
+		{
+			double angle = 2 * Math.PI * i / WAVETABLE.length;
+			WAVETABLE[i] = (float) ((Math.sin(angle) + 0.5 * Math.sin(2 * angle) + 0.25 * Math.sin(3 * angle)) / 1.75);
+		}
+	}
+
+	//Attributes
+	private final int[] channels = new int[VOICES];
+	private final int[] midiValues = new int[VOICES];
+	private final int[] phases = new int[VOICES];
+	private final int[] phaseSteps = new int[VOICES];
+	private final int[] stages = new int[VOICES];
+	private final float[] levels = new float[VOICES];
+	private final float[] releaseSteps = new float[VOICES];
+	private final float[] velocities = new float[VOICES];
+	private final long[] startOrder = new long[VOICES];
+	private long notesStarted;
+
+	private final float[] mix = new float[BLOCK_FRAMES];
+	private final byte[] pcm = new byte[BLOCK_FRAMES * 2];
+	private SourceDataLine line;
+	private Thread audioThread;
+	private volatile boolean running;
+
+	/**
+	 * Mutator method that starts a note on a free voice. If every voice is busy, the quietest releasing voice
+	 * or else the oldest voice is taken over.
+	 * @param channel the MIDI channel of the note between 0 - 15
+	 * @param midiValue the MIDI value of the note between 0 - 127
+	 * @param velocity the velocity of the note between 1 - 127
+	 */
+	public synchronized void noteOn(int channel, int midiValue, int velocity)
+	{
+		int voice = freeVoice();
+		channels[voice] = channel;
+		midiValues[voice] = midiValue;
+		phases[voice] = 0;
+		phaseSteps[voice] = (int) Math.round(NoteADT.frequencyOf(midiValue) / SAMPLE_RATE * (1L << 32));
+		stages[voice] = ATTACK;
+		levels[voice] = 0;
+		releaseSteps[voice] = 0;
+		velocities[voice] = velocity / 127.0f;
+		startOrder[voice] = notesStarted++;
+	}
+
+	private int freeVoice()
+	{
+		int quietest = -1;
+		int oldest = 0;
+		for(int voice = 0; voice < VOICES; voice++)
+		{
+			if(stages[voice] == IDLE)
+			{
+				return voice;
+			}
+			else if(stages[voice] == RELEASE && (quietest < 0 || levels[voice] < levels[quietest]))
+			{
+				quietest = voice;
+			}
+			else if(startOrder[voice] < startOrder[oldest])
+			{
+				oldest = voice;
+			}
+		}
+		return quietest >= 0 ? quietest : oldest;
+	}
+
+	/**
+	 * Mutator method that releases the voices playing a note on a channel. The same note on other channels
+	 * keeps sounding.
+	 * @param channel the MIDI channel of the note between 0 - 15
+	 * @param midiValue the MIDI value of the note between 0 - 127
+	 */
+	public synchronized void noteOff(int channel, int midiValue)
+	{
+		for(int voice = 0; voice < VOICES; voice++)
+		{
+			if(channels[voice] == channel && midiValues[voice] == midiValue && stages[voice] != IDLE
+					&& stages[voice] != RELEASE)
+			{
+				release(voice);
+			}
+		}
+	}
+
+	/**
+	 * Mutator method that releases every voice.
+	 */
+	public synchronized void allNotesOff()
+	{
+		for(int voice = 0; voice < VOICES; voice++)
+		{
+			if(stages[voice] != IDLE && stages[voice] != RELEASE)
+			{
+				release(voice);
+			}
+		}
+	}
+
+	/**
+	 * Releases a voice. A voice that is still in its attack finishes the attack first and is then released from
+	 * full level, so a note off that comes right after its note on, before the voice was rendered, is still heard.
+	 */
+	private void release(int voice)
+	{
+		if(stages[voice] == ATTACK)
+		{
+			releaseSteps[voice] = 1.0f / RELEASE_FRAMES;
+		}
+		else
+		{
+			stages[voice] = RELEASE;
+			releaseSteps[voice] = levels[voice] / RELEASE_FRAMES;
+		}
+	}
+
+	/**
+	 * Accessor method that returns the number of voices that are sounding.
+	 * @return the number of busy voices
+	 */
+	public synchronized int getActiveVoices()
+	{
+		int active = 0;
+		for(int voice = 0; voice < VOICES; voice++)
+		{
+			if(stages[voice] != IDLE)
+			{
+				active++;
+			}
+		}
+		return active;
+	}
+
+	/**
+	 * Renders the next frames of every voice into a buffer, replacing what was in it.
+	 * @param buffer the buffer of mono samples
+	 * @param frames the number of frames to render
+	 */
+	public synchronized void render(float[] buffer, int frames)
+	{
+		for(int i = 0; i < frames; i++)
+		{
+			buffer[i] = 0;
+		}
+
+		for(int voice = 0; voice < VOICES; voice++)
+		{
+			int stage = stages[voice];
+			if(stage == IDLE)
+			{
+				continue;
+			}
+
+			int phase = phases[voice];
+			int phaseStep = phaseSteps[voice];
+			float level = levels[voice];
+			float gain = GAIN * velocities[voice];
+			for(int i = 0; i < frames && stage != IDLE; i++)
+			{
+				if(stage == ATTACK)
+				{
+					level += ATTACK_STEP;
+					if(level >= 1.0f)
+					{
+						level = 1.0f;
+						// a voice released during its attack has its release step set already
+						stage = releaseSteps[voice] > 0 ? RELEASE : DECAY;
+					}
+				}
+				else if(stage == DECAY)
+				{
+					level -= DECAY_STEP;
+					if(level <= SUSTAIN_LEVEL)
+					{
+						level = SUSTAIN_LEVEL;
+						stage = SUSTAIN;
+					}
+				}
+				else if(stage == RELEASE)
+				{
+					level -= releaseSteps[voice];
+					if(level <= 0)
+					{
+						level = 0;
+						stage = IDLE;
+					}
+				}
+
+				buffer[i] += gain * level * WAVETABLE[phase >>> PHASE_SHIFT];
+				phase += phaseStep;
+			}
+
+			phases[voice] = phase;
+			levels[voice] = level;
+			stages[voice] = stage;
+		}
+	}
+
+	/**
+	 * Renders the next frames of every voice as signed 16-bit little-endian mono PCM.
+	 * @param buffer the buffer of PCM bytes, at least 2 bytes per frame
+	 * @param frames the number of frames to render, at most BLOCK_FRAMES
+	 */
+	public synchronized void render(byte[] buffer, int frames)
+	{
+		render(mix, frames);
+		for(int i = 0; i < frames; i++)
+		{
+			float sample = Math.max(-1.0f, Math.min(1.0f, mix[i]));
+			int value = (int) (sample * Short.MAX_VALUE);
+			buffer[2 * i] = (byte) value;
+			buffer[2 * i + 1] = (byte) (value >> 8);
+		}
+	}
+
+	/**
+	 * Opens the default audio line and starts the thread that renders into it.
+	 * @throws LineUnavailableException if no audio line can be opened
+	 */
+	public synchronized void open() throws LineUnavailableException
+	{
+		if(running)
+		{
+			return;
+		}
+
+		AudioFormat format = SongRenderer.getFormat();
+		line = AudioSystem.getSourceDataLine(format);
+		line.open(format, pcm.length * 8);
+		line.start();
+
+		running = true;
+		audioThread = new Thread(new Runnable()
+		{
+			@Override
+			public void run()
+			{
+				while(running)
+				{
+					render(pcm, BLOCK_FRAMES);
+					line.write(pcm, 0, pcm.length);
+				}
+			}
+		}, "SynthEngine");
+		audioThread.setDaemon(true);
+		audioThread.start();
+	}
+
+	/**
+	 * Plays the note on, note off and all notes off messages and ignores every other message.
+	 * @param message the MIDI message
+	 * @param timeStamp ignored, every message is played right away
+	 */
+	@Override
+	public void send(MidiMessage message, long timeStamp)
+	{
+		if(!(message instanceof ShortMessage))
+		{
+			return;
+		}
+
+		ShortMessage shortMessage = (ShortMessage) message;
+		int command = shortMessage.getCommand();
+		if(command == ShortMessage.NOTE_ON && shortMessage.getData2() > 0)
+		{
+			noteOn(shortMessage.getChannel(), shortMessage.getData1(), shortMessage.getData2());
+		}
+		else if(command == ShortMessage.NOTE_OFF || command == ShortMessage.NOTE_ON)
+		{
+			noteOff(shortMessage.getChannel(), shortMessage.getData1());
+		}
+		else if(command == ShortMessage.CONTROL_CHANGE && shortMessage.getData1() == ALL_NOTES_OFF)
+		{
+			allNotesOff();
+		}
+	}
+
+	/**
+	 * Stops the audio thread and closes the audio line.
+	 */
+	@Override
+	public void close()
+	{
+		Thread thread;
+		synchronized(this)
+		{
+			running = false;
+			thread = audioThread;
+			audioThread = null;
+		}
+		if(thread != null)
+		{
+			try
+			{
+				thread.join();
+			}
+			catch(InterruptedException e)
+			{
+				Thread.currentThread().interrupt();
+			}
+			line.close();
+		}
+	}
+}
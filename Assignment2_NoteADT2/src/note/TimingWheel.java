@@ -0,0 +1,272 @@
+/**
+ *
+ */
+package note;
+
+import java.util.Arrays;
+
+/**
+ * @author Floyd Almazar
+ * @version 1.0
+ *
+ * Class Description: A hashed timing wheel that holds pending events (such as the note off of a sustained note)
+ * 					until their tick comes. The wheel is a ring of slots, one tick per slot, and an event is linked
+ * 					into the slot of its tick, so adding an event and expiring it are both O(1) no matter how many
+ * 					events are pending. An event more than one turn of the wheel away simply stays in its slot until
+ * 					the turn where its tick comes.
+ *
+ * 					The events are kept in parallel primitive arrays with a free list, so no object is created for an
+ * 					event. An event is an int, for example the bytes of a short MIDI message.
+ */
+public class TimingWheel
+{
+	/**
+	 * The callback that receives every event of the wheel when its tick comes.
+	 */
+	public interface Listener
+	{
+		/**
+		 * Called for every event whose tick has come, in order of tick and in the order they were added.
+		 * @param tick the tick of the event
+		 * @param event the event
+		 */
+		void onExpire(long tick, int event);
+	}
+
+	//Constants
+	/**
+	 * The index kept for the end of a list.
+	 */
+	private static final int	NONE = -1;
+
+	//Attributes
+	private final int mask;
+	private final int[] heads;
+	private final int[] tails;
+
+	private long[] ticks;
+	private int[] events;
+	private int[] next;
+	private int free = NONE;
+	private int used;
+	private int size;
+
+	private long current;
+
+	/**
+	 * Constructor for a wheel that starts at tick 0.
+	 * @param slots the number of slots, a power of two; events within this many ticks never share a slot
+	 */
+	public TimingWheel(int slots)
+	{
+		if(slots <= 0 || Integer.bitCount(slots) != 1)
+		{
+			throw new IllegalArgumentException("The number of slots must be a power of two: " + slots);
+		}
+		mask = slots - 1;
+		heads = new int[slots];
+		tails = new int[slots];
+		Arrays.fill(heads, NONE);
+		Arrays.fill(tails, NONE);
+
+		ticks = new long[16];
+		events = new int[ticks.length];
+		next = new int[ticks.length];
+	}
+
+	/**
+	 * Mutator method that adds an event. An event for a tick that has already been expired is expired at the
+	 * next tick.
+	 * @param tick the tick of the event
+	 * @param event the event
+	 */
+	public void schedule(long tick, int event)
+	{
+		tick = Math.max(tick, current + 1);
+		int index = allocate();
+		ticks[index] = tick;
+		events[index] = event;
+		next[index] = NONE;
+
+		int slot = (int) tick & mask;
+		if(tails[slot] == NONE)
+		{
+			heads[slot] = index;
+		}
+		else
+		{
+			next[tails[slot]] = index;
+		}
+		tails[slot] = index;
+		size++;
+	}
+
+	private int allocate()
+	{
+		if(free != NONE)
+		{
+			int index = free;
+			free = next[index];
+			return index;
+		}
+		if(used == ticks.length)
+		{
+			ticks = Arrays.copyOf(ticks, used * 2);
+			events = Arrays.copyOf(events, used * 2);
+			next = Arrays.copyOf(next, used * 2);
+		}
+		return used++;
+	}
+
+	/**
+	 * Expires every event up to and including a tick, in order of tick.
+	 * @param tick the tick the wheel moves to
+	 * @param listener the listener that receives the expired events
+	 * @return the number of expired events
+	 */
+	public int advance(long tick, Listener listener)
+	{
+		int expired = 0;
+		while(current < tick && size > 0)
+		{
+			current++;
+			expired += expire(current, listener);
+		}
+		current = Math.max(current, tick);
+		return expired;
+	}
+
+	/**
+	 * Expires every pending event, in order of tick, and moves the wheel to the tick of the last one.
+	 * @param listener the listener that receives the expired events
+	 * @return the number of expired events
+	 */
+	public int expireAll(Listener listener)
+	{
+		int expired = 0;
+		while(size > 0)
+		{
+			current++;
+			expired += expire(current, listener);
+		}
+		return expired;
+	}
+
+	/**
+	 * Unlinks the events of a tick from its slot and passes them to the listener. The events are unlinked
+	 * first, so the listener can add new events.
+	 */
+	private int expire(long tick, Listener listener)
+	{
+		int slot = (int) tick & mask;
+		int due = NONE;
+		int dueTail = NONE;
+		int previous = NONE;
+		int index = heads[slot];
+		while(index != NONE)
+		{
+			int following = next[index];
+			if(ticks[index] <= tick)
+			{
+				if(previous == NONE)
+				{
+					heads[slot] = following;
+				}
+				else
+				{
+					next[previous] = following;
+				}
+				if(tails[slot] == index)
+				{
+					tails[slot] = previous;
+				}
+
+				next[index] = NONE;
+				if(dueTail == NONE)
+				{
+					due = index;
+				}
+				else
+				{
+					next[dueTail] = index;
+				}
+				dueTail = index;
+			}
+			else
+			{
+				previous = index;
+			}
+			index = following;
+		}
+
+		int expired = 0;
+		while(due != NONE)
+		{
+			int following = next[due];
+			int event = events[due];
+			next[due] = free;
+			free = due;
+			size--;
+			expired++;
+			listener.onExpire(tick, event);
+			due = following;
+		}
+		return expired;
+	}
+
+	/**
+	 * Returns the first tick after the current tick and up to a limit that has an event.
+	 * @param limit the last tick to look at
+	 * @return the tick of the next event, or -1 if there is no event up to the limit
+	 */
+	public long nextTick(long limit)
+	{
+		if(size == 0 || limit <= current)
+		{
+			return -1;
+		}
+
+		if(limit - current <= heads.length)
+		{
+			for(long tick = current + 1; tick <= limit; tick++)
+			{
+				for(int index = heads[(int) tick & mask]; index != NONE; index = next[index])
+				{
+					if(ticks[index] == tick)
+					{
+						return tick;
+					}
+				}
+			}
+			return -1;
+		}
+
+		long first = Long.MAX_VALUE;
+		for(int slot = 0; slot < heads.length; slot++)
+		{
+			for(int index = heads[slot]; index != NONE; index = next[index])
+			{
+				first = Math.min(first, ticks[index]);
+			}
+		}
+		return first <= limit ? first : -1;
+	}
+
+	/**
+	 * Accessor method that returns the last tick that has been expired.
+	 * @return the current tick
+	 */
+	public long getTick()
+	{
+		return current;
+	}
+
+	/**
+	 * Accessor method that returns the number of pending events.
+	 * @return the number of events that have not expired
+	 */
+	public int size()
+	{
+		return size;
+	}
+}
@@ -0,0 +1,210 @@
+/**
+ *
+ */
+package note;
+
+import java.util.List;
+
+/**
+ * @author Floyd Almazar
+ * @version 1.0
+ *
+ * Class Description: Merges the notes of several tracks that play at the same time into one stream ordered by
+ * 					start time. Only the next note of every track is kept, in a binary heap of track indexes, so
+ * 					every note costs O(log k) for k tracks and the merged song is never built as a whole. Notes
+ * 					that start at the same time come out in track order, and in song order inside a track.
+ *
+ * 					Typical use:
+ * 						TrackMerger merger = new TrackMerger(tracks);
+ * 						while(merger.next())
+ * 						{
+ * 							play(merger.getTime(), merger.getMIDIValue(), merger.getDuration());
+ * 						}
+ */
+public class TrackMerger
+{
+	//Attributes
+	private final NoteSequence[] tracks;
+	private final int[] positions;
+	private final long[] times;
+	private final int[] heap;
+	private int heapSize;
+	private final long endTime;
+
+	private int track = -1;
+	private long time;
+	private int midiValue;
+	private int duration;
+
+	/**
+	 * Constructor for a merger positioned before the first note of the tracks.
+	 * @param tracks the tracks, all starting at time 0
+	 */
+	public TrackMerger(List<NoteSequence> tracks)
+	{
+		this.tracks = tracks.toArray(new NoteSequence[tracks.size()]);
+		positions = new int[this.tracks.length];
+		times = new long[this.tracks.length];
+		heap = new int[this.tracks.length];
+
+		long end = 0;
+		for(int i = 0; i < this.tracks.length; i++)
+		{
+			NoteSequence sequence = this.tracks[i];
+			long length = 0;
+			for(int j = 0; j < sequence.size(); j++)
+			{
+				length += sequence.getDuration(j);
+			}
+			end = Math.max(end, length);
+
+			if(skipRests(i))
+			{
+				heap[heapSize] = i;
+				siftUp(heapSize++);
+			}
+		}
+		endTime = end;
+	}
+
+	/**
+	 * Moves to the next note of the merged stream.
+	 * @return true if there is a next note, false at the end of every track
+	 */
+	public boolean next()
+	{
+		if(track >= 0)
+		{
+			times[track] += tracks[track].getDuration(positions[track]);
+			positions[track]++;
+			if(skipRests(track))
+			{
+				siftDown(0);
+			}
+			else
+			{
+				heap[0] = heap[--heapSize];
+				siftDown(0);
+			}
+		}
+
+		if(heapSize == 0)
+		{
+			track = -1;
+			return false;
+		}
+		track = heap[0];
+		time = times[track];
+		midiValue = tracks[track].getMIDIValue(positions[track]);
+		duration = tracks[track].getSoundingDuration(positions[track]);
+		return true;
+	}
+
+	/**
+	 * Moves the position of a track past its rests to its next note.
+	 * @return true if the track has a next note, false at the end of the track
+	 */
+	private boolean skipRests(int index)
+	{
+		NoteSequence sequence = tracks[index];
+		int position = positions[index];
+		while(position < sequence.size() && sequence.isRest(position))
+		{
+			times[index] += sequence.getDuration(position);
+			position++;
+		}
+		positions[index] = position;
+		return position < sequence.size();
+	}
+
+	private boolean isBefore(int first, int second)
+	{
+		return times[first] < times[second] || (times[first] == times[second] && first < second);
+	}
+
+	private void siftUp(int index)
+	{
+		int value = heap[index];
+		while(index > 0)
+		{
+			int parent = (index - 1) >>> 1;
+			if(!isBefore(value, heap[parent]))
+			{
+				break;
+			}
+			heap[index] = heap[parent];
+			index = parent;
+		}
+		heap[index] = value;
+	}
+
+	private void siftDown(int index)
+	{
+		if(heapSize == 0)
+		{
+			return;
+		}
+		int value = heap[index];
+		int half = heapSize >>> 1;
+		while(index < half)
+		{
+			int child = 2 * index + 1;
+			if(child + 1 < heapSize && isBefore(heap[child + 1], heap[child]))
+			{
+				child++;
+			}
+			if(!isBefore(heap[child], value))
+			{
+				break;
+			}
+			heap[index] = heap[child];
+			index = child;
+		}
+		heap[index] = value;
+	}
+
+	/**
+	 * Accessor method that returns the start time of the current note.
+	 * @return the time from the start of the song in milliseconds
+	 */
+	public long getTime()
+	{
+		return time;
+	}
+
+	/**
+	 * Accessor method that returns the track of the current note.
+	 * @return the index of the track in the list given to the constructor
+	 */
+	public int getTrack()
+	{
+		return track;
+	}
+
+	/**
+	 * Accessor method that returns the MIDI value of the current note.
+	 * @return the MIDI value between 0 - 127
+	 */
+	public int getMIDIValue()
+	{
+		return midiValue;
+	}
+
+	/**
+	 * Accessor method that returns how long the current note sounds in milliseconds.
+	 * @return the sounding duration of the note in its track
+	 */
+	public int getDuration()
+	{
+		return duration;
+	}
+
+	/**
+	 * Accessor method that returns the end of the longest track.
+	 * @return the length of the merged song in milliseconds
+	 */
+	public long getEndTime()
+	{
+		return endTime;
+	}
+}
@@ -0,0 +1,205 @@
+/**
+ *
+ */
+package note;
+
+/**
+ * @author Floyd Almazar
+ * @version 1.0
+ *
+ * Class Description: Hands out the voices of the notes that sound at the same time. A voice is a key on one of the
+ * 					16 MIDI channels, and every channel plays many keys at once. The channels are taken in turn
+ * 					(round-robin), so the notes of a chord are spread over different channels, and a channel that
+ * 					already sounds the same key is skipped so that two notes of the same pitch never share a note
+ * 					off. Only when the polyphony limit is reached is the oldest voice taken over. The percussion
+ * 					channel is never used.
+ *
+ * 					A voice is returned as an int that holds its channel, its key and a generation, so a voice
+ * 					that was taken over is not released again by the note off of the note that lost it.
+ */
+public class VoiceAllocator
+{
+	//Constants
+	public static final int		CHANNELS = 16;
+	public static final int		PERCUSSION_CHANNEL = 9;
+	public static final int		DEFAULT_POLYPHONY = 1024;
+
+	/**
+	 * The voice returned when there is no voice.
+	 */
+	public static final int		FREE = -1;
+
+	private static final int	KEYS = 128;
+	private static final int	SLOT_BITS = 11;
+	private static final int	GENERATION_MASK = (1 << 13) - 1;
+
+	//Attributes
+	private final int polyphony;
+	private final long[] ages = new long[CHANNELS * KEYS];
+	private final int[] generations = new int[CHANNELS * KEYS];
+	private long clock = 1;
+	private int nextChannel;
+	private int active;
+	private int replaced = FREE;
+
+	/**
+	 * Constructor for an allocator of DEFAULT_POLYPHONY voices.
+	 */
+	public VoiceAllocator()
+	{
+		this(DEFAULT_POLYPHONY);
+	}
+
+	/**
+	 * Constructor for an allocator with a polyphony limit.
+	 * @param polyphony the largest number of notes that sound at the same time, between 1 - 1920
+	 */
+	public VoiceAllocator(int polyphony)
+	{
+		if(polyphony < 1 || polyphony > (CHANNELS - 1) * KEYS)
+		{
+			throw new IllegalArgumentException("The polyphony must be between 1 - " + (CHANNELS - 1) * KEYS + ": "
+					+ polyphony);
+		}
+		this.polyphony = polyphony;
+	}
+
+	/**
+	 * Mutator method that gives a note a voice.
+	 *
+	 * Precondition: none, the oldest voice is taken over if the polyphony limit is reached.
+	 *
+	 * Postcondition: The note is sounding on the returned voice.
+	 *
+	 * @param midiValue the MIDI value of the note between 0 - 127
+	 * @return the voice of the note
+	 */
+	public int allocate(int midiValue)
+	{
+		replaced = FREE;
+		int slot = -1;
+		for(int i = 0; i < CHANNELS && slot < 0; i++)
+		{
+			int channel = (nextChannel + i) % CHANNELS;
+			if(channel != PERCUSSION_CHANNEL && ages[channel * KEYS + midiValue] == 0)
+			{
+				slot = channel * KEYS + midiValue;
+			}
+		}
+
+		if(slot < 0)
+		{
+			// every channel sounds this key already, the oldest of them is played again
+			slot = oldest(midiValue);
+			replaced = take(slot);
+		}
+		else if(active >= polyphony)
+		{
+			replaced = take(oldest(-1));
+		}
+
+		nextChannel = (slot / KEYS + 1) % CHANNELS;
+		generations[slot] = (generations[slot] + 1) & GENERATION_MASK;
+		ages[slot] = clock++;
+		active++;
+		return voiceOf(slot);
+	}
+
+	/**
+	 * Returns the slot of the oldest sounding voice, of one key or of any key.
+	 */
+	private int oldest(int midiValue)
+	{
+		int oldest = -1;
+		for(int slot = 0; slot < ages.length; slot++)
+		{
+			if(ages[slot] != 0 && (midiValue < 0 || slot % KEYS == midiValue)
+					&& (oldest < 0 || ages[slot] < ages[oldest]))
+			{
+				oldest = slot;
+			}
+		}
+		return oldest;
+	}
+
+	/**
+	 * Frees a sounding slot and returns its voice.
+	 */
+	private int take(int slot)
+	{
+		int voice = voiceOf(slot);
+		ages[slot] = 0;
+		active--;
+		return voice;
+	}
+
+	private int voiceOf(int slot)
+	{
+		return generations[slot] << SLOT_BITS | slot;
+	}
+
+	/**
+	 * Mutator method that frees a voice.
+	 * @param voice a voice returned by allocate
+	 * @return true if the voice was sounding and its note off has to be sent, false if it was already freed or
+	 * 			taken over by another note
+	 */
+	public boolean release(int voice)
+	{
+		int slot = voice & ((1 << SLOT_BITS) - 1);
+		if(voice < 0 || ages[slot] == 0 || voiceOf(slot) != voice)
+		{
+			return false;
+		}
+		take(slot);
+		return true;
+	}
+
+	/**
+	 * Returns the channel of a voice.
+	 * @param voice a voice returned by allocate
+	 * @return the channel between 0 - 15
+	 */
+	public static int channelOf(int voice)
+	{
+		return (voice & ((1 << SLOT_BITS) - 1)) / KEYS;
+	}
+
+	/**
+	 * Returns the MIDI value of the note of a voice.
+	 * @param voice a voice returned by allocate
+	 * @return the MIDI value between 0 - 127
+	 */
+	public static int noteOf(int voice)
+	{
+		return voice % KEYS;
+	}
+
+	/**
+	 * Accessor method that returns the voice that was taken over by the last allocate, whose note has to be
+	 * turned off.
+	 * @return the replaced voice, or FREE if no voice was taken over
+	 */
+	public int getReplacedVoice()
+	{
+		return replaced;
+	}
+
+	/**
+	 * Accessor method that returns the number of notes sounding.
+	 * @return the number of voices in use
+	 */
+	public int getActiveVoices()
+	{
+		return active;
+	}
+
+	/**
+	 * Accessor method that returns the polyphony limit.
+	 * @return the largest number of notes that sound at the same time
+	 */
+	public int getPolyphony()
+	{
+		return polyphony;
+	}
+}
@@ -0,0 +1,347 @@
+/**
+ *
+ */
+package utilities;
+
+import java.io.File;
+import java.io.FileNotFoundException;
+import java.io.IOException;
+import java.io.PrintStream;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+
+import note.NoteADT;
+import utilities.FileReport.Diagnostic;
+
+/**
+ * @author Floyd Almazar
+ * @version 1.0
+ *
+ * Class Description: Checks every song file of a folder and its subfolders in parallel. The files are split
+ * 					between the threads of a work-stealing ForkJoinPool, and every file is parsed with the same rules
+ * 					as the players. The result is written as a machine-readable report with one JSON object per line:
+ * 	-- {"type":"invalid", ...}	one for every invalid entry, with its file, line, column, token and reason
+ * 	-- {"type":"file", ...}		one for every file, with its size, notes, rests, invalid entries and parse time
+ * 	-- {"type":"summary", ...}	one at the end, with the totals and the throughput in tokens per second
+ * 	The files are reported in path order no matter which thread parsed them.
+ */
+public class BatchValidator
+{
+	//Constants
+	/**
+	 * The smallest number of files that are split between two tasks.
+	 */
+	private static final int	SPLIT_THRESHOLD = 2;
+
+	//Attributes
+	private final ForkJoinPool pool;
+	private final List<FileReport> reports = new ArrayList<FileReport>();
+	private long nanos;
+
+	/**
+	 * Constructor for a validator that runs on the common ForkJoinPool.
+	 */
+	public BatchValidator()
+	{
+		this(ForkJoinPool.commonPool());
+	}
+
+	/**
+	 * Constructor for a validator that runs on a ForkJoinPool.
+	 * @param pool the pool that parses the files
+	 */
+	public BatchValidator(ForkJoinPool pool)
+	{
+		this.pool = pool;
+	}
+
+	/**
+	 * This is the MAIN method that checks a folder of song files and writes the report.
+	 * PROGRAM PROCEDURE:
+	 * 	-- The first argument is the folder to check (res if nothing is entered), every .txt file below it is checked
+	 * 	-- The report is written to the file of the second argument, or to the console if there is none
+	 * 	-- The program exits with status 1 if an entry is invalid or a file cannot be read
+	 * @param args argument, the folder and the report file
+	 */
+	public static void main(String[] args)
+	{
+		BatchValidator validator = new BatchValidator();
+		try
+		{
+			validator.validate(new File(args.length > 0 ? args[0] : "res"));
+			if(args.length > 1)
+			{
+				try(PrintStream out = new PrintStream(args[1], "UTF-8"))
+				{
+					validator.writeReport(out);
+				}
+			}
+			else
+			{
+				validator.writeReport(System.out);
+			}
+		}
+		catch (IOException e)
+		{
+			System.out.println(e.getMessage());
+			System.exit(1);
+		}
+
+		if(validator.getInvalid() > 0 || validator.getUnreadable() > 0)
+		{
+			System.exit(1);
+		}
+	}
+
+	/**
+	 * Checks every .txt file of a folder and its subfolders, or a single song file, and keeps the reports of
+	 * the files. The reports of an earlier call are replaced.
+	 * @param root the folder or song file
+	 * @return the number of invalid entries found
+	 * @throws IOException if the folder does not exist or cannot be read
+	 */
+	public long validate(File root) throws IOException
+	{
+		if(!root.exists())
+		{
+			throw new FileNotFoundException(root.getPath() + " does not exist.");
+		}
+		List<File> songs = new ArrayList<File>();
+		collect(root, songs);
+		Collections.sort(songs);
+
+		FileReport[] parsed = new FileReport[songs.size()];
+		long start = System.nanoTime();
+		pool.invoke(new ValidateAll(songs.toArray(new File[songs.size()]), parsed, 0, parsed.length));
+		nanos = System.nanoTime() - start;
+
+		reports.clear();
+		Collections.addAll(reports, parsed);
+		return getInvalid();
+	}
+
+	private static void collect(File file, List<File> songs) throws IOException
+	{
+		if(!file.isDirectory())
+		{
+			songs.add(file);
+			return;
+		}
+		File[] children = file.listFiles();
+		if(children == null)
+		{
+			throw new IOException(file.getPath() + " cannot be read.");
+		}
+		for(File child : children)
+		{
+			if(child.isDirectory() || child.getName().endsWith(".txt"))
+			{
+				collect(child, songs);
+			}
+		}
+	}
+
+	/**
+	 * Parses one song file, with or without tracks. A file that cannot be read is reported with its error.
+	 * @param file the song file
+	 * @return the report of the file
+	 */
+	static FileReport validateFile(File file)
+	{
+		FileReport report = new FileReport(file);
+		try
+		{
+			report.parse(new SongReader());
+		}
+		catch (IOException e)
+		{
+			report.fail(e);
+		}
+		return report;
+	}
+
+	/**
+	 * Writes the report of the last call to validate, one JSON object per line.
+	 * @param out where the report is written
+	 */
+	public void writeReport(PrintStream out)
+	{
+		StringBuilder line = new StringBuilder();
+		for(FileReport report : reports)
+		{
+			String path = quote(report.getFile().getPath());
+			for(Diagnostic diagnostic : report.getDiagnostics())
+			{
+				line.setLength(0);
+				line.append("{\"type\":\"invalid\",\"file\":").append(path)
+					.append(",\"line\":").append(diagnostic.getLine())
+					.append(",\"column\":").append(diagnostic.getColumn())
+					.append(",\"token\":").append(quote(diagnostic.getToken()))
+					.append(",\"status\":").append(diagnostic.getStatus())
+					.append(",\"reason\":").append(quote(NoteADT.statusMessage(diagnostic.getStatus()))).append('}');
+				out.println(line);
+			}
+
+			line.setLength(0);
+			line.append("{\"type\":\"file\",\"file\":").append(path)
+				.append(",\"bytes\":").append(report.getFile().length())
+				.append(",\"notes\":").append(report.getNotes())
+				.append(",\"rests\":").append(report.getRests())
+				.append(",\"invalid\":").append(report.getDiagnostics().size())
+				.append(",\"millis\":").append(String.format(Locale.ROOT, "%.3f", report.getNanos() / 1e6));
+			if(report.getError() != null)
+			{
+				line.append(",\"error\":").append(quote(report.getError()));
+			}
+			out.println(line.append('}'));
+		}
+
+		out.println("{\"type\":\"summary\",\"files\":" + reports.size() + ",\"unreadable\":" + getUnreadable()
+				+ ",\"tokens\":" + getTokens() + ",\"invalid\":" + getInvalid() + ",\"seconds\":"
+				+ String.format(Locale.ROOT, "%.6f", nanos / 1e9) + ",\"tokensPerSecond\":"
+				+ String.format(Locale.ROOT, "%.0f", getTokensPerSecond()) + "}");
+	}
+
+	/**
+	 * Returns a text as a JSON string, with its quotes.
+	 */
+	static String quote(String text)
+	{
+		StringBuilder quoted = new StringBuilder(text.length() + 2).append('"');
+		for(int i = 0; i < text.length(); i++)
+		{
+			char c = text.charAt(i);
+			switch(c)
+			{
+				case '"':
+					quoted.append("\\\"");
+					break;
+				case '\\':
+					quoted.append("\\\\");
+					break;
+				case '\n':
+					quoted.append("\\n");
+					break;
+				case '\r':
+					quoted.append("\\r");
+					break;
+				case '\t':
+					quoted.append("\\t");
+					break;
+				default:
+					if(c < 0x20)
+					{
+						quoted.append(String.format("\\u%04x", (int) c));
+					}
+					else
+					{
+						quoted.append(c);
+					}
+			}
+		}
+		return quoted.append('"').toString();
+	}
+
+	/**
+	 * Accessor method that returns the number of files checked.
+	 * @return the number of files
+	 */
+	public int getFiles()
+	{
+		return reports.size();
+	}
+
+	/**
+	 * Accessor method that returns the number of files that could not be read.
+	 * @return the number of unreadable files
+	 */
+	public int getUnreadable()
+	{
+		int unreadable = 0;
+		for(FileReport report : reports)
+		{
+			if(report.getError() != null)
+			{
+				unreadable++;
+			}
+		}
+		return unreadable;
+	}
+
+	/**
+	 * Accessor method that returns the number of entries found, valid or not.
+	 * @return the number of tokens
+	 */
+	public long getTokens()
+	{
+		long tokens = 0;
+		for(FileReport report : reports)
+		{
+			tokens += report.getNotes() + report.getRests() + report.getDiagnostics().size();
+		}
+		return tokens;
+	}
+
+	/**
+	 * Accessor method that returns the number of invalid entries found.
+	 * @return the number of invalid entries
+	 */
+	public long getInvalid()
+	{
+		long invalid = 0;
+		for(FileReport report : reports)
+		{
+			invalid += report.getDiagnostics().size();
+		}
+		return invalid;
+	}
+
+	/**
+	 * Accessor method that returns the number of entries parsed per second by the whole pool.
+	 * @return the throughput in tokens per second
+	 */
+	public double getTokensPerSecond()
+	{
+		return nanos > 0 ? getTokens() * 1e9 / nanos : 0;
+	}
+
+	/**
+	 * The task that checks a range of files, split in halves until a task has one file.
+	 */
+	private static final class ValidateAll extends RecursiveAction
+	{
+		private static final long serialVersionUID = 1L;
+
+		private final File[] files;
+		private final FileReport[] reports;
+		private final int from;
+		private final int to;
+
+		private ValidateAll(File[] files, FileReport[] reports, int from, int to)
+		{
+			this.files = files;
+			this.reports = reports;
+			this.from = from;
+			this.to = to;
+		}
+
+		@Override
+		protected void compute()
+		{
+			if(to - from < SPLIT_THRESHOLD)
+			{
+				for(int i = from; i < to; i++)
+				{
+					reports[i] = validateFile(files[i]);
+				}
+				return;
+			}
+			int middle = (from + to) >>> 1;
+			invokeAll(new ValidateAll(files, reports, from, middle), new ValidateAll(files, reports, middle, to));
+		}
+	}
+}
@@ -0,0 +1,459 @@
+/**
+ *
+ */
+package utilities;
+
+import java.io.File;
+import java.io.FileFilter;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+import java.util.zip.CRC32;
+
+/**
+ * @author Floyd Almazar
+ * @version 1.0
+ *
+ * Class Description: A compact compiled form of a song file that is kept next to the text file (song1.txt.songc)
+ * 					so that a song does not have to be parsed again every time it is played.
+ *
+ * File Format:
+ * 	-- Header:
+ * 		** int		MAGIC
+ * 		** byte		VERSION
+ * 		** long		size of the text file in bytes
+ * 		** long		time the text file was last modified, in milliseconds
+ * 		** long		CRC32 hash of the text file
+ * 		** int		number of entries
+ * 	-- Entries, every number is a variable length integer (7 bits per byte) and deltas are zigzag encoded:
+ * 		** note:	tag (MIDI value - previous MIDI value) and then (rest - previous rest)
+ * 		** rest:	tag (rest - previous rest)
+ * 		** invalid:	tag (status code), line, column, length of the entry and the characters of the entry
+ * 		** the tag is the value shifted left by 2 bits with the kind of entry in the lowest 2 bits
+ * 	-- The compiled file is used without reading the text file while the size and time of the text file are the
+ * 	same. A text file with a new time is read and hashed, and if the text is the same only the time in the
+ * 	compiled file is updated. A compiled file that cannot be decoded is compiled again.
+ */
+public class CompiledSong
+{
+	//Constants
+	public static final String	EXTENSION = ".songc";
+
+	static final int			MAGIC = 0x534F4E47; // SONG
+	static final byte			VERSION = 3;
+	static final int			HEADER_SIZE = 4 + 1 + 8 + 8 + 8 + 4;
+
+	private static final int	SIZE_OFFSET = 5;
+	private static final int	MODIFIED_OFFSET = 13;
+	private static final int	HASH_OFFSET = 21;
+	private static final int	ENTRIES_OFFSET = HEADER_SIZE - 4;
+
+	private static final int	NOTE = 0;
+	private static final int	REST = 1;
+	private static final int	INVALID = 2;
+
+	/**
+	 * The listener of the check of a compiled file, before its entries are passed to the real listener.
+	 */
+	private static final SongListener CHECK = new SongListener()
+	{
+		@Override
+		public void onNote(int midiValue, int rest)
+		{
+			// only the encoding is checked
+		}
+
+		@Override
+		public void onRest(int rest)
+		{
+			// only the encoding is checked
+		}
+
+		@Override
+		public void onInvalid(int line, int column, CharSequence token, int status)
+		{
+			// only the encoding is checked
+		}
+	};
+
+	/**
+	 * This is the MAIN method that compiles every .txt song file in a folder ahead of time.
+	 * @param args argument, the folder of the songs (res if nothing is entered)
+	 */
+	public static void main(String[] args)
+	{
+		File folder = new File(args.length > 0 ? args[0] : "res");
+		File[] songs = folder.listFiles(new FileFilter()
+		{
+			@Override
+			public boolean accept(File file)
+			{
+				return file.isFile() && file.getName().endsWith(".txt");
+			}
+		});
+
+		if(songs == null)
+		{
+			System.out.println(folder + " is not a folder.");
+			return;
+		}
+
+		Arrays.sort(songs);
+		for(File song : songs)
+		{
+			try
+			{
+				int entries = compile(song);
+				System.out.println(song.getName() + " -> " + compiledFileOf(song).getName() + " (" + entries + " entries)");
+			}
+			catch (IOException e)
+			{
+				System.out.println(song.getName() + " could not be compiled: " + e.getMessage());
+			}
+		}
+	}
+
+	/**
+	 * Returns the file where the compiled form of a song file is kept.
+	 * @param source the text song file
+	 * @return the compiled song file next to it
+	 */
+	public static File compiledFileOf(File source)
+	{
+		return new File(source.getPath() + EXTENSION);
+	}
+
+	/**
+	 * Compiles a song file and writes the compiled form next to it.
+	 * @param source the text song file
+	 * @return the number of entries compiled
+	 * @throws IOException if the song file cannot be read or the compiled file cannot be written
+	 */
+	public static int compile(File source) throws IOException
+	{
+		ByteBuffer compiled = encode(source, source.lastModified(), null);
+		write(compiledFileOf(source), compiled);
+		return compiled.getInt(ENTRIES_OFFSET);
+	}
+
+	/**
+	 * Loads a song and passes every entry to the listener. The compiled file is used when it was compiled from
+	 * the same text; otherwise the text is parsed and the compiled file is written for the next time. If the
+	 * compiled file cannot be written the song is still loaded.
+	 *
+	 * Precondition: The file exists and is smaller than 2 GB.
+	 *
+	 * Postcondition: Every entry of the file has been passed to the listener in order.
+	 *
+	 * @param source the text song file
+	 * @param listener the listener that receives the entries
+	 * @return the number of entries read
+	 * @throws IOException if the song file cannot be read
+	 */
+	public static int load(File source, SongListener listener) throws IOException
+	{
+		SongLoadRecorder recorder = SongLoadRecorder.begin(source, listener);
+		// the time is taken before the text is read, so a change made while reading is seen the next time
+		long modified = source.lastModified();
+		ByteBuffer compiled = readCompiled(compiledFileOf(source));
+		if(compiled == null || compiled.getLong(SIZE_OFFSET) != source.length()
+				|| compiled.getLong(MODIFIED_OFFSET) != modified)
+		{
+			compiled = encode(source, modified, compiled);
+			try
+			{
+				write(compiledFileOf(source), compiled);
+			}
+			catch (IOException e)
+			{
+				// the compiled file is only a cache, the song is played from the encoded buffer instead
+			}
+		}
+		if(recorder == null)
+		{
+			return replay(compiled, listener);
+		}
+		int entries = replay(compiled, recorder);
+		recorder.commit(compiled.getLong(SIZE_OFFSET), entries);
+		return entries;
+	}
+
+	/**
+	 * Reads and hashes the text of a song file and returns its compiled form. The entries of the compiled file
+	 * that was read before are kept when the text has the same size and hash, so a song whose time changed
+	 * without a change of its text is not parsed again.
+	 * @param cached the compiled file that was read before, or null
+	 */
+	private static ByteBuffer encode(File source, long modified, ByteBuffer cached) throws IOException
+	{
+		SongReader reader = new SongReader();
+		try(FileChannel channel = FileChannel.open(source.toPath(), StandardOpenOption.READ))
+		{
+			ByteBuffer contents = reader.load(channel);
+			long size = contents.limit();
+			long hash = hash(contents);
+			if(cached != null && cached.getLong(SIZE_OFFSET) == size && cached.getLong(HASH_OFFSET) == hash)
+			{
+				cached.putLong(MODIFIED_OFFSET, modified);
+				return cached;
+			}
+
+			Encoder encoder = new Encoder();
+			reader.parse(contents, 0, contents.limit(), 1, encoder);
+			return encoder.toBuffer(size, modified, hash);
+		}
+	}
+
+	/**
+	 * Passes every entry of a compiled song to the listener.
+	 * @param compiled the compiled song, including its header
+	 * @param listener the listener that receives the entries
+	 * @return the number of entries read
+	 * @throws IOException if the compiled song is damaged
+	 */
+	static int replay(ByteBuffer compiled, SongListener listener) throws IOException
+	{
+		if(!hasHeader(compiled))
+		{
+			throw new IOException("This is not a compiled song.");
+		}
+
+		// every entry takes at least one byte, so a damaged count cannot make the loop run past the file
+		int entries = compiled.getInt(ENTRIES_OFFSET);
+		if(entries < 0 || entries > compiled.limit() - HEADER_SIZE)
+		{
+			throw new IOException("The compiled song is damaged.");
+		}
+		compiled.position(HEADER_SIZE);
+
+		int midiValue = 0;
+		int rest = SongReader.SHORT_REST;
+		try
+		{
+			for(int i = 0; i < entries; i++)
+			{
+				int tag = readVarint(compiled);
+				int value = unzigzag(tag >>> 2);
+				int kind = tag & 3;
+
+				if(kind == NOTE)
+				{
+					midiValue += value;
+					rest += unzigzag(readVarint(compiled));
+					listener.onNote(midiValue, rest);
+				}
+				else if(kind == REST)
+				{
+					rest += value;
+					listener.onRest(rest);
+				}
+				else if(kind == INVALID)
+				{
+					int line = readVarint(compiled);
+					int column = readVarint(compiled);
+					int length = readVarint(compiled);
+					if(length < 0 || length > compiled.remaining())
+					{
+						throw new IOException("The compiled song is damaged.");
+					}
+					byte[] token = new byte[length];
+					compiled.get(token);
+					listener.onInvalid(line, column, new String(token, StandardCharsets.ISO_8859_1), value);
+				}
+				else
+				{
+					throw new IOException("The compiled song is damaged.");
+				}
+			}
+		}
+		catch (RuntimeException e)
+		{
+			throw new IOException("The compiled song is damaged.", e);
+		}
+		if(compiled.hasRemaining())
+		{
+			throw new IOException("The compiled song is damaged.");
+		}
+		return entries;
+	}
+
+	/**
+	 * Reads the compiled file if it exists and decodes it once without a listener, so a damaged file is found
+	 * before any of its entries are played.
+	 * @return the compiled song, or null if it has to be compiled again
+	 */
+	private static ByteBuffer readCompiled(File file)
+	{
+		long length = file.length();
+		if(length < HEADER_SIZE || length > Integer.MAX_VALUE)
+		{
+			return null;
+		}
+
+		try
+		{
+			ByteBuffer compiled = ByteBuffer.wrap(Files.readAllBytes(file.toPath()));
+			replay(compiled, CHECK);
+			return compiled;
+		}
+		catch (IOException e)
+		{
+			// an unreadable or damaged compiled file is compiled again
+			return null;
+		}
+	}
+
+	/**
+	 * Writes a compiled song into a temporary file of its own first and then moves it over the compiled file in
+	 * one step, so a half written file is never read and two writers of the same song never share a temporary
+	 * file.
+	 */
+	private static void write(File file, ByteBuffer compiled) throws IOException
+	{
+		Path target = file.getAbsoluteFile().toPath();
+		Path temporary = Files.createTempFile(target.getParent(), file.getName() + ".", ".tmp");
+		try
+		{
+			try(FileChannel channel = FileChannel.open(temporary, StandardOpenOption.WRITE))
+			{
+				ByteBuffer contents = compiled.duplicate();
+				contents.rewind();
+				while(contents.hasRemaining())
+				{
+					channel.write(contents);
+				}
+			}
+			try
+			{
+				Files.move(temporary, target, StandardCopyOption.ATOMIC_MOVE);
+			}
+			catch (AtomicMoveNotSupportedException e)
+			{
+				Files.move(temporary, target, StandardCopyOption.REPLACE_EXISTING);
+			}
+		}
+		finally
+		{
+			Files.deleteIfExists(temporary);
+		}
+	}
+
+	private static boolean hasHeader(ByteBuffer compiled)
+	{
+		return compiled.limit() >= HEADER_SIZE && compiled.getInt(0) == MAGIC && compiled.get(4) == VERSION;
+	}
+
+	private static long hash(ByteBuffer contents)
+	{
+		CRC32 crc = new CRC32();
+		crc.update(contents.duplicate());
+		return crc.getValue();
+	}
+
+	private static int readVarint(ByteBuffer compiled)
+	{
+		int value = 0;
+		for(int shift = 0; shift < 32; shift += 7)
+		{
+			byte part = compiled.get();
+			value |= (part & 0x7F) << shift;
+			if(part >= 0)
+			{
+				return value;
+			}
+		}
+		throw new IllegalStateException("The variable length integer is too long.");
+	}
+
+	private static int zigzag(int value)
+	{
+		return (value << 1) ^ (value >> 31);
+	}
+
+	private static int unzigzag(int value)
+	{
+		return (value >>> 1) ^ -(value & 1);
+	}
+
+	/**
+	 * The listener that encodes every entry of a song into the compiled format.
+	 */
+	private static final class Encoder implements SongListener
+	{
+		private byte[] bytes = new byte[1024];
+		private int length;
+		private int entries;
+		private int midiValue = 0;
+		private int rest = SongReader.SHORT_REST;
+
+		@Override
+		public void onNote(int midiValue, int rest)
+		{
+			writeVarint(zigzag(midiValue - this.midiValue) << 2 | NOTE);
+			writeVarint(zigzag(rest - this.rest));
+			this.midiValue = midiValue;
+			this.rest = rest;
+			entries++;
+		}
+
+		@Override
+		public void onRest(int rest)
+		{
+			writeVarint(zigzag(rest - this.rest) << 2 | REST);
+			this.rest = rest;
+			entries++;
+		}
+
+		@Override
+		public void onInvalid(int line, int column, CharSequence token, int status)
+		{
+			writeVarint(zigzag(status) << 2 | INVALID);
+			writeVarint(line);
+			writeVarint(column);
+			writeVarint(token.length());
+			for(int i = 0; i < token.length(); i++)
+			{
+				writeByte(token.charAt(i));
+			}
+			entries++;
+		}
+
+		private void writeVarint(int value)
+		{
+			while((value & ~0x7F) != 0)
+			{
+				writeByte((value & 0x7F) | 0x80);
+				value >>>= 7;
+			}
+			writeByte(value);
+		}
+
+		private void writeByte(int value)
+		{
+			if(length == bytes.length)
+			{
+				bytes = Arrays.copyOf(bytes, length * 2);
+			}
+			bytes[length++] = (byte) value;
+		}
+
+		/**
+		 * Returns the header and the encoded entries, ready to be written or replayed.
+		 */
+		ByteBuffer toBuffer(long size, long modified, long hash)
+		{
+			ByteBuffer compiled = ByteBuffer.allocate(HEADER_SIZE + length);
+			compiled.putInt(MAGIC).put(VERSION).putLong(size).putLong(modified).putLong(hash).putInt(entries);
+			compiled.put(bytes, 0, length);
+			compiled.flip();
+			return compiled;
+		}
+	}
+}
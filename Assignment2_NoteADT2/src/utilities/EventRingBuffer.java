@@ -0,0 +1,408 @@
+/**
+ *
+ */
+package utilities;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * @author Floyd Almazar
+ * @version 1.0
+ *
+ * Class Description: A lock-free ring buffer of note and rest events between one parser thread and one playback
+ * 					thread. Every event is a primitive long, so nothing is allocated per note. The parser can run
+ * 					ahead of the playback by the capacity of the buffer; when the buffer is full the parser waits
+ * 					(back-pressure) until the playback takes an event and wakes it, and every time the playback
+ * 					finds the buffer empty before the end of the song an underrun is counted.
+ *
+ * 					The buffer is a SongListener, so any song loader can be the producer, and replay passes the
+ * 					events to another SongListener on the consumer thread.
+ *
+ * 					Only one thread may put events and only one other thread may take them. A consumer that stops
+ * 					before the end of the song calls stop, so the producer does not wait for room forever.
+ */
+public class EventRingBuffer implements SongListener
+{
+	//Constants
+	public static final int		DEFAULT_CAPACITY = 4096;
+
+	/**
+	 * The event returned by poll when the buffer is empty.
+	 */
+	public static final long	EMPTY = Long.MIN_VALUE;
+
+	/**
+	 * The event returned by poll and take after the last event, once the producer has closed the buffer.
+	 */
+	public static final long	END = -1L;
+
+	private static final int	REST = -1;
+	private static final int	SPINS = 100;
+	private static final long	PARK_NANOS = TimeUnit.MICROSECONDS.toNanos(50);
+
+	/**
+	 * A producer waiting for room is woken by the consumer as soon as an event is taken, the timeout only
+	 * covers a wake-up that was missed.
+	 */
+	private static final long	PRODUCER_PARK_NANOS = TimeUnit.MILLISECONDS.toNanos(1);
+
+	//Attributes
+	private final long[] events;
+	private final int mask;
+	private final AtomicLong head = new AtomicLong();
+	private final AtomicLong tail = new AtomicLong();
+	private volatile boolean closed;
+	private volatile boolean stopped;
+	private volatile Throwable failure;
+	private volatile Thread waitingProducer;
+
+	// only used by the producer
+	private long cachedHead;
+	private long fullWaits;
+
+	// only used by the consumer
+	private long cachedTail;
+	private volatile long underruns;
+
+	/**
+	 * Constructor for a buffer of DEFAULT_CAPACITY events.
+	 */
+	public EventRingBuffer()
+	{
+		this(DEFAULT_CAPACITY);
+	}
+
+	/**
+	 * Constructor for a buffer that holds a number of events, rounded up to a power of two.
+	 * @param capacity the number of events that fit in the buffer
+	 */
+	public EventRingBuffer(int capacity)
+	{
+		if(capacity <= 0 || capacity > 1 << 30)
+		{
+			throw new IllegalArgumentException("The capacity must be between 1 - " + (1 << 30) + ": " + capacity);
+		}
+		int size = 1;
+		while(size < capacity)
+		{
+			size <<= 1;
+		}
+		events = new long[size];
+		mask = size - 1;
+	}
+
+	/**
+	 * Returns the event of a note.
+	 * @param midiValue the MIDI value of the note between 0 - 127
+	 * @param rest the rest after the note in milliseconds
+	 * @return the event
+	 */
+	public static long note(int midiValue, int rest)
+	{
+		return (long) rest << 32 | midiValue;
+	}
+
+	/**
+	 * Returns the event of a rest.
+	 * @param rest the rest in milliseconds
+	 * @return the event
+	 */
+	public static long rest(int rest)
+	{
+		return (long) rest << 32 | (REST & 0xFFFFFFFFL);
+	}
+
+	/**
+	 * Returns whether an event is a rest.
+	 * @param event a note or rest event
+	 * @return boolean value representing whether the event is a rest or not
+	 */
+	public static boolean isRest(long event)
+	{
+		return (int) event == REST;
+	}
+
+	/**
+	 * Returns the MIDI value of a note event.
+	 * @param event a note event
+	 * @return the MIDI value of the note
+	 */
+	public static int midiValueOf(long event)
+	{
+		return (int) event;
+	}
+
+	/**
+	 * Returns the rest of a note or rest event.
+	 * @param event a note or rest event
+	 * @return the rest in milliseconds
+	 */
+	public static int restOf(long event)
+	{
+		return (int) (event >>> 32);
+	}
+
+	/**
+	 * Adds an event if there is room for it. Only called by the producer.
+	 * @param event a note or rest event
+	 * @return true if the event was added, false if the buffer is full
+	 */
+	public boolean offer(long event)
+	{
+		long position = tail.get();
+		if(position - cachedHead >= events.length)
+		{
+			cachedHead = head.get();
+			if(position - cachedHead >= events.length)
+			{
+				return false;
+			}
+		}
+		events[(int) position & mask] = event;
+		tail.lazySet(position + 1);
+		return true;
+	}
+
+	/**
+	 * Adds an event, waiting while the buffer is full. Only called by the producer.
+	 * @param event a note or rest event
+	 * @throws InterruptedException if the producer is interrupted while waiting
+	 * @throws IllegalStateException if the consumer has stopped, with the exception that stopped it as the cause
+	 */
+	public void put(long event) throws InterruptedException
+	{
+		if(offer(event))
+		{
+			return;
+		}
+		fullWaits++;
+		waitingProducer = Thread.currentThread();
+		try
+		{
+			for(int spins = 0; !offer(event); spins++)
+			{
+				if(stopped)
+				{
+					throw new IllegalStateException("The consumer has stopped taking events.", failure);
+				}
+				pause(spins, PRODUCER_PARK_NANOS);
+			}
+		}
+		finally
+		{
+			waitingProducer = null;
+		}
+	}
+
+	/**
+	 * Takes the next event if there is one. Only called by the consumer.
+	 * @return the next event, EMPTY if the buffer is empty, or END after the last event
+	 */
+	public long poll()
+	{
+		long position = head.get();
+		if(position >= cachedTail)
+		{
+			boolean wasClosed = closed;
+			cachedTail = tail.get();
+			if(position >= cachedTail)
+			{
+				return wasClosed ? END : EMPTY;
+			}
+		}
+		long event = events[(int) position & mask];
+		head.lazySet(position + 1);
+		Thread producer = waitingProducer;
+		if(producer != null)
+		{
+			LockSupport.unpark(producer);
+		}
+		return event;
+	}
+
+	/**
+	 * Takes the next event, waiting while the buffer is empty. Only called by the consumer.
+	 * @return the next event, or END after the last event
+	 * @throws InterruptedException if the consumer is interrupted while waiting
+	 */
+	public long take() throws InterruptedException
+	{
+		long event = poll();
+		if(event != EMPTY)
+		{
+			return event;
+		}
+		for(int spins = 0; (event = poll()) == EMPTY; spins++)
+		{
+			pause(spins, PARK_NANOS);
+		}
+		if(event != END)
+		{
+			underruns++;
+		}
+		return event;
+	}
+
+	private static void pause(int spins, long parkNanos) throws InterruptedException
+	{
+		if(Thread.interrupted())
+		{
+			throw new InterruptedException();
+		}
+		if(spins < SPINS)
+		{
+			Thread.yield();
+		}
+		else
+		{
+			LockSupport.parkNanos(parkNanos);
+		}
+	}
+
+	/**
+	 * Mutator method that marks the end of the song. Only called by the producer, after its last event.
+	 */
+	public void close()
+	{
+		closed = true;
+	}
+
+	/**
+	 * Mutator method that marks that the consumer takes no more events, so a producer waiting for room stops
+	 * waiting. Only called by the consumer, when it stops for any reason.
+	 * @param failure the exception that stopped the consumer, or null if it did not fail
+	 */
+	public void stop(Throwable failure)
+	{
+		this.failure = failure;
+		stopped = true;
+		Thread producer = waitingProducer;
+		if(producer != null)
+		{
+			LockSupport.unpark(producer);
+		}
+	}
+
+	/**
+	 * Throws the exception that stopped the consumer on the producer thread. Only called by the producer, after
+	 * the consumer has stopped.
+	 * @throws IllegalStateException if the consumer failed, with its exception as the cause
+	 */
+	public void checkConsumer()
+	{
+		if(failure != null)
+		{
+			throw new IllegalStateException("The consumer has failed.", failure);
+		}
+	}
+
+	/**
+	 * Takes every event until the end of the song and passes it to the listener. Only called by the consumer.
+	 * An interrupt stops the replay before the next event, also when the listener was interrupted while playing.
+	 * @param listener the listener that receives the notes and rests
+	 * @return the number of events passed to the listener
+	 * @throws InterruptedException if the consumer is interrupted
+	 */
+	public int replay(SongListener listener) throws InterruptedException
+	{
+		int count = 0;
+		for(long event = take(); event != END; event = take())
+		{
+			if(Thread.interrupted())
+			{
+				throw new InterruptedException();
+			}
+			if(isRest(event))
+			{
+				listener.onRest(restOf(event));
+			}
+			else
+			{
+				listener.onNote(midiValueOf(event), restOf(event));
+			}
+			count++;
+		}
+		return count;
+	}
+
+	/**
+	 * Adds a note, waiting while the buffer is full. An interrupt stops the wait and stays set, and the note
+	 * is dropped.
+	 */
+	@Override
+	public void onNote(int midiValue, int rest)
+	{
+		putOrDrop(note(midiValue, rest));
+	}
+
+	/**
+	 * Adds a rest, waiting while the buffer is full. An interrupt stops the wait and stays set, and the rest
+	 * is dropped.
+	 */
+	@Override
+	public void onRest(int rest)
+	{
+		putOrDrop(rest(rest));
+	}
+
+	/**
+	 * Invalid entries are not passed to the playback thread.
+	 */
+	@Override
+	public void onInvalid(int line, int column, CharSequence token, int status)
+	{
+		// invalid entries are skipped
+	}
+
+	private void putOrDrop(long event)
+	{
+		try
+		{
+			put(event);
+		}
+		catch(InterruptedException e)
+		{
+			Thread.currentThread().interrupt();
+		}
+	}
+
+	/**
+	 * Accessor method that returns the number of events the buffer holds.
+	 * @return the capacity, a power of two
+	 */
+	public int getCapacity()
+	{
+		return events.length;
+	}
+
+	/**
+	 * Accessor method that returns the number of events waiting in the buffer.
+	 * @return the number of events put and not taken yet
+	 */
+	public int size()
+	{
+		return (int) (tail.get() - head.get());
+	}
+
+	/**
+	 * Accessor method that returns the number of times the producer had to wait for room in the buffer.
+	 * Only read by the producer, or after it has finished.
+	 * @return the number of waits because of back-pressure
+	 */
+	public long getFullWaits()
+	{
+		return fullWaits;
+	}
+
+	/**
+	 * Accessor method that returns the number of times the consumer found the buffer empty before the end of
+	 * the song.
+	 * @return the number of underruns
+	 */
+	public long getUnderruns()
+	{
+		return underruns;
+	}
+}
@@ -0,0 +1,218 @@
+/**
+ *
+ */
+package utilities;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * @author Floyd Almazar
+ * @version 1.0
+ *
+ * Class Description: The check of one song file, with or without tracks: the number of notes and rests, every
+ * 					invalid entry, the time the parsing took and the error if the file could not be read. It is
+ * 					used by both the SongValidator and the BatchValidator, so a file is checked the same way by
+ * 					each of them.
+ */
+final class FileReport
+{
+	//Attributes
+	private final File file;
+	private final List<Diagnostic> diagnostics = new ArrayList<Diagnostic>();
+	private long notes;
+	private long rests;
+	private long nanos;
+	private String error;
+
+	/**
+	 * Constructor for the report of a song file that has not been checked yet.
+	 * @param file the song file
+	 */
+	FileReport(File file)
+	{
+		this.file = file;
+	}
+
+	/**
+	 * Mutator method that parses the song file with the same rules as the players and counts its entries.
+	 * @param reader the reader that parses the file, one per thread
+	 * @throws IOException if the file cannot be read
+	 */
+	void parse(SongReader reader) throws IOException
+	{
+		SongListener listener = new SongListener()
+		{
+			@Override
+			public void onNote(int midiValue, int rest)
+			{
+				notes++;
+			}
+
+			@Override
+			public void onRest(int rest)
+			{
+				rests++;
+			}
+
+			@Override
+			public void onInvalid(int line, int column, CharSequence token, int status)
+			{
+				diagnostics.add(new Diagnostic(line, column, token.toString(), status));
+			}
+		};
+
+		long start = System.nanoTime();
+		try
+		{
+			if(MultiTrackSong.isMultiTrack(file))
+			{
+				// the notes of the tracks are kept by the song instead of being passed to the listener
+				MultiTrackSong song = MultiTrackSong.read(file, listener);
+				for(int i = 0; i < song.getTrackCount(); i++)
+				{
+					for(int j = 0; j < song.getTrack(i).size(); j++)
+					{
+						if(song.getTrack(i).isRest(j))
+						{
+							rests++;
+						}
+						else
+						{
+							notes++;
+						}
+					}
+				}
+			}
+			else
+			{
+				reader.read(file, listener);
+			}
+		}
+		finally
+		{
+			nanos = System.nanoTime() - start;
+		}
+	}
+
+	/**
+	 * Mutator method that records why the file could not be read.
+	 * @param e the error of the file
+	 */
+	void fail(IOException e)
+	{
+		error = e.getMessage() != null ? e.getMessage() : e.toString();
+	}
+
+	/**
+	 * Accessor method that returns the song file.
+	 * @return the song file
+	 */
+	File getFile()
+	{
+		return file;
+	}
+
+	/**
+	 * Accessor method that returns the invalid entries of the file in the order they were found.
+	 * @return the invalid entries
+	 */
+	List<Diagnostic> getDiagnostics()
+	{
+		return Collections.unmodifiableList(diagnostics);
+	}
+
+	/**
+	 * Accessor method that returns the number of valid notes found.
+	 * @return the number of notes
+	 */
+	long getNotes()
+	{
+		return notes;
+	}
+
+	/**
+	 * Accessor method that returns the number of rests found.
+	 * @return the number of rests
+	 */
+	long getRests()
+	{
+		return rests;
+	}
+
+	/**
+	 * Accessor method that returns the time the parsing took in nanoseconds.
+	 * @return the parse time
+	 */
+	long getNanos()
+	{
+		return nanos;
+	}
+
+	/**
+	 * Accessor method that returns why the file could not be read.
+	 * @return the error, or null if the file was read
+	 */
+	String getError()
+	{
+		return error;
+	}
+
+	/**
+	 * One invalid entry of a file.
+	 */
+	static final class Diagnostic
+	{
+		private final int line;
+		private final int column;
+		private final String token;
+		private final int status;
+
+		private Diagnostic(int line, int column, String token, int status)
+		{
+			this.line = line;
+			this.column = column;
+			this.token = token;
+			this.status = status;
+		}
+
+		/**
+		 * Accessor method that returns the line of the entry.
+		 * @return the line
+		 */
+		int getLine()
+		{
+			return line;
+		}
+
+		/**
+		 * Accessor method that returns the column of the entry.
+		 * @return the column
+		 */
+		int getColumn()
+		{
+			return column;
+		}
+
+		/**
+		 * Accessor method that returns the text of the entry.
+		 * @return the entry
+		 */
+		String getToken()
+		{
+			return token;
+		}
+
+		/**
+		 * Accessor method that returns why the entry is invalid, one of the status codes of NoteADT.
+		 * @return the status
+		 */
+		int getStatus()
+		{
+			return status;
+		}
+	}
+}
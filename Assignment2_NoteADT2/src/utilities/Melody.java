@@ -3,11 +3,13 @@
  */
 package utilities;
 import java.io.IOException;
+import java.util.Arrays;
 
 import javax.swing.JOptionPane;
 import exception.InvalidNoteException;
 import note.Note;
 import note.Piano;
+import note.PlaybackLog;
 
 /**
  * @author Floyd Almazar
@@ -52,83 +54,106 @@ public class Melody
 	 * 					to be added in the input note
 	 * 					** additional items: 
 	 * 						** a counter variable to monitor how many semi-tones has been added.
+	 * 					** the notes are printed in batches by the background thread of a PlaybackLog so that printing
+	 * 					does not delay the notes, or not at all if -quiet is entered after the note
+	 * 		-- The PlaybackLog and the Piano are closed at the end, also when the note is invalid, and the number
+	 * 		of lines the PlaybackLog dropped is displayed
 	 * @param args the argument where the inputs will be entered 
-	 * in order to get next 12 notes starting at the entered note
+	 * in order to get next 12 notes starting at the entered note, followed by -quiet to play the notes without
+	 * printing them
 	 */
 	public static void main(String[] args)
 	{
 		try
 		{
 			Piano notePlayer = new Piano();
-			Note note = null;
+			PlaybackLog log = Arrays.asList(args).contains("-quiet") ? PlaybackLog.quiet()
+					: PlaybackLog.async(System.out, PlaybackLog.DEFAULT_CAPACITY);
+			try
+			{
+				Note note = null;
 
-			int rest = 200;
-			char minusSign = '-';
-			String dot = ".";
-			String twoHundredMilli = "r";
-			String fourHundredMilli = "r-";
+				int rest = 200;
+				char minusSign = '-';
+				String dot = ".";
+				String twoHundredMilli = "r";
+				String fourHundredMilli = "r-";
 			
-			if(args.length == 0)
-			{
-				JOptionPane.showMessageDialog(null, "Ooops! You forgot to put inputs on the Command Line/Argument!"
-						+ "\n\nTo put values in argument, follow this steps:"
-						+ "\n\nIf you are using Eclipse:"
-						+ "\n1. Right-click on Melody.java"
-						+ "\n2. Hover on 'Run As' and choose 'Run Configurations..."
-						+ "\n***A window will pop up***"
-						+ "\n3. Click 'Arguments' tab"
-						+ "\n4. Under 'Program arguments' type the desired input."
-						+ "\n\nIf you are using the comand line:"
-						+ "\nType the desired input after the Melody.java and hit enter"
-						+ "\n\n\n                                          HAVE FUN!!!");
-				throw new IndexOutOfBoundsException();
-			}
-			else
-			{
-				if(args[0].charAt(args[0].length()-1) == minusSign)
+				if(args.length == 0)
 				{
-					rest = 400;
-					args[0] = args[0].substring(0, args[0].length()-1);
+					JOptionPane.showMessageDialog(null, "Ooops! You forgot to put inputs on the Command Line/Argument!"
+							+ "\n\nTo put values in argument, follow this steps:"
+							+ "\n\nIf you are using Eclipse:"
+							+ "\n1. Right-click on Melody.java"
+							+ "\n2. Hover on 'Run As' and choose 'Run Configurations..."
+							+ "\n***A window will pop up***"
+							+ "\n3. Click 'Arguments' tab"
+							+ "\n4. Under 'Program arguments' type the desired input."
+							+ "\n\nIf you are using the comand line:"
+							+ "\nType the desired input after the Melody.java and hit enter"
+							+ "\n\n\n                                          HAVE FUN!!!");
+					throw new IndexOutOfBoundsException();
 				}
-				
-				if(!args[0].equals(twoHundredMilli))
+				else
 				{
-					if(args[0].contains(dot))
-					{
-						note = new Note(Float.parseFloat(args[0]));
-					}
-					else if(Character.isLetter(args[0].charAt(0)))
+					if(args[0].charAt(args[0].length()-1) == minusSign)
 					{
-						note = new Note(args[0]);
+						rest = 400;
+						args[0] = args[0].substring(0, args[0].length()-1);
 					}
-					else if(!args[0].equals(fourHundredMilli))
+				
+					if(!args[0].equals(twoHundredMilli))
 					{
-						note = new Note(Integer.parseInt(args[0]));
-					}
+						if(args[0].contains(dot))
+						{
+							note = Note.valueOf(Float.parseFloat(args[0]));
+						}
+						else if(Character.isLetter(args[0].charAt(0)))
+						{
+							note = Note.valueOf(args[0]);
+						}
+						else if(!args[0].equals(fourHundredMilli))
+						{
+							note = Note.valueOf(Note.CONCERT_PITCH_MIDI + Integer.parseInt(args[0]));
+						}
 	
-					System.out.println("\nArgs Input Value: " + args[0]+"\n");
-					System.out.println("Display Notes:");
+						System.out.println("\nArgs Input Value: " + args[0]+"\n");
+						System.out.println("Display Notes:");
 					
-					int one_octave = 12;
-					Note currentNote = new Note(note.getMIDIValue() - Note.CONCERT_PITCH_MIDI + one_octave);
+						int one_octave = 12;
+						Note currentNote = note.transpose(one_octave);
 					
-					int counter = 0;
-					while(note.compareTo(currentNote) <= 0)
+						int counter = 0;
+						while(note.compareTo(currentNote) <= 0)
+						{
+							log.println(counter+". " + "Note: " + note.getMIDIValue() + " || Rest: " + rest);
+							log.println("******************************");
+							notePlayer.playSong(rest, note);
+							note = note.transpose(1);
+							counter++;
+						}
+					}
+					else
 					{
-						System.out.println(counter+". " + "Note: " + note.getMIDIValue() + " || Rest: " + rest);
-						System.out.println("******************************");
-						notePlayer.playSong(rest, note);
-						note = new Note(note.getMIDIValue() - Note.CONCERT_PITCH_MIDI + 1);
-						counter++;
+						System.out.println("No notes to has been entered.");
+						notePlayer.noteRest(rest);
 					}
 				}
-				else
+			}
+			finally
+			{
+				log.close();
+				if(log.getDropped() > 0)
 				{
-					System.out.println("No notes to has been entered.");
-					notePlayer.noteRest(rest);
+					System.out.println(log.getDropped() + " lines of the log were dropped because the queue was full");
 				}
+				notePlayer.close();
 			}
 		}
+		catch (InterruptedException e)
+		{
+			Thread.currentThread().interrupt();
+		}
 		catch (InvalidNoteException error)
 		{
 			JOptionPane.showMessageDialog(null, "WAIT A MINUTE!!!\n"+args[0]+" is INVALID!");
@@ -0,0 +1,232 @@
+/**
+ * 
+ */
+package utilities;
+
+import java.io.BufferedInputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+import note.NoteSequence;
+import note.TrackMerger;
+
+/**
+ * @author Floyd Almazar
+ * @version 1.0
+ * 
+ * Class Description: A song file with several tracks that play at the same time, for example a bass line and a
+ * 					melody. Every track starts with a header line holding its name in square brackets and the
+ * 					entries of the track follow in the usual format:
+ * 						[bass]
+ * 						c2-,r,g2-,r
+ * 						[melody]
+ * 						e4,g4,c5+e5-,r
+ * 					A file is a multi-track song when its first line that is not blank is a header, so only the
+ * 					start of a file is read to find out. Entries before the first header are read as a track without
+ * 					a name. Every track is read into its own NoteSequence and the tracks are merged by start time
+ * 					with a TrackMerger when they are played.
+ */
+public class MultiTrackSong
+{
+	//Attributes
+	private final List<String> names = new ArrayList<String>();
+	private final List<NoteSequence> tracks = new ArrayList<NoteSequence>();
+	
+	/**
+	 * Checks if a song file starts with a track header. The file is read up to its first character that is not
+	 * white space, so a song without tracks is not read twice.
+	 * @param file the song file
+	 * @return boolean value representing whether the file is a multi-track song or not
+	 * @throws IOException if the file cannot be read
+	 */
+	public static boolean isMultiTrack(File file) throws IOException
+	{
+		try(InputStream in = new BufferedInputStream(new FileInputStream(file)))
+		{
+			int character = in.read();
+			while(character == ' ' || character == '\t' || character == '\r' || character == '\n')
+			{
+				character = in.read();
+			}
+			return character == '[';
+		}
+	}
+	
+	/**
+	 * Reads every track of a song file.
+	 * 
+	 * Precondition: The file exists and is smaller than 2 GB.
+	 * 
+	 * Postcondition: Every valid entry is in its track and every invalid entry has been passed to the listener.
+	 * 
+	 * @param file the song file
+	 * @param invalidEntries the listener whose onInvalid method receives the invalid entries of every track
+	 * @return the tracks of the song
+	 * @throws IOException if the file cannot be read
+	 */
+	public static MultiTrackSong read(File file, SongListener invalidEntries) throws IOException
+	{
+		MultiTrackSong song = new MultiTrackSong();
+		SongReader reader = new SongReader();
+		SongLoadRecorder recorder = SongLoadRecorder.begin(file, invalidEntries);
+		if(recorder != null)
+		{
+			invalidEntries = recorder;
+		}
+		try(FileChannel channel = FileChannel.open(file.toPath(), StandardOpenOption.READ))
+		{
+			ByteBuffer contents = reader.load(channel);
+			String name = null;
+			int trackStart = 0;
+			int trackLine = 1;
+			int line = 1;
+			for(int i = 0; i < contents.limit(); line++)
+			{
+				int next = nextLine(contents, i);
+				if(contents.get(i) == '[')
+				{
+					song.addTrack(reader, contents, trackStart, i, trackLine, name, invalidEntries);
+					name = headerName(contents, i, next);
+					trackStart = next;
+					trackLine = line + 1;
+				}
+				i = next;
+			}
+			song.addTrack(reader, contents, trackStart, contents.limit(), trackLine, name, invalidEntries);
+			if(recorder != null)
+			{
+				long entries = 0;
+				for(NoteSequence track : song.tracks)
+				{
+					entries += track.size();
+				}
+				recorder.commit(contents.limit(), entries + recorder.getInvalid());
+			}
+		}
+		return song;
+	}
+	
+	/**
+	 * Reads the entries of one track, skipping a track without a name and without entries.
+	 */
+	private void addTrack(SongReader reader, ByteBuffer contents, int start, int end, int firstLine, String name,
+			final SongListener invalidEntries)
+	{
+		SequenceListener track = new SequenceListener()
+		{
+			@Override
+			public void onInvalid(int line, int column, CharSequence token, int status)
+			{
+				invalidEntries.onInvalid(line, column, token, status);
+			}
+		};
+		reader.parse(contents, start, end, firstLine, track);
+		if(name != null || track.getSequence().size() > 0)
+		{
+			names.add(name == null ? "" : name);
+			tracks.add(track.getSequence());
+		}
+	}
+	
+	/**
+	 * Returns the index after the line break at the end of the line that starts at an index.
+	 */
+	private static int nextLine(ByteBuffer contents, int start)
+	{
+		for(int i = start; i < contents.limit(); i++)
+		{
+			byte character = contents.get(i);
+			if(character == '\n')
+			{
+				return i + 1;
+			}
+			else if(character == '\r')
+			{
+				return i + 1 < contents.limit() && contents.get(i + 1) == '\n' ? i + 2 : i + 1;
+			}
+		}
+		return contents.limit();
+	}
+	
+	/**
+	 * Returns the name between the square brackets of a header line.
+	 */
+	private static String headerName(ByteBuffer contents, int start, int end)
+	{
+		int nameEnd = end;
+		while(nameEnd > start + 1 && contents.get(nameEnd - 1) != ']')
+		{
+			nameEnd--;
+		}
+		if(nameEnd == start + 1)
+		{
+			nameEnd = end;
+		}
+		else
+		{
+			nameEnd--;
+		}
+		byte[] name = new byte[nameEnd - start - 1];
+		for(int i = 0; i < name.length; i++)
+		{
+			name[i] = contents.get(start + 1 + i);
+		}
+		return new String(name, StandardCharsets.UTF_8).trim();
+	}
+	
+	/**
+	 * Accessor method that returns the number of tracks.
+	 * @return the number of tracks
+	 */
+	public int getTrackCount()
+	{
+		return tracks.size();
+	}
+	
+	/**
+	 * Accessor method that returns the name of a track.
+	 * @param index the index of the track
+	 * @return the name in the header of the track, or an empty String for the entries before the first header
+	 */
+	public String getName(int index)
+	{
+		return names.get(index);
+	}
+	
+	/**
+	 * Accessor method that returns the notes and rests of a track.
+	 * @param index the index of the track
+	 * @return the track
+	 */
+	public NoteSequence getTrack(int index)
+	{
+		return tracks.get(index);
+	}
+	
+	/**
+	 * Accessor method that returns every track in order.
+	 * @return an unmodifiable list of the tracks
+	 */
+	public List<NoteSequence> getTracks()
+	{
+		return Collections.unmodifiableList(tracks);
+	}
+	
+	/**
+	 * Returns a new merger positioned before the first note of the tracks.
+	 * @return the merged notes of every track
+	 */
+	public TrackMerger merge()
+	{
+		return new TrackMerger(tracks);
+	}
+}
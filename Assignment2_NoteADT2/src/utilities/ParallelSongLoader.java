@@ -0,0 +1,261 @@
+/**
+ *
+ */
+package utilities;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+
+/**
+ * @author Floyd Almazar
+ * @version 1.0
+ *
+ * Class Description: A loader for very large song files that memory-maps the file, splits it into chunks at line
+ * 					breaks and parses the chunks at the same time on a ForkJoinPool. The entries of every chunk are
+ * 					kept in primitive arrays and passed to the SongListener in the order of the file, with the
+ * 					same line numbers as the SongReader would give.
+ */
+public class ParallelSongLoader
+{
+	//Constants
+	/**
+	 * Files smaller than this are read by a single SongReader on the calling thread.
+	 */
+	static final long			PARALLEL_THRESHOLD = 1 << 20;
+
+	/**
+	 * The smallest chunk given to one task.
+	 */
+	static final int			MIN_CHUNK_SIZE = 1 << 16;
+
+	//Attributes
+	private final ForkJoinPool pool;
+
+	/**
+	 * Constructor for a loader that parses on the common ForkJoinPool.
+	 */
+	public ParallelSongLoader()
+	{
+		this(ForkJoinPool.commonPool());
+	}
+
+	/**
+	 * Constructor for a loader that parses on the given pool.
+	 * @param pool the pool that parses the chunks
+	 */
+	public ParallelSongLoader(ForkJoinPool pool)
+	{
+		this.pool = pool;
+	}
+
+	/**
+	 * Loads a whole song file and passes every entry to the listener.
+	 *
+	 * Precondition: The file exists and is smaller than 2 GB.
+	 *
+	 * Postcondition: Every entry of the file has been passed to the listener in order, on the calling thread.
+	 *
+	 * @param file the song file
+	 * @param listener the listener that receives the entries
+	 * @return the number of entries read
+	 * @throws IOException if the file cannot be read
+	 */
+	public int load(File file, SongListener listener) throws IOException
+	{
+		try(FileChannel channel = FileChannel.open(file.toPath(), StandardOpenOption.READ))
+		{
+			long size = channel.size();
+			if(size < PARALLEL_THRESHOLD)
+			{
+				return new SongReader().read(file, listener);
+			}
+			else if(size > Integer.MAX_VALUE)
+			{
+				throw new IOException("The song file is too large to be read.");
+			}
+
+			SongLoadRecorder recorder = SongLoadRecorder.begin(file, listener);
+			if(recorder != null)
+			{
+				listener = recorder;
+			}
+			ByteBuffer contents = channel.map(FileChannel.MapMode.READ_ONLY, 0, size);
+			List<Chunk> chunks = split(contents, (int) size, pool.getParallelism());
+			pool.invoke(new ParseAll(chunks));
+
+			int entries = 0;
+			int firstLine = 1;
+			for(Chunk chunk : chunks)
+			{
+				entries += chunk.replay(firstLine, listener);
+				firstLine += chunk.lineBreaks;
+			}
+			if(recorder != null)
+			{
+				recorder.commit(size, entries);
+			}
+			return entries;
+		}
+	}
+
+	/**
+	 * Splits the contents into about four chunks per thread. Every chunk ends right after a line break,
+	 * so no entry and no \r\n pair is split between two chunks.
+	 */
+	static List<Chunk> split(ByteBuffer contents, int size, int parallelism)
+	{
+		int chunkSize = Math.max(MIN_CHUNK_SIZE, size / (parallelism * 4));
+		List<Chunk> chunks = new ArrayList<Chunk>();
+
+		int start = 0;
+		while(start < size)
+		{
+			int end = (int) Math.min((long) start + chunkSize, size);
+			while(end < size && contents.get(end - 1) != '\n')
+			{
+				end++;
+			}
+			chunks.add(new Chunk(contents, start, end));
+			start = end;
+		}
+		return chunks;
+	}
+
+	/**
+	 * The task that parses every chunk at the same time.
+	 */
+	private static final class ParseAll extends RecursiveAction
+	{
+		private static final long serialVersionUID = 1L;
+
+		private final List<Chunk> chunks;
+
+		ParseAll(List<Chunk> chunks)
+		{
+			this.chunks = chunks;
+		}
+
+		@Override
+		protected void compute()
+		{
+			invokeAll(chunks);
+		}
+	}
+
+	/**
+	 * One chunk of the file and the entries parsed from it. Notes are kept as their MIDI value, rests as REST
+	 * and invalid entries as their status code, with the details of invalid entries kept on the side.
+	 */
+	static final class Chunk extends RecursiveAction implements SongListener
+	{
+		private static final long serialVersionUID = 1L;
+		private static final int REST = Integer.MIN_VALUE;
+
+		private final ByteBuffer contents;
+		private final int start;
+		private final int end;
+
+		private int[] values = new int[256];
+		private int[] rests = new int[256];
+		private int count;
+		private final List<Invalid> invalids = new ArrayList<Invalid>();
+		private int lineBreaks;
+
+		Chunk(ByteBuffer contents, int start, int end)
+		{
+			this.contents = contents;
+			this.start = start;
+			this.end = end;
+		}
+
+		@Override
+		protected void compute()
+		{
+			SongReader reader = new SongReader();
+			reader.parse(contents, start, end, 1, this);
+			lineBreaks = reader.getLine() - 1;
+		}
+
+		/**
+		 * Passes the entries of this chunk to the listener, with line numbers counted from firstLine.
+		 */
+		int replay(int firstLine, SongListener listener)
+		{
+			int invalid = 0;
+			for(int i = 0; i < count; i++)
+			{
+				int value = values[i];
+				if(value >= 0)
+				{
+					listener.onNote(value, rests[i]);
+				}
+				else if(value == REST)
+				{
+					listener.onRest(rests[i]);
+				}
+				else
+				{
+					Invalid entry = invalids.get(invalid++);
+					listener.onInvalid(firstLine + entry.line - 1, entry.column, entry.token, value);
+				}
+			}
+			return count;
+		}
+
+		private void add(int value, int rest)
+		{
+			if(count == values.length)
+			{
+				values = Arrays.copyOf(values, count * 2);
+				rests = Arrays.copyOf(rests, count * 2);
+			}
+			values[count] = value;
+			rests[count] = rest;
+			count++;
+		}
+
+		@Override
+		public void onNote(int midiValue, int rest)
+		{
+			add(midiValue, rest);
+		}
+
+		@Override
+		public void onRest(int rest)
+		{
+			add(REST, rest);
+		}
+
+		@Override
+		public void onInvalid(int line, int column, CharSequence token, int status)
+		{
+			add(status, 0);
+			invalids.add(new Invalid(line, column, token.toString()));
+		}
+	}
+
+	/**
+	 * The position and characters of an invalid entry, with the line counted from the start of its chunk.
+	 */
+	private static final class Invalid
+	{
+		final int line;
+		final int column;
+		final String token;
+
+		Invalid(int line, int column, String token)
+		{
+			this.line = line;
+			this.column = column;
+			this.token = token;
+		}
+	}
+}
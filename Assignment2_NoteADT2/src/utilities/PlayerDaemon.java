@@ -0,0 +1,302 @@
+/**
+ *
+ */
+package utilities;
+
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.PrintWriter;
+import java.net.InetAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.net.SocketException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+
+import javax.sound.midi.InvalidMidiDataException;
+import javax.sound.midi.MidiUnavailableException;
+import javax.sound.midi.Sequence;
+
+import note.NoteSequence;
+import note.Piano;
+
+/**
+ * @author Floyd Almazar
+ * @version 1.0
+ *
+ * Class Description: A player that keeps one Piano and its sequencer open and takes commands from other programs
+ * 					over a local TCP socket, so a song starts right away instead of waiting for the synthesizer to
+ * 					open every time. The socket only accepts connections from this computer and every connection
+ * 					is served by its own thread.
+ *
+ * Protocol: one command per line, and one line of answer per command (OK ... or ERROR ...):
+ * 	-- PLAY <song>		stops the song that is playing and plays the song
+ * 	-- QUEUE <song>		plays the song after the songs that are playing or queued
+ * 	-- STOP				stops the song that is playing and removes the queued songs
+ * 	-- STATUS			tells if a song is playing and how many songs are queued
+ * 	-- QUIT				closes the connection
+ * 	-- <song> is the path of a song file on this computer, or else the entries of a song written inline
+ * 	(for example PLAY c4,e4,g4-,r,c4+e4+g4-)
+ * 	A line that is not one of these commands is answered with ERROR and closes the connection, so that a
+ * 	program that speaks another protocol (for example a web browser sending an HTTP request to the port) cannot
+ * 	get a command through. A song file is only read; no compiled file is written next to it.
+ */
+public class PlayerDaemon
+{
+	//Constants
+	public static final int		DEFAULT_PORT = 7070;
+
+	//Attributes
+	private final Piano piano;
+	private final ServerSocket server;
+	private volatile boolean running = true;
+
+	/**
+	 * Constructor for a daemon that listens on a local port.
+	 * @param piano the piano that plays the songs
+	 * @param port the port on the loopback address, or 0 for any free port
+	 * @throws IOException if the port cannot be opened
+	 */
+	public PlayerDaemon(Piano piano, int port) throws IOException
+	{
+		this.piano = piano;
+		server = new ServerSocket(port, 50, InetAddress.getLoopbackAddress());
+	}
+
+	/**
+	 * This is the MAIN method that opens the Piano once and serves commands until the program is stopped.
+	 * @param args argument, the port to listen on (7070 if nothing is entered)
+	 */
+	public static void main(String[] args)
+	{
+		try
+		{
+			int port = args.length > 0 ? Integer.parseInt(args[0]) : DEFAULT_PORT;
+			Piano piano = new Piano();
+			piano.openSequencer();
+			PlayerDaemon daemon = new PlayerDaemon(piano, port);
+			System.out.println("Listening on " + InetAddress.getLoopbackAddress().getHostAddress() + ":"
+					+ daemon.getPort());
+			daemon.serve();
+		}
+		catch (IOException | MidiUnavailableException e)
+		{
+			e.printStackTrace();
+		}
+	}
+
+	/**
+	 * Accessor method that returns the port the daemon listens on.
+	 * @return the local port
+	 */
+	public int getPort()
+	{
+		return server.getLocalPort();
+	}
+
+	/**
+	 * Accepts connections until the daemon is closed and serves every connection on its own thread.
+	 * @throws IOException if the socket fails while the daemon is running
+	 */
+	public void serve() throws IOException
+	{
+		while(running)
+		{
+			final Socket client;
+			try
+			{
+				client = server.accept();
+			}
+			catch (SocketException e)
+			{
+				if(!running)
+				{
+					return;
+				}
+				throw e;
+			}
+
+			Thread connection = new Thread(new Runnable()
+			{
+				@Override
+				public void run()
+				{
+					serve(client);
+				}
+			}, "PlayerDaemon " + client.getPort());
+			connection.setDaemon(true);
+			connection.start();
+		}
+	}
+
+	private void serve(Socket client)
+	{
+		try(Socket socket = client;
+			BufferedReader in = new BufferedReader(new InputStreamReader(socket.getInputStream(), StandardCharsets.UTF_8));
+			PrintWriter out = new PrintWriter(socket.getOutputStream(), true))
+		{
+			String line;
+			while((line = in.readLine()) != null)
+			{
+				if(line.trim().equalsIgnoreCase("QUIT"))
+				{
+					out.println("OK bye");
+					return;
+				}
+				out.println(execute(line));
+				if(!isCommand(line))
+				{
+					return;
+				}
+			}
+		}
+		catch (IOException e)
+		{
+			// the client closed the connection
+		}
+	}
+
+	/**
+	 * Returns whether a line starts with one of the commands of the protocol.
+	 */
+	static boolean isCommand(String line)
+	{
+		String command = line.trim();
+		int space = command.indexOf(' ');
+		if(space >= 0)
+		{
+			command = command.substring(0, space);
+		}
+		for(String known : new String[] { "PLAY", "QUEUE", "STOP", "STATUS", "QUIT" })
+		{
+			if(command.equalsIgnoreCase(known))
+			{
+				return true;
+			}
+		}
+		return false;
+	}
+
+	/**
+	 * Runs one command of the protocol.
+	 * @param line the command
+	 * @return the answer to the command
+	 */
+	String execute(String line)
+	{
+		String command = line.trim();
+		String argument = "";
+		int space = command.indexOf(' ');
+		if(space >= 0)
+		{
+			argument = command.substring(space + 1).trim();
+			command = command.substring(0, space);
+		}
+
+		try
+		{
+			if(command.equalsIgnoreCase("PLAY") || command.equalsIgnoreCase("QUEUE"))
+			{
+				if(argument.isEmpty())
+				{
+					return "ERROR " + command.toUpperCase() + " needs a song file or the entries of a song";
+				}
+				Loaded song = load(argument);
+				if(song.entries == 0)
+				{
+					return "ERROR the song has no notes (" + song.invalid + " invalid entries)";
+				}
+				if(command.equalsIgnoreCase("PLAY"))
+				{
+					piano.playSequence(song.sequence);
+				}
+				else
+				{
+					piano.queueSequence(song.sequence);
+				}
+				return "OK " + song.entries + " entries, " + song.invalid + " invalid entries";
+			}
+			else if(command.equalsIgnoreCase("STOP"))
+			{
+				piano.stopSequence();
+				return "OK stopped";
+			}
+			else if(command.equalsIgnoreCase("STATUS"))
+			{
+				return "OK " + (piano.isSequencePlaying() ? "playing" : "idle") + ", " + piano.getQueuedSequences()
+						+ " queued";
+			}
+			return "ERROR unknown command: " + command;
+		}
+		catch (IOException | InvalidMidiDataException | MidiUnavailableException e)
+		{
+			return "ERROR " + e.getMessage();
+		}
+	}
+
+	/**
+	 * Reads a song file, or the entries of a song written inline if there is no such file. The file is parsed
+	 * with a SongReader instead of CompiledSong, so the daemon never writes a compiled file next to a file of a
+	 * client. The tracks of a multi-track song are turned into one sequence in which every note keeps its own
+	 * duration.
+	 */
+	private static Loaded load(String song) throws IOException, InvalidMidiDataException
+	{
+		final Loaded loaded = new Loaded();
+		NoteSequence notes = new NoteSequence();
+		SequenceListener listener = new SequenceListener(notes)
+		{
+			@Override
+			public void onInvalid(int line, int column, CharSequence token, int status)
+			{
+				loaded.invalid++;
+			}
+		};
+
+		File file = new File(song);
+		if(!file.isFile())
+		{
+			ByteBuffer entries = ByteBuffer.wrap(song.getBytes(StandardCharsets.UTF_8));
+			new SongReader().parse(entries, 0, entries.limit(), 1, listener);
+		}
+		else if(MultiTrackSong.isMultiTrack(file))
+		{
+			MultiTrackSong tracks = MultiTrackSong.read(file, listener);
+			for(NoteSequence track : tracks.getTracks())
+			{
+				loaded.entries += track.size();
+			}
+			loaded.sequence = Piano.toSequence(tracks.merge());
+			return loaded;
+		}
+		else
+		{
+			new SongReader().read(file, listener);
+		}
+		loaded.entries = notes.size();
+		loaded.sequence = Piano.toSequence(notes);
+		return loaded;
+	}
+
+	/**
+	 * Mutator method that stops accepting connections. The connections that are open are served until they end.
+	 * @throws IOException if the socket cannot be closed
+	 */
+	public void close() throws IOException
+	{
+		running = false;
+		server.close();
+	}
+
+	/**
+	 * The MIDI sequence of a song, its number of entries and the number of invalid entries that were skipped.
+	 */
+	private static final class Loaded
+	{
+		private Sequence sequence;
+		private int entries;
+		private int invalid;
+	}
+}
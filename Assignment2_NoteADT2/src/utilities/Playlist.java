@@ -0,0 +1,67 @@
+/**
+ * 
+ */
+package utilities;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+
+import note.NoteSequence;
+import note.ParallelRenderer;
+import note.SampleCache;
+import note.SongRenderer;
+
+/**
+ * @author Floyd Almazar
+ * @version 1.0
+ * 
+ * Class Description: A class called Playlist that renders a list of song files into one .wav file on every core.
+ */
+public class Playlist
+{
+	/**
+	 * This is the MAIN method of the class Playlist.
+	 * PROGRAM PROCEDURE:
+	 * 	-- The first argument is the .wav file to write and the other arguments are the song files in order
+	 * 	-- Every song file is read into a NoteSequence, skipping the invalid entries
+	 * 	-- A ParallelRenderer renders the songs one after the other into one stream and the stream is
+	 * 	written into the .wav file, every note is rendered once and reused from a SampleCache
+	 * 	-- The length of the audio, the throughput (seconds of audio per second) and the hit rate of the
+	 * 	cache are displayed
+	 * @param args the .wav file followed by the song files
+	 */
+	public static void main(String[] args)
+	{
+		if(args.length < 2)
+		{
+			System.out.println("Usage: Playlist <output.wav> <song.txt> [<song.txt> ...]");
+			return;
+		}
+		
+		try
+		{
+			SongReader reader = new SongReader();
+			List<NoteSequence> songs = new ArrayList<NoteSequence>();
+			for(int i = 1; i < args.length; i++)
+			{
+				songs.add(reader.readSequence(new File(args[i])));
+			}
+			
+			SampleCache cache = new SampleCache();
+			ParallelRenderer renderer = new ParallelRenderer(cache);
+			float[] samples = renderer.renderPlaylist(songs);
+			SongRenderer.writeWav(samples, new File(args[0]));
+			
+			System.out.printf("Rendered %d songs (%.1f seconds of audio) into %s at %.1f seconds of audio per second%n",
+					songs.size(), renderer.getAudioSeconds(), args[0], renderer.getThroughput());
+			System.out.printf("Sample cache: %d hits, %d misses (%.1f%%), %d notes in %d KB%n", cache.getHits(),
+					cache.getMisses(), cache.getHitRate() * 100, cache.size(), cache.getBytes() >> 10);
+		}
+		catch (IOException e)
+		{
+			e.printStackTrace();
+		}
+	}
+}
@@ -0,0 +1,71 @@
+/**
+ * 
+ */
+package utilities;
+
+import exception.InvalidNoteException;
+import note.NoteSequence;
+
+/**
+ * @author Floyd Almazar
+ * @version 1.0
+ * 
+ * Class Description: The SongListener that adds every note and rest it receives at the end of a NoteSequence.
+ * 					Invalid entries are skipped.
+ */
+public class SequenceListener implements SongListener
+{
+	//Attributes
+	private final NoteSequence sequence;
+	
+	/**
+	 * Constructor for a listener that fills a new sequence.
+	 */
+	public SequenceListener()
+	{
+		this(new NoteSequence());
+	}
+	
+	/**
+	 * Constructor for a listener that adds to an existing sequence.
+	 * @param sequence the sequence being filled
+	 */
+	public SequenceListener(NoteSequence sequence)
+	{
+		this.sequence = sequence;
+	}
+	
+	/**
+	 * Accessor method that returns the sequence being filled.
+	 * @return the notes and rests received so far
+	 */
+	public NoteSequence getSequence()
+	{
+		return sequence;
+	}
+	
+	@Override
+	public void onNote(int midiValue, int rest)
+	{
+		try
+		{
+			sequence.add(midiValue, rest);
+		}
+		catch (InvalidNoteException e)
+		{
+			throw new AssertionError("Song readers only pass valid MIDI values.", e);
+		}
+	}
+	
+	@Override
+	public void onRest(int rest)
+	{
+		sequence.addRest(rest);
+	}
+	
+	@Override
+	public void onInvalid(int line, int column, CharSequence token, int status)
+	{
+		// invalid entries are skipped
+	}
+}
@@ -4,120 +4,286 @@
 package utilities;
 
 import java.io.File;
-import java.io.FileNotFoundException;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
 import java.util.Scanner;
-import java.util.StringTokenizer;
 
-import exception.InvalidNoteException;
-import note.Note;
+import javax.sound.midi.InvalidMidiDataException;
+import javax.sound.midi.MidiUnavailableException;
+import javax.sound.sampled.LineUnavailableException;
+
+import note.NoteSequence;
 import note.Piano;
+import note.PlaybackLog;
+import note.SampleCache;
+import note.SongRenderer;
 
 /**
  * @author Floyd Almazar
  * @version 1.0
  * 
- * Class Description: A class called Song that will read an input from a text file from the res folder and play the next string 
- * 					that will be scanned within the file.
+ * Class Description: A class called Song that will read an input from a text file from the res folder and play the next entry 
+ * 					that will be read within the file.
  */
 public class Song
 {
 	/**
-	 * This is the MAIN method of the class Song that will scan the strings in a .txt file located at the 
+	 * This is the MAIN method of the class Song that will read the entries in a .txt file located at the 
 	 * res folder to play a song. 
 	 * 
 	 * PROGRAM PROCEDURE:
+	 * 	-- if the argument -validate is entered, the other arguments are song files or folders that are only
+	 * 	checked by the SongValidator, nothing is played and the sound system is never opened
 	 * 	-- A new Piano object has been created as midiPlayer
-	 * 	-- Note object has been created as note that is initialized to null value
 	 *  -- The program will then display a message to let the user enter the name of the text file of the song
 	 *  -- A new Scanner object has been created an named as title to search for the song title in the res folder.
 	 *  -- A new File object has been created and assigned to songs 
-	 *  -- Another new Scanner object has been created in order to search into the file object named "song"
-	 * LOOP PROCEDURE:
-	 * 	-- while the searchSong has next line...
-	 * 		** A new StringTokenizer object has been created called "st" that will read each batch of strings
-	 * 		separated by comma.
-	 * 		-- another while loop has been created to search for other strings inside that the variable "st" is holding.
-	 * 		** inside the try block
-	 * 			-- different variables has been declared that will be used for the methods inside the try block
-	 * 			-- if statements has been implemented in order to check for the other possible conditions
-	 * 			-- else execute the noteRest method to pass in the rest value to the midiPlayer
-	 * 			-- another if statement to read if there is a string has a minus sign (-) in the first index
-	 * 		** catch the InvalidNoteException if there is no match in the statements and conditions.
-	 * 	-- close searchSong and title
-	 * 		** catch the FileNotFoundException to handle the error if the file name is not entered correctly.
-	 * @param args argument
+	 *  -- CompiledSong loads the file and passes every entry to a SongListener
+	 *  	** the compiled form of the song is written next to the file the first time and reused after that
+	 *  	** if the argument -parallel is entered, a ParallelSongLoader parses the file on every core instead
+	 *  	** a song file that starts with a track header ([bass], [melody]) is read by MultiTrackSong instead and the notes
+	 *  	of the tracks are merged by start time, every note sounds for its own duration
+	 *  -- if the argument -pipeline is entered, the song is parsed on this thread and played on a playback thread,
+	 *  the entries are passed between them through an EventRingBuffer so the parser can run ahead
+	 *  	** if the playback thread fails, the parser stops waiting for it and the failure is thrown on this thread
+	 *  -- the line of every note is printed in batches by the background thread of a PlaybackLog, so printing
+	 *  does not delay the notes; if the argument -quiet is entered nothing is printed for the notes
+	 *  	** the number of lines dropped because the PlaybackLog could not keep up is displayed at the end
+	 *  -- the PlaybackLog and the midiPlayer are closed at the end, also when the song fails
+	 *  -- if the argument -sequencer is entered, the whole song is loaded into a NoteSequence first and then
+	 *  played by the JDK Sequencer through the midiPlayer
+	 *  -- if the argument -wav is entered, the whole song is loaded into a NoteSequence first and then rendered
+	 *  into a .wav file next to the song file by the SongRenderer, no sound card is needed
+	 *  	** every repeated note is rendered once and reused from a SampleCache
+	 *  -- if the argument -synth is entered, the midiPlayer plays through the built-in SynthEngine instead of
+	 *  the JDK synthesizer
+	 *  -- if the argument -metrics is entered, the lateness of the notes and the notes per second are displayed
+	 *  at the end of the song
+	 * LISTENER PROCEDURE:
+	 * 	-- onNote plays the MIDI value with the midiPlayer and waits for the rest
+	 * 		** the notes of a chord (c4+e4+g4) come with a rest of 0 until the last one, they are kept until the
+	 * 		last note and then played together with the playChord method
+	 * 	-- onRest executes the noteRest method to pass in the rest value to the midiPlayer
+	 * 	-- onInvalid displays a message that the invalid note entry has been skipped
+	 * 	-- close title
+	 * 		** catch the IOException to handle the error if the file name is not entered correctly.
+	 * @param args argument, -parallel to parse large song files on every core, -sequencer to play the song
+	 * 				on the JDK Sequencer, -wav to render the song into a .wav file, -synth to play the song on the
+	 * 				built-in SynthEngine, -pipeline to parse and play the song on two threads,
+	 * 				-quiet to play the song without printing the notes, -metrics to display the timing of the notes,
+	 * 				-validate followed by song files or folders to only check them
 	 */
 	public static void main(String[] args)
 	{
+		if(Arrays.asList(args).contains("-validate"))
+		{
+			List<String> paths = new ArrayList<String>(Arrays.asList(args));
+			paths.remove("-validate");
+			SongValidator.main(paths.toArray(new String[paths.size()]));
+			return;
+		}
+		
 		try
 		{
-			Piano midiPlayer = new Piano();
-			Note note = null;
-			String invalidMessage = "Ooops! Invalid note entry has been skipped!\n\n";
-			System.out.println("Enter the name of the text file of the song: ");
+			boolean parallel = Arrays.asList(args).contains("-parallel");
+			boolean sequencer = Arrays.asList(args).contains("-sequencer");
+			boolean wav = Arrays.asList(args).contains("-wav");
+			boolean synth = Arrays.asList(args).contains("-synth");
+			boolean quiet = Arrays.asList(args).contains("-quiet");
+			boolean metrics = Arrays.asList(args).contains("-metrics") && !sequencer && !wav;
+			boolean pipeline = Arrays.asList(args).contains("-pipeline") && !sequencer && !wav;
+			final NoteSequence song = new NoteSequence();
+			final Piano midiPlayer = wav ? null : synth ? Piano.withSynthEngine() : new Piano();
+			final PlaybackLog log = quiet ? PlaybackLog.quiet() : PlaybackLog.async(System.out, PlaybackLog.DEFAULT_CAPACITY);
+			try
+			{
+				final String invalidMessage = "Ooops! Invalid note entry has been skipped!\n\n";
+				System.out.println("Enter the name of the text file of the song: ");
 			
-			Scanner title = new Scanner(System.in);
-			File songs = new File("res/" + title.nextLine());
+				Scanner title = new Scanner(System.in);
+				File songs = new File("res/" + title.nextLine());
 			
-			Scanner searchSong = new Scanner(songs);
-			while(searchSong.hasNextLine())
-			{
-				StringTokenizer st = new StringTokenizer(searchSong.nextLine(), ",");
-				while(st.hasMoreTokens())
+				SongListener songPlayer = new SongListener()
 				{
-					try
+					private int[] chord = new int[8];
+					private int chordNotes;
+				
+					@Override
+					public void onNote(int midiValue, int rest)
 					{
-						String midiString = st.nextToken();
-						int rest = 200;
-						char minusSign = '-';
-						String dot = ".";
-						String twoHundredMilli = "r";
-						String fourHundredMilli = "r-";
-						
-						if(midiString.charAt(midiString.length()-1) == minusSign)
+						if(rest == 0 || chordNotes > 0)
 						{
-							rest = 400;
-							midiString = midiString.substring(0, midiString.length()-1);
+							if(chordNotes == chord.length)
+							{
+								chord = Arrays.copyOf(chord, chordNotes * 2);
+							}
+							chord[chordNotes++] = midiValue;
+							if(rest > 0)
+							{
+								midiPlayer.playChord(rest, chord, chordNotes);
+								if(log.isEnabled())
+								{
+									StringBuilder notes = new StringBuilder().append(chord[0]);
+									for(int i = 1; i < chordNotes; i++)
+									{
+										notes.append('+').append(chord[i]);
+									}
+									log.println("Midi Chord: "+notes+"\t|| "+"Rest: "+rest);
+								}
+								chordNotes = 0;
+							}
+							return;
 						}
-						
-						if(!midiString.equals(twoHundredMilli))
+						midiPlayer.playSong(rest, midiValue);
+						log.println("Midi Note: "+midiValue+"\t|| "+"Rest: "+rest);
+					}
+				
+					@Override
+					public void onRest(int rest)
+					{
+						midiPlayer.noteRest(rest);
+						log.println("Midi Note: r\t|| "+"Rest: "+rest);
+					}
+				
+					@Override
+					public void onInvalid(int line, int column, CharSequence token, int status)
+					{
+						log.println(invalidMessage);
+					}
+				};
+			
+				if(sequencer || wav)
+				{
+					songPlayer = new SequenceListener(song)
+					{
+						@Override
+						public void onInvalid(int line, int column, CharSequence token, int status)
+						{
+							log.println(invalidMessage);
+						}
+					};
+				}
+			
+				EventRingBuffer events = null;
+				Thread playback = null;
+				if(pipeline)
+				{
+					final SongListener player = songPlayer;
+					final EventRingBuffer buffer = new EventRingBuffer()
+					{
+						@Override
+						public void onInvalid(int line, int column, CharSequence token, int status)
+						{
+							log.println(invalidMessage);
+						}
+					};
+					playback = new Thread(new Runnable()
+					{
+						@Override
+						public void run()
 						{
-							if(Character.isLetter(midiString.charAt(0)))
+							Throwable failure = null;
+							try
 							{
-								note = new Note(midiString);
+								buffer.replay(player);
 							}
-							else if(!midiString.equals(fourHundredMilli))
+							catch(InterruptedException e)
 							{
-								note = new Note(Double.parseDouble(midiString));
+								Thread.currentThread().interrupt();
 							}
-							else if(midiString.contains(dot))
+							catch(RuntimeException | Error e)
 							{
-								note = new Note(Float.parseFloat(midiString));
+								failure = e;
+							}
+							finally
+							{
+								buffer.stop(failure);
 							}
-							midiPlayer.playSong(rest, note);
-						}
-						else
-						{
-							midiPlayer.noteRest(rest);
 						}
-						
-						if(midiString.charAt(0) == minusSign)
+					}, "Playback");
+					playback.start();
+					events = buffer;
+					songPlayer = buffer;
+				}
+			
+				MultiTrackSong tracks = null;
+				try
+				{
+					if(MultiTrackSong.isMultiTrack(songs))
+					{
+						tracks = MultiTrackSong.read(songs, songPlayer);
+						if(!sequencer && !wav)
 						{
-							System.out.println(invalidMessage);
-							throw new InvalidNoteException();
+							System.out.println("Playing " + tracks.getTrackCount() + " tracks");
+							midiPlayer.playTracks(tracks.merge());
 						}
-						System.out.println("Midi Note: "+midiString+"\t|| "+"Rest: "+rest);
 					}
-					catch (InvalidNoteException e)
+					else if(parallel)
+					{
+						new ParallelSongLoader().load(songs, songPlayer);
+					}
+					else
 					{
-						System.out.println(invalidMessage);
+						CompiledSong.load(songs, songPlayer);
 					}
 				}
+				finally
+				{
+					if(pipeline)
+					{
+						events.close();
+						playback.join();
+					}
+				}
+				if(pipeline)
+				{
+					// a playback that failed stops the song here instead of in its own thread
+					events.checkConsumer();
+				}
+				log.close();
+				if(log.getDropped() > 0)
+				{
+					System.out.println(log.getDropped() + " lines of the log were dropped because the queue was full");
+				}
+				if(pipeline)
+				{
+					System.out.println("Playback waited for the parser " + events.getUnderruns()
+							+ " times, the parser waited for the playback " + events.getFullWaits() + " times");
+				}
+				if(metrics)
+				{
+					midiPlayer.getMetrics().print(System.out);
+				}
+			
+				if(wav)
+				{
+					File wavFile = new File(songs.getPath().replaceFirst("\\.txt$", "") + ".wav");
+					SampleCache cache = new SampleCache();
+					SongRenderer.writeWav(tracks != null ? SongRenderer.render(tracks.getTracks(), cache)
+							: SongRenderer.render(song, cache), wavFile);
+					System.out.println("The song has been rendered into " + wavFile);
+				}
+				else if(sequencer)
+				{
+					midiPlayer.playSequence(tracks != null ? Piano.toSequence(tracks.merge()) : Piano.toSequence(song));
+					midiPlayer.awaitSequences();
+				}
+				title.close();
+			}
+			finally
+			{
+				// the log and the piano are closed when the song fails too, so no thread or device is left open
+				log.close();
+				if(midiPlayer != null)
+				{
+					midiPlayer.close();
+				}
 			}
-			searchSong.close();
-			title.close();
 		}
-		catch (FileNotFoundException e)
+		catch (IOException | InvalidMidiDataException | MidiUnavailableException | InterruptedException
+				| LineUnavailableException e)
 		{
 			e.printStackTrace();
 		}
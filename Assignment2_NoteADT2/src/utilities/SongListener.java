@@ -0,0 +1,36 @@
+/**
+ * 
+ */
+package utilities;
+
+/**
+ * @author Floyd Almazar
+ * @version 1.0
+ * 
+ * Class Description: The callback that receives every entry read from a song file by the SongReader.
+ */
+public interface SongListener
+{
+	/**
+	 * Called for every valid note entry, and for every valid note of a chord entry.
+	 * @param midiValue the MIDI value of the note between 0 - 127
+	 * @param rest the rest after the note in milliseconds, or 0 for a note that sounds together with the next
+	 * 				note (every note of a chord but the last one)
+	 */
+	void onNote(int midiValue, int rest);
+	
+	/**
+	 * Called for every rest entry ( r or r- ).
+	 * @param rest the rest in milliseconds
+	 */
+	void onRest(int rest);
+	
+	/**
+	 * Called for every entry that is not a valid note or rest.
+	 * @param line the line number of the entry, starting at 1
+	 * @param column the column of the first character of the entry (or of the note of a chord), starting at 1
+	 * @param token the characters of the entry (or of the note of a chord), only readable during this call
+	 * @param status one of the status codes NoteADT.MALFORMED, NoteADT.NOT_IN_CHART or NoteADT.OUT_OF_RANGE
+	 */
+	void onInvalid(int line, int column, CharSequence token, int status);
+}
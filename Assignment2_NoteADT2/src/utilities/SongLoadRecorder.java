@@ -0,0 +1,107 @@
+/**
+ *
+ */
+package utilities;
+
+import java.io.File;
+
+import note.FlightEvent;
+import note.NoteADT;
+
+/**
+ * @author Floyd Almazar
+ * @version 1.0
+ *
+ * Class Description: Writes the loading of a song file to a Flight Recorder recording: a SongLoad event with the
+ * 					size of the file, the number of entries and the time it took, and a ParseFailure event for every
+ * 					invalid entry. The recorder passes every entry on to the listener of the song loader, and is
+ * 					only put between the loader and its listener while a recording has one of the events enabled.
+ *
+ * 					The listener can be the player, which waits for the rest of every note, so the time spent in
+ * 					the listener is measured on its own and taken out of the parse time.
+ */
+final class SongLoadRecorder implements SongListener
+{
+	//Attributes
+	private final File file;
+	private final SongListener listener;
+	private final long start;
+	private final boolean failures;
+	private long invalid;
+	private long listenerNanos;
+
+	private SongLoadRecorder(File file, SongListener listener)
+	{
+		this.file = file;
+		this.listener = listener;
+		start = System.nanoTime();
+		failures = FlightEvent.PARSE_FAILURE.isEnabled();
+	}
+
+	/**
+	 * Starts recording the loading of a song file.
+	 * @param file the song file
+	 * @param listener the listener of the song loader
+	 * @return the recorder to pass to the parser instead of the listener, or null if nothing is recorded
+	 */
+	static SongLoadRecorder begin(File file, SongListener listener)
+	{
+		if(!FlightEvent.SONG_LOAD.isEnabled() && !FlightEvent.PARSE_FAILURE.isEnabled())
+		{
+			return null;
+		}
+		return new SongLoadRecorder(file, listener);
+	}
+
+	/**
+	 * Writes the SongLoad event, with the time since begin less the time spent in the listener as the parse time.
+	 * @param bytes the size of the song file
+	 * @param entries the number of entries read, valid or not
+	 */
+	void commit(long bytes, long entries)
+	{
+		if(FlightEvent.SONG_LOAD.isEnabled())
+		{
+			long parseNanos = System.nanoTime() - start - listenerNanos;
+			FlightEvent.SONG_LOAD.emit(file.getPath(), bytes, entries, invalid, parseNanos, listenerNanos);
+		}
+	}
+
+	/**
+	 * Accessor method that returns the number of invalid entries passed on so far.
+	 * @return the number of invalid entries
+	 */
+	long getInvalid()
+	{
+		return invalid;
+	}
+
+	@Override
+	public void onNote(int midiValue, int rest)
+	{
+		long called = System.nanoTime();
+		listener.onNote(midiValue, rest);
+		listenerNanos += System.nanoTime() - called;
+	}
+
+	@Override
+	public void onRest(int rest)
+	{
+		long called = System.nanoTime();
+		listener.onRest(rest);
+		listenerNanos += System.nanoTime() - called;
+	}
+
+	@Override
+	public void onInvalid(int line, int column, CharSequence token, int status)
+	{
+		invalid++;
+		if(failures)
+		{
+			FlightEvent.PARSE_FAILURE.emit(file.getPath(), line, column, token.toString(), NoteADT.statusMessage(status));
+		}
+		long called = System.nanoTime();
+		listener.onInvalid(line, column, token, status);
+		listenerNanos += System.nanoTime() - called;
+	}
+}
@@ -0,0 +1,419 @@
+/**
+ * 
+ */
+package utilities;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+
+import note.NoteADT;
+import note.NoteSequence;
+
+/**
+ * @author Floyd Almazar
+ * @version 1.0
+ * 
+ * Class Description: A reusable reader for song files that reads the file through a FileChannel and splits the
+ * 					entries on commas and line breaks directly in the byte buffer. Every entry is passed to a
+ * 					SongListener as a MIDI value and a rest, no String is created for a valid entry.
+ */
+public class SongReader
+{
+	//Constants
+	/**
+	 * The rest of an entry in milliseconds, and the rest of an entry that ends with a minus sign ( - ).
+	 */
+	public static final int		SHORT_REST = 200;
+	public static final int		LONG_REST = 400;
+	
+	/**
+	 * Files of this size and larger are memory-mapped instead of being read into the buffer.
+	 */
+	static final long			MAP_THRESHOLD = 1 << 20;
+	
+	/**
+	 * Powers of ten that are exactly representable as a double.
+	 */
+	private static final double[] POWERS_OF_TEN = 
+	{
+		1e0, 1e1, 1e2, 1e3, 1e4, 1e5, 1e6, 1e7, 1e8, 1e9, 1e10, 1e11,
+		1e12, 1e13, 1e14, 1e15, 1e16, 1e17, 1e18, 1e19, 1e20, 1e21, 1e22
+	};
+	
+	//Attributes
+	private ByteBuffer buffer = ByteBuffer.allocate(8192);
+	private final ByteChars token = new ByteChars();
+	private int[] chord = new int[8];
+	private int line;
+	
+	/**
+	 * Reads a whole song file and passes every entry to the listener.
+	 * 
+	 * Precondition: The file exists and is smaller than 2 GB.
+	 * 
+	 * Postcondition: Every entry of the file has been passed to the listener in order.
+	 * 
+	 * @param file the song file
+	 * @param listener the listener that receives the entries
+	 * @return the number of entries read
+	 * @throws IOException if the file cannot be read
+	 */
+	public int read(File file, SongListener listener) throws IOException
+	{
+		SongLoadRecorder recorder = SongLoadRecorder.begin(file, listener);
+		try(FileChannel channel = FileChannel.open(file.toPath(), StandardOpenOption.READ))
+		{
+			ByteBuffer contents = load(channel);
+			int entries = parse(contents, 0, contents.limit(), 1, recorder == null ? listener : recorder);
+			if(recorder != null)
+			{
+				recorder.commit(contents.limit(), entries);
+			}
+			return entries;
+		}
+	}
+	
+	/**
+	 * Reads a whole song file into a NoteSequence, skipping the invalid entries.
+	 * @param file the song file
+	 * @return the notes and rests of the song in order
+	 * @throws IOException if the file cannot be read
+	 */
+	public NoteSequence readSequence(File file) throws IOException
+	{
+		SequenceListener sequence = new SequenceListener();
+		read(file, sequence);
+		return sequence.getSequence();
+	}
+	
+	/**
+	 * Loads the contents of the channel, memory-mapped if it is at least MAP_THRESHOLD bytes long or
+	 * else read into the buffer of this reader. The returned buffer is only valid until the next load.
+	 * @param channel the channel of the song file
+	 * @return the contents of the song file from index 0 to its limit
+	 * @throws IOException if the file cannot be read
+	 */
+	ByteBuffer load(FileChannel channel) throws IOException
+	{
+		long size = channel.size();
+		if(size > Integer.MAX_VALUE)
+		{
+			throw new IOException("The song file is too large to be read.");
+		}
+		else if(size >= MAP_THRESHOLD)
+		{
+			return channel.map(FileChannel.MapMode.READ_ONLY, 0, size);
+		}
+		
+		if(buffer.capacity() < size)
+		{
+			buffer = ByteBuffer.allocate((int) size);
+		}
+		buffer.clear();
+		buffer.limit((int) size);
+		while(buffer.hasRemaining() && channel.read(buffer) >= 0)
+		{
+			// keep reading until the buffer is full or the end of the file
+		}
+		buffer.flip();
+		return buffer;
+	}
+	
+	/**
+	 * Parses the entries between start and end of the contents and passes them to the listener.
+	 * Entries are separated by commas and line breaks (\n, \r\n or \r) and empty entries are skipped.
+	 * 
+	 * Precondition: start and end are within the limit of the contents.
+	 * 
+	 * Postcondition: Every entry between start and end has been passed to the listener in order.
+	 * 
+	 * @param contents the bytes of the song file
+	 * @param start the index of the first byte to parse
+	 * @param end the index after the last byte to parse
+	 * @param firstLine the line number of the byte at start
+	 * @param listener the listener that receives the entries
+	 * @return the number of entries parsed
+	 */
+	public int parse(ByteBuffer contents, int start, int end, int firstLine, SongListener listener)
+	{
+		int entries = 0;
+		int line = firstLine;
+		int lineStart = start;
+		int entryStart = start;
+		
+		for(int i = start; i < end; i++)
+		{
+			byte character = contents.get(i);
+			if(character == ',' || character == '\n' || character == '\r')
+			{
+				if(i > entryStart)
+				{
+					entry(contents, entryStart, i, line, entryStart - lineStart + 1, listener);
+					entries++;
+				}
+				if(character == '\n' || (character == '\r' && (i + 1 == end || contents.get(i + 1) != '\n')))
+				{
+					line++;
+					lineStart = i + 1;
+				}
+				entryStart = i + 1;
+			}
+		}
+		if(end > entryStart)
+		{
+			entry(contents, entryStart, end, line, entryStart - lineStart + 1, listener);
+			entries++;
+		}
+		this.line = line;
+		return entries;
+	}
+	
+	/**
+	 * Accessor method that returns the line number reached at the end of the last parse, which is
+	 * the first line number plus the number of line breaks that were parsed.
+	 * @return the line number after the last parse
+	 */
+	public int getLine()
+	{
+		return line;
+	}
+	
+	/**
+	 * Reads one entry with the same rules as the Song class:
+	 * 		-- an entry that ends with a minus sign ( - ) has a rest of 400 instead of 200 milliseconds
+	 * 		-- r is a rest
+	 * 		-- notes joined by a plus sign ( + ) are a chord, for example c4+e4+g4
+	 * 			** every note of the chord but the last one is passed with a rest of 0, so it sounds together
+	 * 			with the next one, and the last note is passed with the rest of the entry
+	 * 			** an invalid note of a chord is skipped and the other notes are still played
+	 * 		-- an entry that starts with a letter is a common music note name
+	 * 		-- any other entry is a frequency in Hz
+	 */
+	private void entry(ByteBuffer contents, int start, int end, int line, int column, SongListener listener)
+	{
+		int rest = SHORT_REST;
+		int noteEnd = end;
+		if(contents.get(noteEnd - 1) == '-')
+		{
+			rest = LONG_REST;
+			noteEnd--;
+		}
+		
+		if(noteEnd - start == 1 && contents.get(start) == 'r')
+		{
+			listener.onRest(rest);
+			return;
+		}
+		
+		int memberEnd = chordSeparator(contents, start, noteEnd);
+		if(memberEnd == noteEnd)
+		{
+			int midiValue = note(contents, start, noteEnd);
+			if(midiValue < NoteADT.LOW_MIDI_VALUE)
+			{
+				listener.onInvalid(line, column, token.wrap(contents, start, end), midiValue);
+			}
+			else
+			{
+				listener.onNote(midiValue, rest);
+			}
+			return;
+		}
+		
+		int notes = 0;
+		int memberStart = start;
+		while(true)
+		{
+			int midiValue = note(contents, memberStart, memberEnd);
+			if(midiValue < NoteADT.LOW_MIDI_VALUE)
+			{
+				listener.onInvalid(line, column + memberStart - start, token.wrap(contents, memberStart, memberEnd),
+						midiValue);
+			}
+			else
+			{
+				if(notes == chord.length)
+				{
+					chord = Arrays.copyOf(chord, notes * 2);
+				}
+				chord[notes++] = midiValue;
+			}
+			if(memberEnd == noteEnd)
+			{
+				break;
+			}
+			memberStart = memberEnd + 1;
+			memberEnd = chordSeparator(contents, memberStart, noteEnd);
+		}
+		
+		for(int i = 0; i < notes; i++)
+		{
+			listener.onNote(chord[i], i == notes - 1 ? rest : 0);
+		}
+	}
+	
+	/**
+	 * Returns the index of the first plus sign that joins two notes of a chord, or end if there is none. A plus
+	 * sign at the start of a note is the sign of a frequency and a plus sign after an e is part of an exponent.
+	 */
+	private static int chordSeparator(ByteBuffer contents, int start, int end)
+	{
+		for(int i = start + 1; i < end; i++)
+		{
+			if(contents.get(i) == '+')
+			{
+				byte previous = contents.get(i - 1);
+				if(previous != 'e' && previous != 'E')
+				{
+					return i;
+				}
+			}
+		}
+		return end;
+	}
+	
+	/**
+	 * Reads one note of an entry, either a common music note name or a frequency.
+	 * @return the MIDI value, or one of the status codes MALFORMED, NOT_IN_CHART or OUT_OF_RANGE
+	 */
+	private int note(ByteBuffer contents, int start, int end)
+	{
+		if(end == start || isLetter(contents.get(start)))
+		{
+			return NoteADT.tryParseMidi(token.wrap(contents, start, end));
+		}
+		return frequencyToMidi(contents, start, end);
+	}
+	
+	private static boolean isLetter(byte character)
+	{
+		// bytes of multi-byte characters are read as letters, which makes the entry an invalid note
+		return (character >= 'a' && character <= 'z') || (character >= 'A' && character <= 'Z') || character < 0;
+	}
+	
+	/**
+	 * Reads a frequency entry and converts it into a MIDI value. Plain decimal numbers with at most 15 digits
+	 * are read directly from the bytes, which gives exactly the same double as Double.parseDouble; any other
+	 * entry falls back to Double.parseDouble.
+	 * @return the MIDI value, or one of the status codes MALFORMED or OUT_OF_RANGE
+	 */
+	private static int frequencyToMidi(ByteBuffer contents, int start, int end)
+	{
+		int i = start;
+		boolean negative = false;
+		byte sign = contents.get(i);
+		if(sign == '-' || sign == '+')
+		{
+			negative = sign == '-';
+			i++;
+		}
+		
+		long mantissa = 0;
+		int digits = 0;
+		int decimals = 0;
+		boolean dot = false;
+		boolean plain = true;
+		for(; i < end && plain; i++)
+		{
+			byte character = contents.get(i);
+			if(character >= '0' && character <= '9')
+			{
+				mantissa = mantissa * 10 + (character - '0');
+				digits++;
+				if(dot)
+				{
+					decimals++;
+				}
+			}
+			else if(character == '.' && !dot)
+			{
+				dot = true;
+			}
+			else
+			{
+				plain = false;
+			}
+		}
+		
+		double frequency;
+		if(plain && digits > 0 && digits <= 15 && decimals < POWERS_OF_TEN.length)
+		{
+			frequency = mantissa / POWERS_OF_TEN[decimals];
+			frequency = negative ? -frequency : frequency;
+		}
+		else
+		{
+			byte[] bytes = new byte[end - start];
+			for(int j = 0; j < bytes.length; j++)
+			{
+				bytes[j] = contents.get(start + j);
+			}
+			try
+			{
+				frequency = Double.parseDouble(new String(bytes, StandardCharsets.ISO_8859_1));
+			}
+			catch(NumberFormatException e)
+			{
+				return NoteADT.MALFORMED;
+			}
+		}
+		return NoteADT.tryFrequencyToMidi(frequency);
+	}
+	
+	/**
+	 * A reusable view of a range of bytes as characters, so that an entry can be parsed without
+	 * creating a String.
+	 */
+	private static final class ByteChars implements CharSequence
+	{
+		private ByteBuffer contents;
+		private int start;
+		private int length;
+		
+		ByteChars wrap(ByteBuffer contents, int start, int end)
+		{
+			this.contents = contents;
+			this.start = start;
+			this.length = end - start;
+			return this;
+		}
+		
+		@Override
+		public int length()
+		{
+			return length;
+		}
+		
+		@Override
+		public char charAt(int index)
+		{
+			if(index < 0 || index >= length)
+			{
+				throw new IndexOutOfBoundsException("index: " + index + ", length: " + length);
+			}
+			return (char) (contents.get(start + index) & 0xFF);
+		}
+		
+		@Override
+		public CharSequence subSequence(int start, int end)
+		{
+			return toString().subSequence(start, end);
+		}
+		
+		@Override
+		public String toString()
+		{
+			StringBuilder characters = new StringBuilder(length);
+			for(int i = 0; i < length; i++)
+			{
+				characters.append(charAt(i));
+			}
+			return characters.toString();
+		}
+	}
+}
@@ -0,0 +1,161 @@
+/**
+ *
+ */
+package utilities;
+
+import java.io.File;
+import java.io.FileFilter;
+import java.io.IOException;
+import java.io.PrintStream;
+import java.util.Arrays;
+
+import note.NoteADT;
+import utilities.FileReport.Diagnostic;
+
+/**
+ * @author Floyd Almazar
+ * @version 1.0
+ *
+ * Class Description: Checks song files without playing them. The files are parsed with the same rules as the
+ * 					players and every invalid entry is printed with its file, line and column. Nothing of the sound
+ * 					system is opened, so the songs can be checked on a machine without a sound card.
+ */
+public class SongValidator
+{
+	//Attributes
+	private final SongReader reader = new SongReader();
+	private int files;
+	private long notes;
+	private long rests;
+	private long invalid;
+
+	/**
+	 * This is the MAIN method that checks song files and folders of song files.
+	 * PROGRAM PROCEDURE:
+	 * 	-- Every argument is a song file or a folder, every .txt file of a folder is checked (res if nothing is entered)
+	 * 	-- Every invalid entry is displayed as file:line:column followed by the entry and the reason
+	 * 	-- The number of files, notes, rests and invalid entries is displayed at the end
+	 * 	-- The program exits with status 1 if an entry is invalid or a file cannot be read
+	 * @param args argument, the song files and folders to check
+	 */
+	public static void main(String[] args)
+	{
+		SongValidator validator = new SongValidator();
+		boolean readable = true;
+		for(String path : args.length > 0 ? args : new String[] { "res" })
+		{
+			try
+			{
+				validator.validateAll(new File(path), System.out);
+			}
+			catch (IOException e)
+			{
+				System.out.println(path + ": " + e.getMessage());
+				readable = false;
+			}
+		}
+
+		System.out.println(validator.getFiles() + " files, " + validator.getNotes() + " notes, " + validator.getRests()
+				+ " rests, " + validator.getInvalid() + " invalid entries");
+		if(!readable || validator.getInvalid() > 0)
+		{
+			System.exit(1);
+		}
+	}
+
+	/**
+	 * Checks a song file, or every .txt file of a folder in name order.
+	 * @param file the song file or folder
+	 * @param out where the invalid entries are printed
+	 * @return the number of invalid entries found
+	 * @throws IOException if a file cannot be read
+	 */
+	public long validateAll(File file, PrintStream out) throws IOException
+	{
+		if(!file.isDirectory())
+		{
+			return validate(file, out);
+		}
+
+		File[] songs = file.listFiles(new FileFilter()
+		{
+			@Override
+			public boolean accept(File song)
+			{
+				return song.isFile() && song.getName().endsWith(".txt");
+			}
+		});
+		if(songs == null)
+		{
+			throw new IOException("The folder cannot be read.");
+		}
+		Arrays.sort(songs);
+
+		long found = 0;
+		for(File song : songs)
+		{
+			found += validate(song, out);
+		}
+		return found;
+	}
+
+	/**
+	 * Checks one song file, with or without tracks.
+	 * @param file the song file
+	 * @param out where the invalid entries are printed
+	 * @return the number of invalid entries found
+	 * @throws IOException if the file cannot be read
+	 */
+	public long validate(File file, PrintStream out) throws IOException
+	{
+		FileReport report = new FileReport(file);
+		report.parse(reader);
+		for(Diagnostic diagnostic : report.getDiagnostics())
+		{
+			out.println(file.getPath() + ":" + diagnostic.getLine() + ":" + diagnostic.getColumn() + ": "
+					+ diagnostic.getToken() + ": " + NoteADT.statusMessage(diagnostic.getStatus()));
+		}
+
+		files++;
+		notes += report.getNotes();
+		rests += report.getRests();
+		invalid += report.getDiagnostics().size();
+		return report.getDiagnostics().size();
+	}
+
+	/**
+	 * Accessor method that returns the number of files checked.
+	 * @return the number of files
+	 */
+	public int getFiles()
+	{
+		return files;
+	}
+
+	/**
+	 * Accessor method that returns the number of valid notes found.
+	 * @return the number of notes
+	 */
+	public long getNotes()
+	{
+		return notes;
+	}
+
+	/**
+	 * Accessor method that returns the number of rests found.
+	 * @return the number of rests
+	 */
+	public long getRests()
+	{
+		return rests;
+	}
+
+	/**
+	 * Accessor method that returns the number of invalid entries found.
+	 * @return the number of invalid entries
+	 */
+	public long getInvalid()
+	{
+		return invalid;
+	}
+}
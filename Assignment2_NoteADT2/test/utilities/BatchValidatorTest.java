@@ -0,0 +1,72 @@
+/**
+ * 
+ */
+package utilities;
+import static org.junit.Assert.*;
+
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.FileNotFoundException;
+import java.io.IOException;
+import java.io.PrintStream;
+import java.util.concurrent.ForkJoinPool;
+
+import org.junit.Test;
+
+import note.NoteADT;
+
+public class BatchValidatorTest
+{
+	@Test
+	public void testValidateFolder() throws IOException
+	{
+		ForkJoinPool pool = new ForkJoinPool(4);
+		try
+		{
+			BatchValidator validator = new BatchValidator(pool);
+			assertEquals(4, validator.validate(new File("res")));
+			assertEquals(new SongValidator().validateAll(new File("res"), new PrintStream(new ByteArrayOutputStream())),
+					validator.getInvalid());
+			assertEquals(0, validator.getUnreadable());
+			assertTrue(validator.getTokens() >= 34);
+			assertTrue(validator.getTokensPerSecond() > 0);
+		}
+		finally
+		{
+			pool.shutdown();
+		}
+	}
+
+	@Test
+	public void testReport() throws IOException
+	{
+		BatchValidator validator = new BatchValidator();
+		assertEquals(4, validator.validate(new File("res/testsong.txt")));
+		assertEquals(34, validator.getTokens());
+
+		ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+		validator.writeReport(new PrintStream(bytes));
+		String[] lines = bytes.toString().split(System.lineSeparator());
+		assertEquals(6, lines.length);
+
+		String path = BatchValidator.quote(new File("res/testsong.txt").getPath());
+		assertTrue(bytes.toString().contains("{\"type\":\"invalid\",\"file\":" + path
+				+ ",\"line\":1,\"column\":50,\"token\":\"k3\",\"status\":" + NoteADT.MALFORMED + ",\"reason\":\""
+				+ NoteADT.statusMessage(NoteADT.MALFORMED) + "\"}"));
+		assertTrue(lines[4].startsWith("{\"type\":\"file\",\"file\":" + path + ",\"bytes\":"));
+		assertTrue(lines[4].contains("\"invalid\":4"));
+		assertTrue(lines[5].startsWith("{\"type\":\"summary\",\"files\":1,\"unreadable\":0,\"tokens\":34,\"invalid\":4,"));
+	}
+
+	@Test(expected = FileNotFoundException.class)
+	public void testMissingFolder() throws IOException
+	{
+		new BatchValidator().validate(new File("res/missing"));
+	}
+
+	@Test
+	public void testQuote()
+	{
+		assertEquals("\"a\\\"b\\\\c\\n\\u0001\"", BatchValidator.quote("a\"b\\c\n\u0001"));
+	}
+}
@@ -0,0 +1,182 @@
+/**
+ * 
+ */
+package utilities;
+import static org.junit.Assert.*;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+public class CompiledSongTest
+{
+	private File song;
+	private List<String> events;
+	private SongListener listener;
+	
+	@Before
+	public void setUp() throws IOException
+	{
+		song = File.createTempFile("song", ".txt");
+		write("d3,d3,146.83238,g3-,r-,r,d4,k3\nd4-,r,c4,-84,a3-,r,r\n");
+		events = new ArrayList<String>();
+		listener = new RecordingListener(events);
+	}
+	
+	@After
+	public void tearDown()
+	{
+		CompiledSong.compiledFileOf(song).delete();
+		song.delete();
+	}
+	
+	private void write(String text) throws IOException
+	{
+		try(FileOutputStream out = new FileOutputStream(song))
+		{
+			out.write(text.getBytes(StandardCharsets.US_ASCII));
+		}
+	}
+	
+	@Test
+	public void testCompiledSongHasSameEntries() throws IOException
+	{
+		new SongReader().read(song, listener);
+		List<String> parsed = new ArrayList<String>(events);
+		events.clear();
+		
+		assertEquals(15, CompiledSong.compile(song));
+		assertTrue(CompiledSong.compiledFileOf(song).length() < song.length() + CompiledSong.HEADER_SIZE);
+		assertEquals(15, CompiledSong.load(song, listener));
+		assertEquals(parsed, events);
+	}
+	
+	@Test
+	public void testLoadWritesAndReusesCompiledFile() throws IOException
+	{
+		CompiledSong.load(song, listener);
+		File compiled = CompiledSong.compiledFileOf(song);
+		assertTrue(compiled.isFile());
+		
+		long written = compiled.lastModified();
+		events.clear();
+		CompiledSong.load(song, listener);
+		assertEquals(written, compiled.lastModified());
+		assertEquals("50/200", events.get(0));
+	}
+	
+	@Test
+	public void testChangedSongIsCompiledAgain() throws IOException
+	{
+		CompiledSong.load(song, listener);
+		write("a4,r-");
+		events.clear();
+		assertEquals(2, CompiledSong.load(song, listener));
+		assertEquals("[69/200, r/400]", events.toString());
+	}
+	
+	@Test
+	public void testDamagedCompiledFileIsCompiledAgain() throws IOException
+	{
+		CompiledSong.load(song, listener);
+		List<String> parsed = new ArrayList<String>(events);
+		File compiled = CompiledSong.compiledFileOf(song);
+		byte[] bytes = Files.readAllBytes(compiled.toPath());
+		Files.write(compiled.toPath(), Arrays.copyOf(bytes, bytes.length - 3));
+		
+		events.clear();
+		assertEquals(15, CompiledSong.load(song, listener));
+		assertEquals(parsed, events);
+		assertArrayEquals(bytes, Files.readAllBytes(compiled.toPath()));
+	}
+	
+	@Test
+	public void testDamagedLengthIsRejected()
+	{
+		ByteBuffer compiled = ByteBuffer.allocate(CompiledSong.HEADER_SIZE + 8);
+		compiled.putInt(CompiledSong.MAGIC).put(CompiledSong.VERSION).putLong(0).putLong(0).putLong(0).putInt(1);
+		// an invalid entry on line 1, column 1 that claims to be almost 2 GB long
+		compiled.put(new byte[] { 10, 1, 1, (byte) 0xF0, (byte) 0xFF, (byte) 0xFF, (byte) 0xFF, 0x07 });
+		compiled.flip();
+		try
+		{
+			CompiledSong.replay(compiled, listener);
+			fail("A length longer than the compiled song should be rejected.");
+		}
+		catch(IOException e)
+		{
+			assertEquals("[]", events.toString());
+		}
+	}
+	
+	@Test
+	public void testConcurrentCompilesDoNotShareTemporaryFile() throws Exception
+	{
+		StringBuilder text = new StringBuilder();
+		for(int i = 0; i < 20000; i++)
+		{
+			text.append(i % 3 == 0 ? "c4," : "e4-,");
+		}
+		write(text.toString());
+		
+		List<Thread> writers = new ArrayList<Thread>();
+		final List<Throwable> failures = Collections.synchronizedList(new ArrayList<Throwable>());
+		for(int i = 0; i < 8; i++)
+		{
+			Thread writer = new Thread(new Runnable()
+			{
+				@Override
+				public void run()
+				{
+					try
+					{
+						for(int j = 0; j < 5; j++)
+						{
+							CompiledSong.compile(song);
+						}
+					}
+					catch (IOException | RuntimeException e)
+					{
+						failures.add(e);
+					}
+				}
+			});
+			writers.add(writer);
+			writer.start();
+		}
+		for(Thread writer : writers)
+		{
+			writer.join();
+		}
+		assertEquals("[]", failures.toString());
+		
+		final int[] notes = new int[1];
+		assertEquals(20000, CompiledSong.replay(ByteBuffer.wrap(Files.readAllBytes(
+				CompiledSong.compiledFileOf(song).toPath())), new SequenceListener()
+		{
+			@Override
+			public void onNote(int midiValue, int rest)
+			{
+				notes[0]++;
+			}
+		}));
+		assertEquals(20000, notes[0]);
+		
+		File[] leftovers = song.getAbsoluteFile().getParentFile().listFiles();
+		for(File leftover : leftovers)
+		{
+			assertFalse(leftover.getName().startsWith(song.getName()) && leftover.getName().endsWith(".tmp"));
+		}
+	}
+}
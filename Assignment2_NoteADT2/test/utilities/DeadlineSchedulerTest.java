@@ -0,0 +1,91 @@
+/**
+ * 
+ */
+package utilities;
+import static org.junit.Assert.*;
+
+import java.util.concurrent.TimeUnit;
+
+import org.junit.Test;
+
+import note.DeadlineScheduler;
+
+public class DeadlineSchedulerTest
+{
+	@Test
+	public void testOverheadDoesNotDrift() throws InterruptedException
+	{
+		DeadlineScheduler scheduler = new DeadlineScheduler();
+		long start = System.nanoTime();
+		for(int i = 0; i < 10; i++)
+		{
+			scheduler.awaitEvent();
+			Thread.sleep(5);
+			scheduler.advance(20);
+			scheduler.awaitDeadline();
+		}
+		long elapsed = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+		assertTrue("elapsed " + elapsed, elapsed >= 200);
+		assertEquals(10, scheduler.getEventCount());
+	}
+	
+	@Test
+	public void testLatenessIsMeasured() throws InterruptedException
+	{
+		DeadlineScheduler scheduler = new DeadlineScheduler();
+		scheduler.awaitEvent();
+		scheduler.advance(10);
+		Thread.sleep(30);
+		long lateness = scheduler.awaitEvent();
+		assertTrue(lateness >= TimeUnit.MILLISECONDS.toNanos(20));
+		assertEquals(lateness, scheduler.getMaxLateness());
+	}
+	
+	@Test
+	public void testPauseRestartsClock() throws InterruptedException
+	{
+		DeadlineScheduler scheduler = new DeadlineScheduler();
+		scheduler.awaitEvent();
+		Thread.sleep(300);
+		scheduler.awaitEvent();
+		
+		long start = System.nanoTime();
+		scheduler.advance(50);
+		scheduler.awaitDeadline();
+		assertTrue(System.nanoTime() - start >= TimeUnit.MILLISECONDS.toNanos(45));
+	}
+	
+	@Test
+	public void testLateDeadlineRestartsClock() throws InterruptedException
+	{
+		DeadlineScheduler scheduler = new DeadlineScheduler();
+		scheduler.awaitEvent();
+		Thread.sleep(300);
+		scheduler.awaitDeadline();
+		
+		long start = System.nanoTime();
+		scheduler.advance(50);
+		scheduler.awaitDeadline();
+		assertTrue(System.nanoTime() - start >= TimeUnit.MILLISECONDS.toNanos(45));
+	}
+	
+	@Test
+	public void testInterruptEndsTheWait()
+	{
+		DeadlineScheduler scheduler = new DeadlineScheduler();
+		scheduler.awaitEvent();
+		long start = System.nanoTime();
+		Thread.currentThread().interrupt();
+		try
+		{
+			scheduler.advance(1000);
+			scheduler.awaitDeadline();
+			assertTrue(System.nanoTime() - start < TimeUnit.MILLISECONDS.toNanos(500));
+			assertTrue(Thread.currentThread().isInterrupted());
+		}
+		finally
+		{
+			Thread.interrupted();
+		}
+	}
+}
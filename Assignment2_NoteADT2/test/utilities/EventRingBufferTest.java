@@ -0,0 +1,198 @@
+/**
+ * 
+ */
+package utilities;
+import static org.junit.Assert.*;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.Test;
+
+public class EventRingBufferTest
+{
+	@Test
+	public void testEvents()
+	{
+		long note = EventRingBuffer.note(127, 400);
+		assertFalse(EventRingBuffer.isRest(note));
+		assertEquals(127, EventRingBuffer.midiValueOf(note));
+		assertEquals(400, EventRingBuffer.restOf(note));
+		
+		long rest = EventRingBuffer.rest(200);
+		assertTrue(EventRingBuffer.isRest(rest));
+		assertEquals(200, EventRingBuffer.restOf(rest));
+		assertNotEquals(EventRingBuffer.END, rest);
+		assertNotEquals(EventRingBuffer.EMPTY, rest);
+	}
+	
+	@Test
+	public void testOfferAndPoll()
+	{
+		EventRingBuffer buffer = new EventRingBuffer(3);
+		assertEquals(4, buffer.getCapacity());
+		assertEquals(EventRingBuffer.EMPTY, buffer.poll());
+		for(int i = 0; i < 4; i++)
+		{
+			assertTrue(buffer.offer(EventRingBuffer.note(60 + i, 200)));
+		}
+		assertFalse(buffer.offer(EventRingBuffer.note(70, 200)));
+		assertEquals(4, buffer.size());
+		
+		assertEquals(60, EventRingBuffer.midiValueOf(buffer.poll()));
+		assertTrue(buffer.offer(EventRingBuffer.note(70, 200)));
+		buffer.close();
+		for(int i = 1; i < 4; i++)
+		{
+			assertEquals(60 + i, EventRingBuffer.midiValueOf(buffer.poll()));
+		}
+		assertEquals(70, EventRingBuffer.midiValueOf(buffer.poll()));
+		assertEquals(EventRingBuffer.END, buffer.poll());
+	}
+	
+	@Test
+	public void testProducerAndConsumerThreads() throws InterruptedException
+	{
+		final EventRingBuffer buffer = new EventRingBuffer(16);
+		final int count = 100000;
+		Thread producer = new Thread(new Runnable()
+		{
+			@Override
+			public void run()
+			{
+				for(int i = 0; i < count; i++)
+				{
+					if(i % 3 == 0)
+					{
+						buffer.onRest(i);
+					}
+					else
+					{
+						buffer.onNote(i & 127, i);
+					}
+				}
+				buffer.close();
+			}
+		});
+		producer.start();
+		
+		final List<Integer> rests = new ArrayList<Integer>();
+		int events = buffer.replay(new SongListener()
+		{
+			@Override
+			public void onNote(int midiValue, int rest)
+			{
+				assertEquals(rest & 127, midiValue);
+				rests.add(rest);
+			}
+			
+			@Override
+			public void onRest(int rest)
+			{
+				assertEquals(0, rest % 3);
+				rests.add(rest);
+			}
+			
+			@Override
+			public void onInvalid(int line, int column, CharSequence token, int status)
+			{
+				fail();
+			}
+		});
+		producer.join();
+		
+		assertEquals(count, events);
+		for(int i = 0; i < count; i++)
+		{
+			assertEquals(i, rests.get(i).intValue());
+		}
+		assertEquals(0, buffer.size());
+	}
+	
+	@Test(timeout = 10000)
+	public void testFailedConsumerStopsProducer() throws InterruptedException
+	{
+		final EventRingBuffer buffer = new EventRingBuffer(4);
+		final IllegalStateException failure = new IllegalStateException("The output has been closed.");
+		Thread consumer = new Thread(new Runnable()
+		{
+			@Override
+			public void run()
+			{
+				Throwable stopped = null;
+				try
+				{
+					buffer.take();
+					throw failure;
+				}
+				catch(InterruptedException e)
+				{
+					Thread.currentThread().interrupt();
+				}
+				catch(RuntimeException e)
+				{
+					stopped = e;
+				}
+				finally
+				{
+					buffer.stop(stopped);
+				}
+			}
+		});
+		consumer.start();
+		
+		try
+		{
+			for(int i = 0; i < 100; i++)
+			{
+				buffer.put(EventRingBuffer.note(60, 200));
+			}
+			fail("The producer should stop when the consumer has failed.");
+		}
+		catch(IllegalStateException e)
+		{
+			assertSame(failure, e.getCause());
+		}
+		consumer.join();
+		
+		try
+		{
+			buffer.checkConsumer();
+			fail("The failure of the consumer should be thrown.");
+		}
+		catch(IllegalStateException e)
+		{
+			assertSame(failure, e.getCause());
+		}
+	}
+	
+	@Test
+	public void testInterruptStopsReplay()
+	{
+		EventRingBuffer buffer = new EventRingBuffer(4);
+		buffer.offer(EventRingBuffer.note(60, 200));
+		buffer.offer(EventRingBuffer.note(62, 200));
+		buffer.offer(EventRingBuffer.rest(200));
+		buffer.close();
+		
+		final List<String> events = new ArrayList<String>();
+		try
+		{
+			buffer.replay(new RecordingListener(events)
+			{
+				@Override
+				public void onNote(int midiValue, int rest)
+				{
+					super.onNote(midiValue, rest);
+					Thread.currentThread().interrupt();
+				}
+			});
+			fail("The replay should stop when the consumer is interrupted.");
+		}
+		catch(InterruptedException e)
+		{
+			assertEquals(1, events.size());
+			assertFalse(Thread.currentThread().isInterrupted());
+		}
+	}
+}
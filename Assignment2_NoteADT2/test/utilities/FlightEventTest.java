@@ -0,0 +1,153 @@
+/**
+ * 
+ */
+package utilities;
+import static org.junit.Assert.*;
+import static org.junit.Assume.*;
+
+import java.io.File;
+import java.io.IOException;
+import java.lang.reflect.Method;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.Test;
+
+import note.FlightEvent;
+import note.NoteADT;
+import note.Piano;
+import note.RecordingReceiver;
+
+public class FlightEventTest
+{
+	@Test
+	public void testDisabled() throws IOException
+	{
+		assertFalse(FlightEvent.SONG_LOAD.isEnabled());
+		assertNull(FlightEvent.SONG_LOAD.begin());
+		FlightEvent.SONG_LOAD.commit(null);
+		FlightEvent.NOTE_DISPATCH.emit("on", 60, 0);
+		assertEquals(34, new SongReader().read(new File("res/testsong.txt"), new SequenceListener()));
+	}
+	
+	@Test
+	public void testRecording() throws Exception
+	{
+		Class<?> recordingClass;
+		try
+		{
+			recordingClass = Class.forName("jdk.jfr.Recording");
+		}
+		catch (ClassNotFoundException e)
+		{
+			recordingClass = null;
+		}
+		assumeNotNull(recordingClass);
+		
+		Object recording = recordingClass.getConstructor().newInstance();
+		Method enable = recordingClass.getMethod("enable", String.class);
+		enable.invoke(recording, "music.SongLoad");
+		enable.invoke(recording, "music.ParseFailure");
+		enable.invoke(recording, "music.NoteDispatch");
+		recordingClass.getMethod("start").invoke(recording);
+		
+		assertTrue(FlightEvent.SONG_LOAD.isEnabled());
+		new SongReader().read(new File("res/testsong.txt"), new SequenceListener()
+		{
+			@Override
+			public void onNote(int midiValue, int rest)
+			{
+				sleep();
+				super.onNote(midiValue, rest);
+			}
+			
+			@Override
+			public void onRest(int rest)
+			{
+				sleep();
+				super.onRest(rest);
+			}
+		});
+		Piano piano = new Piano(new RecordingReceiver());
+		piano.playNote(60, 5, 10);
+		piano.close();
+		
+		recordingClass.getMethod("stop").invoke(recording);
+		Path file = Files.createTempFile("song", ".jfr");
+		List<Object> events;
+		try
+		{
+			recordingClass.getMethod("dump", Path.class).invoke(recording, file);
+			recordingClass.getMethod("close").invoke(recording);
+			events = new ArrayList<Object>((List<?>) Class.forName("jdk.jfr.consumer.RecordingFile")
+					.getMethod("readAllEvents", Path.class).invoke(null, file));
+		}
+		finally
+		{
+			Files.delete(file);
+		}
+		assertFalse(FlightEvent.SONG_LOAD.isEnabled());
+		
+		int loads = 0;
+		int failures = 0;
+		List<String> notes = new ArrayList<String>();
+		for(Object event : events)
+		{
+			String name = (String) get(get(event, "getEventType"), "getName");
+			if(name.equals("music.SongLoad"))
+			{
+				assertEquals(new File("res/testsong.txt").getPath(), field(event, "file"));
+				assertEquals(34L, field(event, "tokens"));
+				assertEquals(4L, field(event, "invalid"));
+				assertEquals(new File("res/testsong.txt").length(), field(event, "bytes"));
+				// the 30 valid entries sleep in the listener, which is not part of the parse time
+				long listenerTime = (Long) field(event, "listenerTime");
+				assertTrue(listenerTime >= TimeUnit.MILLISECONDS.toNanos(30));
+				assertTrue((Long) field(event, "parseTime") < listenerTime);
+				loads++;
+			}
+			else if(name.equals("music.ParseFailure"))
+			{
+				if("k3".equals(field(event, "token")))
+				{
+					assertEquals(1, field(event, "line"));
+					assertEquals(50, field(event, "column"));
+					assertEquals(NoteADT.statusMessage(NoteADT.MALFORMED), field(event, "reason"));
+				}
+				failures++;
+			}
+			else if(name.equals("music.NoteDispatch"))
+			{
+				notes.add(field(event, "command") + " " + field(event, "midiValue"));
+			}
+		}
+		assertEquals(1, loads);
+		assertEquals(4, failures);
+		assertEquals("[on 60, off 60]", notes.toString());
+	}
+	
+	private static void sleep()
+	{
+		try
+		{
+			Thread.sleep(1);
+		}
+		catch(InterruptedException e)
+		{
+			Thread.currentThread().interrupt();
+		}
+	}
+	
+	private static Object get(Object target, String method) throws Exception
+	{
+		return target.getClass().getMethod(method).invoke(target);
+	}
+	
+	private static Object field(Object event, String name) throws Exception
+	{
+		return event.getClass().getMethod("getValue", String.class).invoke(event, name);
+	}
+}
@@ -0,0 +1,161 @@
+/**
+ * 
+ */
+package utilities;
+import static org.junit.Assert.*;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.List;
+
+import javax.sound.midi.InvalidMidiDataException;
+import javax.sound.midi.MidiMessage;
+import javax.sound.midi.ShortMessage;
+import javax.sound.midi.Track;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import exception.InvalidNoteException;
+import note.Note;
+import note.NoteSequence;
+import note.Piano;
+import note.SampleCache;
+import note.SongRenderer;
+import note.TrackMerger;
+
+public class MultiTrackSongTest
+{
+	private File file;
+	private List<String> events;
+	private SongListener listener;
+	
+	@Before
+	public void setUp() throws IOException
+	{
+		file = File.createTempFile("tracks", ".txt");
+		events = new ArrayList<String>();
+		listener = new RecordingListener(events);
+	}
+	
+	@After
+	public void tearDown()
+	{
+		file.delete();
+	}
+	
+	private void write(String song) throws IOException
+	{
+		Files.write(file.toPath(), song.getBytes(StandardCharsets.US_ASCII));
+	}
+	
+	@Test
+	public void testReadTracks() throws IOException
+	{
+		write("[bass]\r\nc2-,r\n[ melody ]\nr,e4,k3\ng4-\n");
+		assertTrue(MultiTrackSong.isMultiTrack(file));
+		
+		MultiTrackSong song = MultiTrackSong.read(file, listener);
+		assertEquals(2, song.getTrackCount());
+		assertEquals("bass", song.getName(0));
+		assertEquals("melody", song.getName(1));
+		assertEquals(2, song.getTrack(0).size());
+		assertEquals(3, song.getTrack(1).size());
+		assertEquals("[invalid 4:6 k3 " + Note.MALFORMED + "]", events.toString());
+	}
+	
+	@Test
+	public void testSingleTrackFile() throws IOException
+	{
+		write("d3,g3-\nr");
+		assertFalse(MultiTrackSong.isMultiTrack(file));
+		MultiTrackSong song = MultiTrackSong.read(file, listener);
+		assertEquals(1, song.getTrackCount());
+		assertEquals("", song.getName(0));
+	}
+	
+	@Test
+	public void testHeaderMustComeFirst() throws IOException
+	{
+		write("\r\n  \n\t[bass]\nc2-\n");
+		assertTrue(MultiTrackSong.isMultiTrack(file));
+		
+		write("d3,g3-\n[bass]\nc2-\n");
+		assertFalse(MultiTrackSong.isMultiTrack(file));
+		MultiTrackSong song = MultiTrackSong.read(file, listener);
+		assertEquals(2, song.getTrackCount());
+		assertEquals("", song.getName(0));
+		assertEquals("bass", song.getName(1));
+	}
+	
+	@Test
+	public void testHeldNoteSoundsOverOtherTracks() throws IOException, InvalidMidiDataException
+	{
+		write("[bass]\nc2-\n[melody]\ne4,g4,c5+e5-\n");
+		MultiTrackSong song = MultiTrackSong.read(file, listener);
+		
+		Track track = Piano.toSequence(song.merge()).getTracks()[0];
+		List<String> notes = new ArrayList<String>();
+		for(int i = 0; i < track.size(); i++)
+		{
+			MidiMessage message = track.get(i).getMessage();
+			if(message instanceof ShortMessage && ((ShortMessage) message).getCommand() != ShortMessage.PROGRAM_CHANGE)
+			{
+				ShortMessage note = (ShortMessage) message;
+				notes.add((note.getCommand() == ShortMessage.NOTE_ON ? "on " : "off ") + note.getData1() + "@"
+						+ track.get(i).getTick());
+			}
+		}
+		assertTrue(notes.toString(), notes.contains("on 36@0"));
+		assertTrue(notes.toString(), notes.contains("off 36@400"));
+		assertTrue(notes.toString(), notes.contains("off 64@200"));
+		assertTrue(notes.toString(), notes.contains("on 72@400"));
+		assertTrue(notes.toString(), notes.contains("off 76@800"));
+		assertEquals("[]", events.toString());
+		
+		float[] samples = SongRenderer.render(song.getTracks(), new SampleCache());
+		assertEquals(SongRenderer.frames(800) + SongRenderer.frames(SongRenderer.RELEASE_MILLIS), samples.length);
+		float held = 0;
+		for(int i = (int) SongRenderer.frames(330); i < SongRenderer.frames(400); i++)
+		{
+			held = Math.max(held, Math.abs(samples[i]));
+		}
+		assertTrue(held > 0.01f);
+	}
+	
+	@Test
+	public void testMergerOrder() throws InvalidNoteException
+	{
+		List<NoteSequence> tracks = new ArrayList<NoteSequence>();
+		for(int i = 0; i < 32; i++)
+		{
+			NoteSequence track = new NoteSequence();
+			track.addRest(i);
+			for(int j = 0; j < 50; j++)
+			{
+				track.add(i + 40, 10 + i);
+			}
+			tracks.add(track);
+		}
+		
+		TrackMerger merger = new TrackMerger(tracks);
+		long[] last = new long[2];
+		int notes = 0;
+		while(merger.next())
+		{
+			assertTrue(merger.getTime() > last[0] || (merger.getTime() == last[0] && merger.getTrack() >= last[1]));
+			assertEquals(merger.getTrack() + 40, merger.getMIDIValue());
+			assertEquals(10 + merger.getTrack(), merger.getDuration());
+			last[0] = merger.getTime();
+			last[1] = merger.getTrack();
+			notes++;
+		}
+		assertEquals(32 * 50, notes);
+		assertEquals(31 + 50 * 41, merger.getEndTime());
+		assertFalse(merger.next());
+	}
+}
@@ -0,0 +1,160 @@
+/**
+ * 
+ */
+package utilities;
+import static org.junit.Assert.*;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import exception.InvalidNoteException;
+import note.Note;
+import note.NoteADT;
+import note.NoteSequence;
+
+public class NoteSequenceTest
+{
+	private NoteSequence sequence;
+	
+	@Before
+	public void setUp() throws InvalidNoteException
+	{
+		sequence = new NoteSequence(2);
+		sequence.add(50, 200);
+		sequence.addRest(400);
+		sequence.add(Note.valueOf("a4"), 200);
+		sequence.add(78, 400);
+	}
+	
+	private static List<Integer> midiValues(NoteSequence sequence)
+	{
+		List<Integer> midiValues = new ArrayList<Integer>();
+		for(int i = 0; i < sequence.size(); i++)
+		{
+			midiValues.add(sequence.getMIDIValue(i));
+		}
+		return midiValues;
+	}
+	
+	@Test
+	public void testAddAndRange() throws InvalidNoteException
+	{
+		assertEquals(4, sequence.size());
+		assertTrue(sequence.isRest(1));
+		assertEquals(400, sequence.getDuration(3));
+		assertEquals(50, sequence.lowestMIDIValue());
+		assertEquals(78, sequence.highestMIDIValue());
+		assertSame(Note.valueOf(69), sequence.getNote(2));
+	}
+	
+	@Test
+	public void testTranspose() throws InvalidNoteException
+	{
+		sequence.transpose(12);
+		assertEquals(Arrays.asList(62, NoteSequence.REST, 81, 90), midiValues(sequence));
+		assertFalse(sequence.canTranspose(38));
+	}
+	
+	@Test
+	public void testTransposeOutOfRangeChangesNothing()
+	{
+		try
+		{
+			sequence.transpose(-51);
+			fail("transpose should have thrown an exception");
+		}
+		catch(InvalidNoteException errorEvent)
+		{
+			assertEquals(Arrays.asList(50, NoteSequence.REST, 69, 78), midiValues(sequence));
+		}
+	}
+	
+	@Test
+	public void testSliceConcatenateReverse()
+	{
+		NoteSequence slice = sequence.slice(1, 3);
+		assertEquals(Arrays.asList(NoteSequence.REST, 69), midiValues(slice));
+		
+		NoteSequence both = slice.concatenate(sequence);
+		assertEquals(6, both.size());
+		both.reverse();
+		assertEquals(Arrays.asList(78, 69, NoteSequence.REST, 50, 69, NoteSequence.REST), midiValues(both));
+		assertEquals(400, both.getDuration(0));
+	}
+	
+	@Test
+	public void testReverseAndSliceKeepChords() throws InvalidNoteException
+	{
+		NoteSequence chords = new NoteSequence();
+		chords.add(50, 200);
+		chords.add(60, 0);
+		chords.add(64, 0);
+		chords.add(67, 400);
+		chords.addRest(100);
+		chords.add(48, 0);
+		chords.add(55, 800);
+		
+		chords.reverse();
+		assertEquals(Arrays.asList(48, 55, NoteSequence.REST, 60, 64, 67, 50), midiValues(chords));
+		assertEquals(0, chords.getDuration(0));
+		assertEquals(800, chords.getDuration(1));
+		assertEquals(400, chords.getSoundingDuration(3));
+		assertEquals(400, chords.getDuration(5));
+		assertEquals(200, chords.getDuration(6));
+		
+		NoteSequence slice = chords.slice(3, 6);
+		assertEquals(Arrays.asList(60, 64, 67), midiValues(slice));
+		assertEquals(400, slice.getSoundingDuration(0));
+		for(int[] bounds : new int[][] { { 1, 3 }, { 3, 5 }, { 4, 7 } })
+		{
+			try
+			{
+				chords.slice(bounds[0], bounds[1]);
+				fail("slice(" + bounds[0] + ", " + bounds[1] + ") should not cut a chord");
+			}
+			catch(IllegalArgumentException e)
+			{
+				assertEquals(7, chords.size());
+			}
+		}
+	}
+	
+	@Test
+	public void testIterateNotes()
+	{
+		List<Integer> notes = new ArrayList<Integer>();
+		for(NoteADT note : sequence)
+		{
+			notes.add(note.getMIDIValue());
+		}
+		assertEquals(Arrays.asList(50, 69, 78), notes);
+		assertEquals(3, NoteSequence.of(sequence, 200).size());
+	}
+	
+	@Test
+	public void testReadSequence() throws IOException
+	{
+		NoteSequence song = new SongReader().readSequence(new File("res/testsong.txt"));
+		assertEquals(30, song.size());
+		assertEquals(50, song.getMIDIValue(0));
+	}
+	
+	@Test
+	public void testChordSoundingDuration() throws InvalidNoteException
+	{
+		NoteSequence chord = new NoteSequence();
+		chord.add(60, 0);
+		chord.add(64, 0);
+		chord.add(67, 400);
+		chord.addRest(200);
+		assertEquals(400, chord.getSoundingDuration(0));
+		assertEquals(400, chord.getSoundingDuration(2));
+		assertEquals(200, chord.getSoundingDuration(3));
+	}
+}
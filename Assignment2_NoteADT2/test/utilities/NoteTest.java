@@ -248,4 +248,128 @@ public class NoteTest
 	}
 	
 	
+	@Test
+	public void testStringNoteSpellings() throws InvalidNoteException
+	{
+		assertEquals(67, new Note("G4").getMIDIValue());
+		assertEquals(78, new Note("Gb5").getMIDIValue());
+		assertEquals(80, new Note("G5#").getMIDIValue());
+		assertEquals(8, new Note("A-1b").getMIDIValue());
+		assertEquals(10, new Note("a#-1").getMIDIValue());
+		assertEquals(60, new Note("B#4").getMIDIValue());
+	}
+	
+	@Test(expected = InvalidNoteException.class)
+	public void testStringNoteNotInChart() throws InvalidNoteException
+	{
+		note = new Note("E#4");
+	}
+	
+	@Test(expected = InvalidNoteException.class)
+	public void testStringNoteWithoutOctave() throws InvalidNoteException
+	{
+		note = new Note("Gb");
+	}
+	
+	@Test
+	public void testParseMidiFromBuffer() throws InvalidNoteException
+	{
+		String line = "d3,f#5,a4-";
+		assertEquals(50, Note.parseMidi(line, 0, 2));
+		assertEquals(78, Note.parseMidi(line, 3, 6));
+		assertEquals(69, Note.parseMidi(line, 7, 9));
+	}
+	
+	@Test(expected = InvalidNoteException.class)
+	public void testParseMidiInvalidToken() throws InvalidNoteException
+	{
+		Note.parseMidi("d3,k3,a4", 3, 5);
+	}
+	
+	@Test
+	public void testValueOfReturnsSharedNotes() throws InvalidNoteException
+	{
+		assertSame(Note.valueOf(60), Note.valueOf("C4"));
+		assertSame(Note.valueOf(69), Note.valueOf(440.0));
+		assertSame(Note.valueOf(72), Note.valueOf("C4").transpose(12));
+	}
+	
+	@Test(expected = InvalidNoteException.class)
+	public void testTransposeOver() throws InvalidNoteException
+	{
+		Note.valueOf("G9").transpose(1);
+	}
+	
+	@Test(expected = UnsupportedOperationException.class)
+	public void testSharedNoteCannotBeModified() throws InvalidNoteException
+	{
+		assertTrue(Note.valueOf(60).isShared());
+		assertFalse(new Note(60 - Note.CONCERT_PITCH_MIDI).isShared());
+		Note.valueOf(60).modifyNoteByHalfSteps(2);
+	}
+	
+	@Test
+	public void testGetFrequencyInHz() throws InvalidNoteException
+	{
+		assertEquals(440.0, new Note("A4").getFrequencyInHz(), 0.0);
+		assertEquals(261.6256, new Note("C4").getFrequencyInHz(), 0.0001);
+		assertEquals(69, new Note(new Note("A4").getFrequencyInHz()).getMIDIValue());
+	}
+	
+	@Test
+	public void testFrequencyNoteRounding() throws InvalidNoteException
+	{
+		assertEquals(50, new Note(146.83238).getMIDIValue());
+		assertEquals(59, new Note(246.94165).getMIDIValue());
+		assertEquals(69, new Note(452.0).getMIDIValue());
+		assertEquals(70, new Note(453.0).getMIDIValue());
+	}
+	
+	@Test(expected = InvalidNoteException.class)
+	public void testFrequencyNoteNegative() throws InvalidNoteException
+	{
+		note = new Note(-9.0);
+	}
+	
+	@Test
+	public void testTryParseMidi()
+	{
+		assertEquals(60, Note.tryParseMidi("C4"));
+		assertEquals(Note.MALFORMED, Note.tryParseMidi("k3"));
+		assertEquals(Note.NOT_IN_CHART, Note.tryParseMidi("E#4"));
+		assertEquals(Note.OUT_OF_RANGE, Note.tryParseMidi("A#9"));
+		assertTrue(Note.isValid("g5#"));
+		assertFalse(Note.isValid("A##"));
+	}
+	
+	@Test
+	public void testTryFrequencyToMidi()
+	{
+		assertEquals(50, Note.tryFrequencyToMidi(146.83238));
+		assertEquals(Note.OUT_OF_RANGE, Note.tryFrequencyToMidi(-84));
+		assertEquals(Note.OUT_OF_RANGE, Note.tryFrequencyToMidi(234567.87632));
+	}
+	
+	@Test
+	public void testValueOfExceptionHasNoStackTrace()
+	{
+		try
+		{
+			Note.valueOf("k3");
+			fail("valueOf should have thrown an exception");
+		}
+		catch(InvalidNoteException errorEvent)
+		{
+			assertEquals(0, errorEvent.getStackTrace().length);
+		}
+	}
+	
+	@Test
+	public void testModifyNoteOutOfRange() throws InvalidNoteException
+	{
+		note = new Note("G9");
+		note.modifyNoteByHalfSteps(1);
+		assertEquals(127, note.getMIDIValue());
+	}
+	
 }
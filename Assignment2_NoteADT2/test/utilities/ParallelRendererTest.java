@@ -0,0 +1,60 @@
+/**
+ * 
+ */
+package utilities;
+import static org.junit.Assert.*;
+
+import java.util.Arrays;
+import java.util.concurrent.ForkJoinPool;
+
+import org.junit.Test;
+
+import exception.InvalidNoteException;
+import note.NoteSequence;
+import note.ParallelRenderer;
+import note.SongRenderer;
+
+public class ParallelRendererTest
+{
+	private static NoteSequence song(int notes, int firstMidi) throws InvalidNoteException
+	{
+		NoteSequence song = new NoteSequence();
+		for(int i = 0; i < notes; i++)
+		{
+			if(i % 9 == 8)
+			{
+				song.addRest(400);
+			}
+			else
+			{
+				song.add(firstMidi + i % 24, i % 5 == 0 ? 4000 : 200);
+			}
+		}
+		return song;
+	}
+	
+	@Test
+	public void testSongIsSampleIdentical() throws InvalidNoteException
+	{
+		NoteSequence song = song(200, 40);
+		float[] sequential = SongRenderer.render(song);
+		
+		ParallelRenderer renderer = new ParallelRenderer(new ForkJoinPool(4));
+		assertTrue(Arrays.equals(sequential, renderer.render(song)));
+		assertTrue(renderer.getThroughput() > 0);
+	}
+	
+	@Test
+	public void testPlaylistIsJoined() throws InvalidNoteException
+	{
+		NoteSequence first = song(50, 50);
+		NoteSequence second = song(70, 60);
+		float[] a = SongRenderer.render(first);
+		float[] b = SongRenderer.render(second);
+		
+		float[] playlist = new ParallelRenderer(new ForkJoinPool(3)).renderPlaylist(Arrays.asList(first, second));
+		assertEquals(a.length + b.length, playlist.length);
+		assertTrue(Arrays.equals(a, Arrays.copyOfRange(playlist, 0, a.length)));
+		assertTrue(Arrays.equals(b, Arrays.copyOfRange(playlist, a.length, playlist.length)));
+	}
+}
@@ -0,0 +1,76 @@
+/**
+ * 
+ */
+package utilities;
+import static org.junit.Assert.*;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.ForkJoinPool;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+public class ParallelSongLoaderTest
+{
+	private File song;
+	
+	@Before
+	public void setUp() throws IOException
+	{
+		song = File.createTempFile("song", ".txt");
+		StringBuilder lines = new StringBuilder();
+		for(int i = 0; i < 60000; i++)
+		{
+			lines.append(i % 7 == 0 ? "d3,k3,g3-,r\r\n" : "a4,146.83238,r-,c#4,e#4\n");
+		}
+		try(FileOutputStream out = new FileOutputStream(song))
+		{
+			out.write(lines.toString().getBytes(StandardCharsets.US_ASCII));
+		}
+	}
+	
+	@After
+	public void tearDown()
+	{
+		song.delete();
+	}
+	
+	private static SongListener recorder(final StringBuilder events)
+	{
+		return new SongListener()
+		{
+			@Override
+			public void onNote(int midiValue, int rest)
+			{
+				events.append(midiValue).append('/').append(rest).append(',');
+			}
+			
+			@Override
+			public void onRest(int rest)
+			{
+				events.append("r/").append(rest).append(',');
+			}
+			
+			@Override
+			public void onInvalid(int line, int column, CharSequence token, int status)
+			{
+				events.append(line).append(':').append(column).append(' ').append(token).append(',');
+			}
+		};
+	}
+	
+	@Test
+	public void testSameEventsAsSongReader() throws IOException
+	{
+		StringBuilder sequential = new StringBuilder();
+		StringBuilder parallel = new StringBuilder();
+		
+		int entries = new SongReader().read(song, recorder(sequential));
+		assertEquals(entries, new ParallelSongLoader(new ForkJoinPool(4)).load(song, recorder(parallel)));
+		assertEquals(sequential.toString(), parallel.toString());
+	}
+}
@@ -0,0 +1,176 @@
+/**
+ * 
+ */
+package utilities;
+import static org.junit.Assert.*;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import javax.sound.midi.InvalidMidiDataException;
+import javax.sound.midi.MidiEvent;
+import javax.sound.midi.MidiMessage;
+import javax.sound.midi.Receiver;
+import javax.sound.midi.Sequence;
+import javax.sound.midi.ShortMessage;
+import javax.sound.midi.Track;
+
+import org.junit.Test;
+
+import exception.InvalidNoteException;
+import note.NoteSequence;
+import note.PlaybackMetrics;
+import note.Piano;
+import note.RecordingReceiver;
+
+public class PianoTest
+{
+	@Test
+	public void testToSequence() throws InvalidNoteException, InvalidMidiDataException
+	{
+		NoteSequence song = new NoteSequence();
+		song.add(50, 200);
+		song.addRest(400);
+		song.add(69, 400);
+		
+		Sequence sequence = Piano.toSequence(song);
+		assertEquals(1, sequence.getTracks().length);
+		assertEquals(1000000, sequence.getMicrosecondLength());
+		
+		Track track = sequence.getTracks()[0];
+		int notes = 0;
+		for(int i = 0; i < track.size(); i++)
+		{
+			MidiEvent event = track.get(i);
+			if(event.getMessage() instanceof ShortMessage)
+			{
+				ShortMessage message = (ShortMessage) event.getMessage();
+				if(message.getCommand() == ShortMessage.NOTE_ON)
+				{
+					assertEquals(notes == 0 ? 0 : 600, event.getTick());
+					notes++;
+				}
+				else if(message.getCommand() == ShortMessage.NOTE_OFF)
+				{
+					assertEquals(message.getData1() == 50 ? 200 : 1000, event.getTick());
+				}
+			}
+		}
+		assertEquals(2, notes);
+		assertEquals(1000, track.ticks());
+	}
+	
+	@Test
+	public void testSustainedNotes()
+	{
+		final List<String> messages = new ArrayList<String>();
+		Piano piano = new Piano(new Receiver()
+		{
+			@Override
+			public void send(MidiMessage message, long timeStamp)
+			{
+				ShortMessage shortMessage = (ShortMessage) message;
+				if(shortMessage.getCommand() != ShortMessage.PROGRAM_CHANGE)
+				{
+					messages.add((shortMessage.getCommand() == ShortMessage.NOTE_ON ? "on " : "off ")
+							+ shortMessage.getData1());
+				}
+			}
+			
+			@Override
+			public void close()
+			{
+			}
+		});
+		
+		piano.playNote(60, 60, 10);
+		piano.playSong(10, 64);
+		piano.playNote(67, 5, 10);
+		assertEquals("[on 60, on 64, off 64, on 67, off 67]", messages.toString());
+		assertEquals(1, piano.getPendingEvents().size());
+		
+		piano.noteRest(40);
+		assertEquals("[on 60, on 64, off 64, on 67, off 67, off 60]", messages.toString());
+		assertEquals(0, piano.getPendingEvents().size());
+	}
+	
+	@Test
+	public void testMetrics()
+	{
+		RecordingReceiver output = new RecordingReceiver();
+		Piano piano = new Piano(output);
+		long start = System.nanoTime();
+		piano.playSong(20, 60);
+		piano.playSong(20, 62);
+		piano.playSong(20, 64);
+		
+		int noteOns = 0;
+		for(int i = 0; i < output.size(); i++)
+		{
+			if(output.getCommand(i) == ShortMessage.NOTE_ON)
+			{
+				assertEquals(60 + 2 * noteOns, output.getData1(i));
+				assertEquals(Piano.HIGHEST_MIDI_VALUE, output.getData2(i));
+				// every note on is sent at or after its target time, a late note does not delay the next one
+				assertTrue(output.getTime(i) - start >= 20000000L * noteOns);
+				noteOns++;
+			}
+		}
+		assertEquals(3, noteOns);
+		
+		PlaybackMetrics metrics = piano.getMetrics();
+		assertEquals(3, metrics.getEventCount());
+		assertEquals(0, metrics.getDropped());
+		assertTrue(metrics.getPercentile(50) <= metrics.getMaxLateness());
+		assertTrue(metrics.getMaxLateness() < 20000000);
+		
+		piano.close();
+		assertTrue(output.isClosed());
+	}
+	
+	@Test
+	public void testDroppedNotes()
+	{
+		RecordingReceiver output = new RecordingReceiver();
+		Piano piano = new Piano(output);
+		for(int i = 0; i < 16; i++)
+		{
+			piano.playNote(40 + i, 1000, 0);
+		}
+		assertEquals(16, piano.getMetrics().getEventCount());
+		assertEquals(0, piano.getMetrics().getDropped());
+		
+		output.clear();
+		piano.close();
+		assertEquals(16, output.size());
+	}
+	
+	@Test
+	public void testPolyphonyLimit()
+	{
+		RecordingReceiver output = new RecordingReceiver();
+		Piano piano = new Piano(output);
+		piano.setPolyphony(2);
+		piano.playNote(60, 1000, 0);
+		piano.playNote(60, 1000, 0);
+		piano.playNote(64, 1000, 0);
+		assertEquals(1, piano.getMetrics().getDropped());
+		
+		// the first 60 was cut off when the 64 started
+		List<String> messages = new ArrayList<String>();
+		for(int i = 0; i < output.size(); i++)
+		{
+			if(output.getCommand(i) != ShortMessage.PROGRAM_CHANGE)
+			{
+				messages.add((output.getCommand(i) == ShortMessage.NOTE_ON ? "on " : "off ") + output.getData1(i));
+			}
+		}
+		assertEquals("[on 60, on 60, off 60, on 64]", messages.toString());
+		
+		// the pending note off of the first 60 does not cut the second one
+		output.clear();
+		piano.close();
+		assertEquals(2, output.size());
+		assertNotEquals(output.getChannel(0), output.getChannel(1));
+	}
+}
@@ -0,0 +1,73 @@
+/**
+ * 
+ */
+package utilities;
+import static org.junit.Assert.*;
+
+import java.io.ByteArrayOutputStream;
+import java.io.PrintStream;
+
+import org.junit.Test;
+
+import note.PlaybackLog;
+
+public class PlaybackLogTest
+{
+	@Test
+	public void testAsyncPrintsEveryLineInOrder() throws InterruptedException
+	{
+		ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+		PlaybackLog log = PlaybackLog.async(new PrintStream(bytes), 10000);
+		StringBuilder expected = new StringBuilder();
+		for(int i = 0; i < 1000; i++)
+		{
+			log.println("Midi Note: " + i);
+			expected.append("Midi Note: ").append(i).append(System.lineSeparator());
+		}
+		log.close();
+		assertEquals(expected.toString(), bytes.toString());
+		assertEquals(0, log.getDropped());
+		
+		log.println("after");
+		assertTrue(bytes.toString().endsWith("after" + System.lineSeparator()));
+	}
+	
+	@Test
+	public void testFullQueueDropsLines() throws InterruptedException
+	{
+		final Object lock = new Object();
+		ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+		PrintStream slow = new PrintStream(bytes)
+		{
+			@Override
+			public void print(Object text)
+			{
+				synchronized(lock)
+				{
+					super.print(text);
+				}
+			}
+		};
+		PlaybackLog log = PlaybackLog.async(slow, 4);
+		synchronized(lock)
+		{
+			for(int i = 0; i < 100; i++)
+			{
+				log.println("line " + i);
+			}
+		}
+		log.close();
+		assertTrue(log.getDropped() > 0);
+		assertEquals(100 - log.getDropped(), bytes.toString().split(System.lineSeparator()).length);
+	}
+	
+	@Test
+	public void testQuiet() throws InterruptedException
+	{
+		PlaybackLog log = PlaybackLog.quiet();
+		assertFalse(log.isEnabled());
+		log.println("nothing");
+		log.close();
+		assertEquals(0, log.getDropped());
+	}
+}
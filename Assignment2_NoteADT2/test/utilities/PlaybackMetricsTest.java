@@ -0,0 +1,80 @@
+/**
+ * 
+ */
+package utilities;
+import static org.junit.Assert.*;
+
+import java.io.ByteArrayOutputStream;
+import java.io.PrintStream;
+
+import org.junit.Test;
+
+import note.PlaybackMetrics;
+
+public class PlaybackMetricsTest
+{
+	@Test
+	public void testPercentiles()
+	{
+		PlaybackMetrics metrics = new PlaybackMetrics();
+		assertEquals(0, metrics.getPercentile(99));
+		
+		// lateness of 1 - 100 microseconds, one note every millisecond
+		for(int i = 1; i <= 100; i++)
+		{
+			metrics.recordNoteOn(i * 1000000L, i * 1000000L + i * 1000L);
+		}
+		assertEquals(100, metrics.getEventCount());
+		assertEquals(100000, metrics.getMaxLateness());
+		assertEquals(50500, metrics.getAverageLateness());
+		assertEquals(999.0, metrics.getEventsPerSecond(), 0.01);
+		
+		long median = metrics.getPercentile(50);
+		assertTrue(median >= 50000 && median < 51000);
+		long p99 = metrics.getPercentile(99);
+		assertTrue(p99 >= 99000 * 0.97 && p99 <= 100000);
+		assertEquals(metrics.getMaxLateness(), metrics.getPercentile(100));
+	}
+	
+	@Test
+	public void testLargeLateness()
+	{
+		PlaybackMetrics metrics = new PlaybackMetrics();
+		metrics.recordNoteOn(0, 3000000000L);
+		metrics.recordNoteOn(0, 7);
+		metrics.recordNoteOn(10, 5);
+		assertEquals(3000000000L, metrics.getMaxLateness());
+		assertTrue(metrics.getPercentile(50) < 1000);
+		long p99 = metrics.getPercentile(99);
+		assertTrue(p99 >= 3000000000L * 0.97 && p99 <= 3000000000L);
+	}
+	
+	@Test
+	public void testPrintAndReset()
+	{
+		PlaybackMetrics metrics = new PlaybackMetrics();
+		metrics.recordNoteOn(0, 2000);
+		metrics.recordNoteOn(0, 2500);
+		metrics.recordDropped();
+		
+		ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+		metrics.print(new PrintStream(bytes));
+		String[] lines = bytes.toString().split(System.lineSeparator());
+		assertEquals(2, lines.length);
+		assertTrue(lines[0].startsWith("2 notes, "));
+		assertTrue(lines[0].endsWith(", 1 dropped"));
+		assertTrue(lines[1].trim().startsWith("2 -"));
+		assertTrue(lines[1].endsWith(": 2"));
+		
+		metrics.reset();
+		assertEquals(0, metrics.getEventCount());
+		assertEquals(0, metrics.getDropped());
+		assertEquals(0, metrics.getMaxLateness());
+	}
+	
+	@Test(expected = IllegalArgumentException.class)
+	public void testInvalidPercentile()
+	{
+		new PlaybackMetrics().getPercentile(101);
+	}
+}
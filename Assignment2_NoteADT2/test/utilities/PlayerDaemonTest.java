@@ -0,0 +1,124 @@
+/**
+ * 
+ */
+package utilities;
+import static org.junit.Assert.*;
+
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.PrintWriter;
+import java.net.InetAddress;
+import java.net.Socket;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import javax.sound.midi.MidiMessage;
+import javax.sound.midi.Receiver;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import note.Piano;
+
+public class PlayerDaemonTest
+{
+	private PlayerDaemon daemon;
+	private final AtomicInteger messages = new AtomicInteger();
+	
+	@Before
+	public void setUp() throws IOException
+	{
+		Piano piano = new Piano(new Receiver()
+		{
+			@Override
+			public void send(MidiMessage message, long timeStamp)
+			{
+				messages.incrementAndGet();
+			}
+			
+			@Override
+			public void close()
+			{
+			}
+		});
+		daemon = new PlayerDaemon(piano, 0);
+		Thread server = new Thread(new Runnable()
+		{
+			@Override
+			public void run()
+			{
+				try
+				{
+					daemon.serve();
+				}
+				catch (IOException e)
+				{
+					throw new AssertionError(e);
+				}
+			}
+		});
+		server.setDaemon(true);
+		server.start();
+	}
+	
+	@After
+	public void tearDown() throws IOException
+	{
+		daemon.close();
+	}
+	
+	@Test
+	public void testCommands() throws IOException
+	{
+		File song = File.createTempFile("song", ".txt");
+		song.deleteOnExit();
+		Files.copy(new File("res/song1.txt").toPath(), song.toPath(), StandardCopyOption.REPLACE_EXISTING);
+		try(Socket socket = new Socket(InetAddress.getLoopbackAddress(), daemon.getPort());
+			BufferedReader in = new BufferedReader(new InputStreamReader(socket.getInputStream(), StandardCharsets.UTF_8));
+			PrintWriter out = new PrintWriter(socket.getOutputStream(), true))
+		{
+			out.println("PLAY c4,e4-,k3");
+			assertEquals("OK 2 entries, 1 invalid entries", in.readLine());
+			out.println("QUEUE " + song.getPath());
+			assertTrue(in.readLine().startsWith("OK "));
+			assertFalse(CompiledSong.compiledFileOf(song).exists());
+			out.println("STATUS");
+			assertEquals("OK playing, 1 queued", in.readLine());
+			out.println("STOP");
+			assertEquals("OK stopped", in.readLine());
+			out.println("STATUS");
+			assertEquals("OK idle, 0 queued", in.readLine());
+			out.println("PLAY k3");
+			assertTrue(in.readLine().startsWith("ERROR "));
+			out.println("QUIT");
+			assertEquals("OK bye", in.readLine());
+			assertNull(in.readLine());
+		}
+		finally
+		{
+			song.delete();
+		}
+	}
+	
+	@Test
+	public void testUnknownLineClosesTheConnection() throws IOException
+	{
+		try(Socket socket = new Socket(InetAddress.getLoopbackAddress(), daemon.getPort());
+			BufferedReader in = new BufferedReader(new InputStreamReader(socket.getInputStream(), StandardCharsets.UTF_8));
+			PrintWriter out = new PrintWriter(socket.getOutputStream(), true))
+		{
+			out.println("POST / HTTP/1.1");
+			out.println("Host: 127.0.0.1:7070");
+			out.println();
+			out.println("PLAY c4,e4");
+			assertEquals("ERROR unknown command: POST", in.readLine());
+			assertNull(in.readLine());
+		}
+		assertEquals(0, messages.get());
+	}
+}
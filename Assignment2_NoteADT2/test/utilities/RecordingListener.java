@@ -0,0 +1,38 @@
+/**
+ * 
+ */
+package utilities;
+
+import java.util.List;
+
+/**
+ * A listener for the tests of the song loaders that writes every entry it receives into a list as text: a note
+ * as midiValue/rest, a rest as r/rest and an invalid entry as "invalid line:column token status".
+ */
+class RecordingListener implements SongListener
+{
+	private final List<String> events;
+	
+	RecordingListener(List<String> events)
+	{
+		this.events = events;
+	}
+	
+	@Override
+	public void onNote(int midiValue, int rest)
+	{
+		events.add(midiValue + "/" + rest);
+	}
+	
+	@Override
+	public void onRest(int rest)
+	{
+		events.add("r/" + rest);
+	}
+	
+	@Override
+	public void onInvalid(int line, int column, CharSequence token, int status)
+	{
+		events.add("invalid " + line + ":" + column + " " + token + " " + status);
+	}
+}
@@ -0,0 +1,61 @@
+/**
+ * 
+ */
+package utilities;
+import static org.junit.Assert.*;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.concurrent.ForkJoinPool;
+
+import org.junit.Test;
+
+import note.NoteSequence;
+import note.ParallelRenderer;
+import note.SampleCache;
+import note.SongRenderer;
+
+public class SampleCacheTest
+{
+	@Test
+	public void testCachedRenderIsIdentical() throws IOException
+	{
+		NoteSequence song = new SongReader().readSequence(new File("res/sweetchildofmine.txt"));
+		SampleCache cache = new SampleCache();
+		assertTrue(Arrays.equals(SongRenderer.render(song), SongRenderer.render(song, cache)));
+		assertTrue(cache.getHits() > cache.getMisses());
+		assertEquals(cache.size(), cache.getMisses());
+		
+		long misses = cache.getMisses();
+		float[] parallel = new ParallelRenderer(new ForkJoinPool(2), cache).render(song);
+		assertTrue(Arrays.equals(SongRenderer.render(song), parallel));
+		assertEquals(misses, cache.getMisses());
+	}
+	
+	@Test
+	public void testLeastRecentlyUsedEviction()
+	{
+		int noteBytes = 4 * (int) (SongRenderer.frames(200) + SongRenderer.frames(SongRenderer.RELEASE_MILLIS));
+		SampleCache cache = new SampleCache(2 * noteBytes);
+		int gate = (int) SongRenderer.frames(200);
+		
+		cache.get(60, gate, 0);
+		cache.get(62, gate, 0);
+		cache.get(60, gate, 0);
+		cache.get(64, gate, 0);
+		assertEquals(2, cache.size());
+		assertEquals(1, cache.getEvictions());
+		assertEquals(2 * noteBytes, cache.getBytes());
+		
+		cache.get(60, gate, 0);
+		assertEquals(2, cache.getHits());
+		cache.get(62, gate, 0);
+		assertEquals(4, cache.getMisses());
+		
+		SampleCache tiny = new SampleCache(noteBytes - 1);
+		assertEquals(noteBytes / 4, tiny.get(60, gate, 0).length);
+		assertEquals(0, tiny.size());
+		assertEquals(0, tiny.getBytes());
+	}
+}
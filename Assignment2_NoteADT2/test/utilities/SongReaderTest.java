@@ -0,0 +1,88 @@
+/**
+ * 
+ */
+package utilities;
+import static org.junit.Assert.*;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import note.Note;
+
+public class SongReaderTest
+{
+	private SongReader reader;
+	private List<String> events;
+	private SongListener listener;
+	
+	@Before
+	public void setUp()
+	{
+		reader = new SongReader();
+		events = new ArrayList<String>();
+		listener = new RecordingListener(events);
+	}
+	
+	private int parse(String song)
+	{
+		ByteBuffer contents = ByteBuffer.wrap(song.getBytes(StandardCharsets.US_ASCII));
+		return reader.parse(contents, 0, contents.limit(), 1, listener);
+	}
+	
+	@Test
+	public void testNotesAndRests()
+	{
+		assertEquals(5, parse("d3,g3-,r-,r,f#5"));
+		assertEquals("[50/200, 55/400, r/400, r/200, 78/200]", events.toString());
+	}
+	
+	@Test
+	public void testFrequencies()
+	{
+		parse("146.83238,246.94165-,440");
+		assertEquals("[50/200, 59/400, 69/200]", events.toString());
+	}
+	
+	@Test
+	public void testChords()
+	{
+		assertEquals(3, parse("c4+e4+g4,d3,c4+440-"));
+		assertEquals("[60/0, 64/0, 67/200, 50/200, 60/0, 69/400]", events.toString());
+		
+		events.clear();
+		parse("c4+k3+g4,+440,4.4e+2,c4+x9");
+		assertEquals("[invalid 1:4 k3 " + Note.MALFORMED + ", 60/0, 67/200, 69/200, 69/200, invalid 1:25 x9 "
+				+ Note.MALFORMED + ", 60/200]", events.toString());
+	}
+	
+	@Test
+	public void testInvalidEntries()
+	{
+		parse("d3,k3\r\nc4,-84\n,234567.87632,e#4");
+		assertEquals("[50/200, invalid 1:4 k3 " + Note.MALFORMED + ", 60/200, invalid 2:4 -84 " + Note.OUT_OF_RANGE
+				+ ", invalid 3:2 234567.87632 " + Note.OUT_OF_RANGE + ", invalid 3:15 e#4 " + Note.NOT_IN_CHART + "]",
+				events.toString());
+	}
+	
+	@Test
+	public void testEmptyEntriesAreSkipped()
+	{
+		assertEquals(2, parse(",,c4,,\n\n\rd4,"));
+		assertEquals("[60/200, 62/200]", events.toString());
+	}
+	
+	@Test
+	public void testReadFile() throws IOException
+	{
+		assertEquals(34, reader.read(new File("res/testsong.txt"), listener));
+		assertEquals("50/200", events.get(0));
+		assertEquals("invalid 1:50 k3 " + Note.MALFORMED, events.get(15));
+	}
+}
@@ -0,0 +1,85 @@
+/**
+ * 
+ */
+package utilities;
+import static org.junit.Assert.*;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.Arrays;
+
+import javax.sound.sampled.AudioFileFormat;
+import javax.sound.sampled.AudioSystem;
+import javax.sound.sampled.UnsupportedAudioFileException;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import exception.InvalidNoteException;
+import note.NoteSequence;
+import note.SongRenderer;
+
+public class SongRendererTest
+{
+	private NoteSequence song;
+	
+	@Before
+	public void setUp() throws InvalidNoteException
+	{
+		song = new NoteSequence();
+		song.add(50, 200);
+		song.addRest(400);
+		song.add(69, 400);
+		song.add(127, 200);
+	}
+	
+	@Test
+	public void testFrameLength()
+	{
+		assertEquals(SongRenderer.frames(1200 + SongRenderer.RELEASE_MILLIS), SongRenderer.frameLength(song));
+	}
+	
+	@Test
+	public void testRenderHasSoundAndSilence()
+	{
+		float[] samples = SongRenderer.render(song);
+		float loudest = 0;
+		for(int i = 0; i < SongRenderer.frames(200); i++)
+		{
+			loudest = Math.max(loudest, Math.abs(samples[i]));
+		}
+		assertTrue(loudest > 0.1f);
+		
+		int silence = (int) SongRenderer.frames(200 + SongRenderer.RELEASE_MILLIS) + 1;
+		assertEquals(0.0f, samples[silence], 0.0f);
+	}
+	
+	@Test
+	public void testRenderInPartsIsIdentical()
+	{
+		float[] whole = SongRenderer.render(song);
+		float[] parts = new float[whole.length];
+		for(int offset = 0; offset < parts.length; offset += 1000)
+		{
+			SongRenderer.render(song, parts, offset, Math.min(1000, parts.length - offset), offset);
+		}
+		assertTrue(Arrays.equals(whole, parts));
+	}
+	
+	@Test
+	public void testRenderToWav() throws IOException, UnsupportedAudioFileException
+	{
+		File wav = File.createTempFile("song", ".wav");
+		try
+		{
+			SongRenderer.renderToWav(song, wav);
+			AudioFileFormat format = AudioSystem.getAudioFileFormat(wav);
+			assertEquals(AudioFileFormat.Type.WAVE, format.getType());
+			assertEquals(SongRenderer.frameLength(song), format.getFrameLength());
+		}
+		finally
+		{
+			wav.delete();
+		}
+	}
+}
@@ -0,0 +1,49 @@
+/**
+ * 
+ */
+package utilities;
+import static org.junit.Assert.*;
+
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.FilenameFilter;
+import java.io.IOException;
+import java.io.PrintStream;
+
+import org.junit.Test;
+
+import note.NoteADT;
+
+public class SongValidatorTest
+{
+	@Test
+	public void testValidateFile() throws IOException
+	{
+		ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+		SongValidator validator = new SongValidator();
+		assertEquals(4, validator.validate(new File("res/testsong.txt"), new PrintStream(bytes)));
+		assertEquals(1, validator.getFiles());
+		assertEquals(30, validator.getNotes() + validator.getRests());
+		
+		String report = bytes.toString();
+		assertTrue(report.contains("res" + File.separator + "testsong.txt:1:50: k3: "
+				+ NoteADT.statusMessage(NoteADT.MALFORMED)));
+		assertEquals(4, report.split(System.lineSeparator()).length);
+	}
+	
+	@Test
+	public void testValidateFolder() throws IOException
+	{
+		SongValidator validator = new SongValidator();
+		assertEquals(4, validator.validateAll(new File("res"), new PrintStream(new ByteArrayOutputStream())));
+		assertEquals(new File("res").list(new FilenameFilter()
+		{
+			@Override
+			public boolean accept(File folder, String name)
+			{
+				return name.endsWith(".txt");
+			}
+		}).length, validator.getFiles());
+		assertEquals(4, validator.getInvalid());
+	}
+}
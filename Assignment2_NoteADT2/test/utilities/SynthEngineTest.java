@@ -0,0 +1,125 @@
+/**
+ * 
+ */
+package utilities;
+import static org.junit.Assert.*;
+
+import javax.sound.midi.InvalidMidiDataException;
+import javax.sound.midi.ShortMessage;
+
+import org.junit.Test;
+
+import note.SynthEngine;
+
+public class SynthEngineTest
+{
+	@Test
+	public void testNoteOnAndOff()
+	{
+		SynthEngine engine = new SynthEngine();
+		float[] buffer = new float[SynthEngine.BLOCK_FRAMES];
+		engine.render(buffer, buffer.length);
+		assertEquals(0, peak(buffer), 0);
+		
+		engine.noteOn(0, 69, 127);
+		assertEquals(1, engine.getActiveVoices());
+		engine.render(buffer, buffer.length);
+		assertTrue(peak(buffer) > 0.05f);
+		
+		engine.noteOff(0, 69);
+		for(int i = 0; i < SynthEngine.SAMPLE_RATE * SynthEngine.RELEASE_MILLIS / 1000 / buffer.length + 1; i++)
+		{
+			engine.render(buffer, buffer.length);
+		}
+		assertEquals(0, engine.getActiveVoices());
+		engine.render(buffer, buffer.length);
+		assertEquals(0, peak(buffer), 0);
+	}
+	
+	@Test
+	public void testNoteOffRightAfterNoteOnIsHeard()
+	{
+		SynthEngine engine = new SynthEngine();
+		float[] buffer = new float[SynthEngine.BLOCK_FRAMES];
+		engine.noteOn(0, 69, 127);
+		engine.noteOff(0, 69);
+		assertEquals(1, engine.getActiveVoices());
+		engine.render(buffer, buffer.length);
+		assertTrue(peak(buffer) > 0.05f);
+		
+		for(int i = 0; i < SynthEngine.SAMPLE_RATE * SynthEngine.RELEASE_MILLIS / 1000 / buffer.length + 1; i++)
+		{
+			engine.render(buffer, buffer.length);
+		}
+		assertEquals(0, engine.getActiveVoices());
+	}
+	
+	@Test
+	public void testNoteOffKeepsSamePitchOnOtherChannel() throws InvalidMidiDataException
+	{
+		SynthEngine engine = new SynthEngine();
+		float[] buffer = new float[SynthEngine.BLOCK_FRAMES];
+		engine.send(new ShortMessage(ShortMessage.NOTE_ON, 0, 60, 127), -1);
+		engine.send(new ShortMessage(ShortMessage.NOTE_ON, 1, 60, 127), -1);
+		engine.render(buffer, buffer.length);
+		
+		engine.send(new ShortMessage(ShortMessage.NOTE_OFF, 0, 60, 0), -1);
+		for(int i = 0; i < SynthEngine.SAMPLE_RATE * SynthEngine.RELEASE_MILLIS / 1000 / buffer.length + 1; i++)
+		{
+			engine.render(buffer, buffer.length);
+		}
+		assertEquals(1, engine.getActiveVoices());
+		assertTrue(peak(buffer) > 0.05f);
+		
+		engine.noteOff(1, 60);
+		for(int i = 0; i < SynthEngine.SAMPLE_RATE * SynthEngine.RELEASE_MILLIS / 1000 / buffer.length + 1; i++)
+		{
+			engine.render(buffer, buffer.length);
+		}
+		assertEquals(0, engine.getActiveVoices());
+	}
+	
+	@Test
+	public void testVoiceStealing()
+	{
+		SynthEngine engine = new SynthEngine();
+		for(int i = 0; i < SynthEngine.VOICES + 8; i++)
+		{
+			engine.noteOn(0, 40 + i, 100);
+		}
+		assertEquals(SynthEngine.VOICES, engine.getActiveVoices());
+		
+		engine.allNotesOff();
+		engine.noteOn(0, 60, 100);
+		assertEquals(SynthEngine.VOICES, engine.getActiveVoices());
+	}
+	
+	@Test
+	public void testMidiMessages() throws InvalidMidiDataException
+	{
+		SynthEngine engine = new SynthEngine();
+		engine.send(new ShortMessage(ShortMessage.NOTE_ON, 1, 60, 127), -1);
+		engine.send(new ShortMessage(ShortMessage.NOTE_ON, 1, 64, 127), -1);
+		engine.send(new ShortMessage(ShortMessage.PROGRAM_CHANGE, 1, 12, 0), -1);
+		assertEquals(2, engine.getActiveVoices());
+		
+		engine.send(new ShortMessage(ShortMessage.NOTE_ON, 1, 60, 0), -1);
+		engine.send(new ShortMessage(ShortMessage.CONTROL_CHANGE, 1, 123, 0), -1);
+		byte[] pcm = new byte[SynthEngine.BLOCK_FRAMES * 2];
+		for(int i = 0; i < 100; i++)
+		{
+			engine.render(pcm, SynthEngine.BLOCK_FRAMES);
+		}
+		assertEquals(0, engine.getActiveVoices());
+	}
+	
+	private static float peak(float[] buffer)
+	{
+		float peak = 0;
+		for(float sample : buffer)
+		{
+			peak = Math.max(peak, Math.abs(sample));
+		}
+		return peak;
+	}
+}
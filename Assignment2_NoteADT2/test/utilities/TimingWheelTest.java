@@ -0,0 +1,89 @@
+/**
+ * 
+ */
+package utilities;
+import static org.junit.Assert.*;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import note.TimingWheel;
+
+public class TimingWheelTest
+{
+	private TimingWheel wheel;
+	private List<String> expired;
+	private TimingWheel.Listener listener;
+	
+	@Before
+	public void setUp()
+	{
+		wheel = new TimingWheel(16);
+		expired = new ArrayList<String>();
+		listener = new TimingWheel.Listener()
+		{
+			@Override
+			public void onExpire(long tick, int event)
+			{
+				expired.add(tick + ":" + event);
+			}
+		};
+	}
+	
+	@Test
+	public void testExpireInOrder()
+	{
+		wheel.schedule(5, 1);
+		wheel.schedule(3, 2);
+		wheel.schedule(5, 3);
+		wheel.schedule(21, 4);
+		wheel.schedule(37, 5);
+		assertEquals(5, wheel.size());
+		assertEquals(3, wheel.nextTick(10));
+		assertEquals(-1, wheel.nextTick(2));
+		
+		assertEquals(3, wheel.advance(20, listener));
+		assertEquals("[3:2, 5:1, 5:3]", expired.toString());
+		assertEquals(21, wheel.nextTick(100));
+		
+		assertEquals(1, wheel.advance(21, listener));
+		assertEquals(1, wheel.expireAll(listener));
+		assertEquals("[3:2, 5:1, 5:3, 21:4, 37:5]", expired.toString());
+		assertEquals(0, wheel.size());
+	}
+	
+	@Test
+	public void testPastEventsExpireNextTick()
+	{
+		wheel.advance(100, listener);
+		wheel.schedule(50, 7);
+		assertEquals(101, wheel.nextTick(200));
+		wheel.advance(101, listener);
+		assertEquals("[101:7]", expired.toString());
+	}
+	
+	@Test
+	public void testManyOverlappingEvents()
+	{
+		for(int i = 0; i < 10000; i++)
+		{
+			wheel.schedule(1 + i % 997, i);
+		}
+		assertEquals(10000, wheel.size());
+		assertEquals(10000, wheel.advance(997, listener));
+		assertEquals("1:0", expired.get(0));
+		assertEquals("997:9969", expired.get(expired.size() - 1));
+		
+		wheel.schedule(998, 1);
+		assertEquals(1, wheel.advance(998, listener));
+	}
+	
+	@Test(expected = IllegalArgumentException.class)
+	public void testSlotsMustBePowerOfTwo()
+	{
+		new TimingWheel(100);
+	}
+}
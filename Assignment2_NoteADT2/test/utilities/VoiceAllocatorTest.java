@@ -0,0 +1,100 @@
+/**
+ * 
+ */
+package utilities;
+import static org.junit.Assert.*;
+
+import org.junit.Test;
+
+import note.VoiceAllocator;
+
+public class VoiceAllocatorTest
+{
+	@Test
+	public void testChordUsesDifferentChannels()
+	{
+		VoiceAllocator voices = new VoiceAllocator();
+		int c = voices.allocate(60);
+		int e = voices.allocate(64);
+		int g = voices.allocate(67);
+		assertNotEquals(VoiceAllocator.channelOf(c), VoiceAllocator.channelOf(e));
+		assertNotEquals(VoiceAllocator.channelOf(e), VoiceAllocator.channelOf(g));
+		assertNotEquals(VoiceAllocator.channelOf(c), VoiceAllocator.channelOf(g));
+		assertEquals(64, VoiceAllocator.noteOf(e));
+		assertEquals(3, voices.getActiveVoices());
+		
+		assertTrue(voices.release(e));
+		assertFalse(voices.release(e));
+		assertEquals(2, voices.getActiveVoices());
+	}
+	
+	@Test
+	public void testManyNotesSoundTogether()
+	{
+		VoiceAllocator voices = new VoiceAllocator();
+		for(int i = 0; i < 1000; i++)
+		{
+			int voice = voices.allocate(i % 128);
+			assertNotEquals(VoiceAllocator.PERCUSSION_CHANNEL, VoiceAllocator.channelOf(voice));
+			assertEquals(VoiceAllocator.FREE, voices.getReplacedVoice());
+		}
+		assertEquals(1000, voices.getActiveVoices());
+	}
+	
+	@Test
+	public void testSamePitchUsesAnotherChannel()
+	{
+		VoiceAllocator voices = new VoiceAllocator();
+		int first = voices.allocate(60);
+		int second = voices.allocate(60);
+		assertNotEquals(VoiceAllocator.channelOf(first), VoiceAllocator.channelOf(second));
+		assertTrue(voices.release(first));
+		assertEquals(1, voices.getActiveVoices());
+	}
+	
+	@Test
+	public void testOldestVoiceIsTakenAtTheLimit()
+	{
+		VoiceAllocator voices = new VoiceAllocator(4);
+		int first = voices.allocate(40);
+		for(int i = 1; i < 4; i++)
+		{
+			voices.allocate(40 + i);
+		}
+		assertEquals(VoiceAllocator.FREE, voices.getReplacedVoice());
+		
+		voices.allocate(90);
+		assertEquals(first, voices.getReplacedVoice());
+		assertEquals(4, voices.getActiveVoices());
+		
+		// the note off of the note that lost its voice does not free a later note
+		assertFalse(voices.release(first));
+		assertEquals(4, voices.getActiveVoices());
+	}
+	
+	@Test
+	public void testTakenVoiceIsNotReleasedByItsOldNoteOff()
+	{
+		VoiceAllocator voices = new VoiceAllocator(1);
+		int first = voices.allocate(60);
+		int channel = VoiceAllocator.channelOf(first);
+		// one note on every other channel but percussion
+		for(int i = 2; i < VoiceAllocator.CHANNELS; i++)
+		{
+			voices.allocate(61);
+		}
+		
+		// the round-robin comes back to the channel of the first note with the same pitch
+		int again = voices.allocate(60);
+		assertEquals(channel, VoiceAllocator.channelOf(again));
+		assertNotEquals(first, again);
+		assertFalse(voices.release(first));
+		assertTrue(voices.release(again));
+	}
+	
+	@Test(expected = IllegalArgumentException.class)
+	public void testInvalidPolyphony()
+	{
+		new VoiceAllocator(0);
+	}
+}